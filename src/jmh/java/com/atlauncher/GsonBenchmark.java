@@ -0,0 +1,135 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.atlauncher.data.DisableableMod;
+import com.atlauncher.data.Instance;
+import com.atlauncher.data.InstanceLauncher;
+import com.atlauncher.data.Type;
+import com.atlauncher.data.minecraft.AssetIndex;
+import com.atlauncher.data.minecraft.AssetObject;
+import com.atlauncher.data.minecraft.MinecraftVersion;
+import com.atlauncher.utils.Hashing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures reading and writing the biggest JSON files the launcher deals with:
+ * asset indexes (which for modern versions have thousands of objects),
+ * Minecraft version files and instance.json files of instances with lots of
+ * mods.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GsonBenchmark {
+    @Param({ "src/test/resources/mocks/launchermeta-mojang-com/1.16.4.json" })
+    public String versionFile;
+
+    @Param({ "4000" })
+    public int assetObjects;
+
+    @Param({ "250" })
+    public int mods;
+
+    private String assetIndexJson;
+    private AssetIndex assetIndex;
+    private String versionJson;
+    private String instanceJson;
+    private Instance instance;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(1337);
+        byte[] bytes = new byte[20];
+
+        assetIndex = new AssetIndex();
+        assetIndex.objects = new HashMap<>();
+        for (int i = 0; i < assetObjects; i++) {
+            random.nextBytes(bytes);
+
+            AssetObject object = new AssetObject();
+            object.hash = Hashing.HashCode.fromBytes(bytes.clone()).toString();
+            object.size = random.nextInt(1048576);
+
+            assetIndex.objects.put("minecraft/sounds/object-" + i + ".ogg", object);
+        }
+        assetIndexJson = Gsons.MINECRAFT.toJson(assetIndex);
+
+        versionJson = new String(Files.readAllBytes(Paths.get(versionFile)), StandardCharsets.UTF_8);
+
+        instance = new Instance(Gsons.MINECRAFT.fromJson(versionJson, MinecraftVersion.class));
+        instance.launcher = new InstanceLauncher();
+        instance.launcher.name = "Benchmark";
+        instance.launcher.pack = "Benchmark";
+        instance.launcher.version = "1.0.0";
+        for (int i = 0; i < mods; i++) {
+            instance.launcher.mods.add(new DisableableMod("Mod " + i, "1.0." + i, false, "mod-" + i + ".jar", null,
+                    Type.mods, null, "A mod used for benchmarking", false, false, true, 100000 + i, 3000000 + i, null,
+                    null));
+        }
+        instanceJson = Gsons.MINECRAFT.toJson(instance);
+    }
+
+    @Benchmark
+    public AssetIndex parseAssetIndex() {
+        return Gsons.MINECRAFT.fromJson(assetIndexJson, AssetIndex.class);
+    }
+
+    @Benchmark
+    public String writeAssetIndex() {
+        return Gsons.MINECRAFT.toJson(assetIndex);
+    }
+
+    @Benchmark
+    public MinecraftVersion parseMinecraftVersion() {
+        return Gsons.MINECRAFT.fromJson(versionJson, MinecraftVersion.class);
+    }
+
+    @Benchmark
+    public Instance parseInstance() {
+        return Gsons.MINECRAFT.fromJson(instanceJson, Instance.class);
+    }
+
+    @Benchmark
+    public String writeInstance() {
+        return Gsons.MINECRAFT.toJson(instance);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.network;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.atlauncher.App;
+import com.atlauncher.data.Settings;
+import com.atlauncher.utils.FileUtils;
+import com.atlauncher.utils.Hashing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures checking which files in a pool need downloading with
+ * {@link DownloadPool#downsize()}, which is what every install and launch does
+ * for the libraries and assets before downloading anything. All the files
+ * already exist, so this is purely the cost of verifying them, either trusting
+ * the verified file index or (with deep verify) hashing every file again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DownloadPoolBenchmark {
+    // about the size of a modern asset index
+    @Param({ "20000" })
+    public int files;
+
+    @Param({ "false", "true" })
+    public boolean deepVerify;
+
+    private Path workingDir;
+    private DownloadPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // this must be set before anything touches the FileSystem class, so the
+        // launcher's directories are created in here rather than next to the jar
+        workingDir = Files.createTempDirectory("download-pool-benchmark");
+        App.workingDir = workingDir;
+        App.settings = new Settings();
+        App.deepVerify = deepVerify;
+
+        Files.createDirectories(workingDir.resolve("cache"));
+        Path objects = Files.createDirectories(workingDir.resolve("assets").resolve("objects"));
+
+        Random random = new Random(1337);
+        pool = new DownloadPool();
+
+        for (int i = 0; i < files; i++) {
+            byte[] bytes = new byte[4096];
+            random.nextBytes(bytes);
+
+            Path file = objects.resolve(String.format("%02x", i % 256)).resolve("object-" + i);
+            Files.createDirectories(file.getParent());
+            Files.write(file, bytes);
+
+            pool.add(Download.build().setUrl("https://resources.download.minecraft.net/object-" + i)
+                    .hash(Hashing.sha1(bytes).toString()).size(bytes.length).downloadTo(file));
+        }
+
+        // check once so the verified file index is filled like it would be after an
+        // install
+        pool.downsize();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        App.deepVerify = false;
+        FileUtils.deleteDirectory(workingDir);
+    }
+
+    @Benchmark
+    public DownloadPool downsize() {
+        return pool.downsize();
+    }
+}
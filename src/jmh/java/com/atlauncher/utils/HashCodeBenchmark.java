@@ -0,0 +1,75 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing hashes with {@link Hashing.HashCode#fromString(String)},
+ * which happens for every file checked. The same hash is parsed again when the
+ * same file is checked again (hitting the cache), while an asset index is
+ * mostly hashes that haven't been seen before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HashCodeBenchmark {
+    private static final int HASHES = 20000;
+
+    private final String[] hashes = new String[HASHES];
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1337);
+        byte[] bytes = new byte[20];
+
+        for (int i = 0; i < HASHES; i++) {
+            random.nextBytes(bytes);
+            hashes[i] = Hashing.HashCode.fromBytes(bytes.clone()).toString();
+        }
+    }
+
+    @Benchmark
+    public Hashing.HashCode sameHash() {
+        return Hashing.HashCode.fromString(hashes[0]);
+    }
+
+    @Benchmark
+    public Hashing.HashCode differentHashes() {
+        index = (index + 1) % HASHES;
+
+        return Hashing.HashCode.fromString(hashes[index]);
+    }
+}
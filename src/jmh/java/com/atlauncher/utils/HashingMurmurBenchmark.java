@@ -0,0 +1,91 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.sangupta.murmur.Murmur2;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the streaming murmur fingerprint in {@link Hashing#murmur(Path)}
+ * against the previous implementation which read the whole file in and made a
+ * filtered copy for each whitespace character.
+ *
+ * Run with the gc profiler (-prof gc) to see the difference in allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HashingMurmurBenchmark {
+    @Param({ "1048576", "52428800" })
+    public int size;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(1337).nextBytes(bytes);
+
+        file = Files.createTempFile("murmur-benchmark", ".jar");
+        Files.write(file, bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long readAllBytes() throws IOException {
+        byte[] bytes = ArrayUtils
+                .removeAllOccurrences(ArrayUtils.removeAllOccurrences(
+                        ArrayUtils.removeAllOccurrences(
+                                ArrayUtils.removeAllOccurrences(Files.readAllBytes(file), (byte) 9), (byte) 10),
+                        (byte) 13), (byte) 32);
+
+        return Murmur2.hash(bytes, bytes.length, 1L);
+    }
+
+    @Benchmark
+    public long streaming() throws IOException {
+        return Hashing.murmur(file);
+    }
+}
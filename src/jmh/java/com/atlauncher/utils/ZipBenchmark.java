@@ -0,0 +1,133 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeroturnaround.zip.ZipUtil;
+
+/**
+ * Measures zipping and unzipping a directory that looks like a modpack, with a
+ * mix of small compressible config files and larger incompressible jars, using
+ * both the launcher's own {@link Utils#unzip(java.io.File, java.io.File)} and
+ * {@link ZipUtil} which is used for backups and exports.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ZipBenchmark {
+    @Param({ "500" })
+    public int files;
+
+    private Path workingDir;
+    private Path source;
+    private Path zip;
+    private Path out;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Random random = new Random(1337);
+
+        workingDir = Files.createTempDirectory("zip-benchmark");
+        source = Files.createDirectories(workingDir.resolve("source"));
+        zip = workingDir.resolve("source.zip");
+
+        for (int i = 0; i < files; i++) {
+            Path file;
+            byte[] bytes;
+
+            if (i % 5 == 0) {
+                file = source.resolve("mods").resolve("mod-" + i + ".jar");
+                bytes = new byte[262144];
+                random.nextBytes(bytes);
+            } else {
+                file = source.resolve("config").resolve("config-" + i + ".cfg");
+                StringBuilder config = new StringBuilder();
+                for (int line = 0; line < 200; line++) {
+                    config.append("setting").append(line).append("=").append(random.nextInt(100)).append('\n');
+                }
+                bytes = config.toString().getBytes();
+            }
+
+            Files.createDirectories(file.getParent());
+            Files.write(file, bytes);
+        }
+
+        try (OutputStream outputStream = Files.newOutputStream(zip);
+                ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            for (Path file : (Iterable<Path>) Files.walk(source).filter(Files::isRegularFile)::iterator) {
+                zipOutputStream.putNextEntry(new ZipEntry(source.relativize(file).toString().replace('\\', '/')));
+                Files.copy(file, zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws IOException {
+        out = Files.createTempDirectory(workingDir, "out");
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        FileUtils.deleteDirectory(out);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileUtils.deleteDirectory(workingDir);
+    }
+
+    @Benchmark
+    public void unzip() {
+        Utils.unzip(zip.toFile(), out.toFile());
+    }
+
+    @Benchmark
+    public void unpack() {
+        ZipUtil.unpack(zip.toFile(), out.toFile());
+    }
+
+    @Benchmark
+    public void pack() {
+        ZipUtil.pack(source.toFile(), out.resolve("out.zip").toFile());
+    }
+}
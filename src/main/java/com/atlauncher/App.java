@@ -39,6 +39,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
@@ -67,8 +68,12 @@ import com.atlauncher.managers.DialogManager;
 import com.atlauncher.managers.InstanceManager;
 import com.atlauncher.managers.LogManager;
 import com.atlauncher.managers.PackManager;
+import com.atlauncher.managers.PerformanceManager;
+import com.atlauncher.managers.VerifiedFileManager;
 import com.atlauncher.network.ErrorReporting;
+import com.atlauncher.network.MetricsServer;
 import com.atlauncher.themes.ATLauncherLaf;
+import com.atlauncher.thread.LogChannel;
 import com.atlauncher.utils.Java;
 import com.atlauncher.utils.OS;
 import com.atlauncher.utils.Utils;
@@ -165,6 +170,24 @@ public class App {
      */
     public static boolean skipHashChecking = false;
 
+    /**
+     * This forces every file to be fully hashed when checking if it needs to be
+     * downloaded, rather than trusting the index of files which have already been
+     * verified. It can be enabled with the below command line argument.
+     * <p/>
+     * --deep-verify
+     */
+    public static boolean deepVerify = false;
+
+    /**
+     * This serves the launchers performance metrics as JSON on the given port of
+     * localhost, at /metrics. It can be enabled with the below command line
+     * argument.
+     * <p/>
+     * --metrics-port=8765
+     */
+    public static Integer metricsPort = null;
+
     /**
      * This forces the working directory for the launcher. It can be changed with
      * the below command line argument.
@@ -281,6 +304,17 @@ public class App {
             LogManager.logStackTrace("Error organising filesystem", e, false);
         }
 
+        // write out the metrics collected while running when the launcher closes
+        Runtime.getRuntime()
+                .addShutdownHook(new Thread(() -> PerformanceManager.export(FileSystem.LOGS.resolve("metrics.json"))));
+
+        // any verified file hashes not yet saved in the background are saved on close
+        Runtime.getRuntime().addShutdownHook(new Thread(VerifiedFileManager::save));
+
+        if (metricsPort != null) {
+            MetricsServer.start(metricsPort);
+        }
+
         // Load the settings from json, convert old properties config and validate it
         loadSettings();
 
@@ -780,6 +814,8 @@ public class App {
         parser.accepts("disable-analytics").withOptionalArg().ofType(Boolean.class);
         parser.accepts("disable-error-reporting").withOptionalArg().ofType(Boolean.class);
         parser.accepts("skip-hash-checking").withOptionalArg().ofType(Boolean.class);
+        parser.accepts("deep-verify").withOptionalArg().ofType(Boolean.class);
+        parser.accepts("metrics-port").withRequiredArg().ofType(Integer.class);
         parser.accepts("force-offline-mode").withOptionalArg().ofType(Boolean.class);
         parser.accepts("working-dir").withRequiredArg().ofType(String.class);
         parser.accepts("base-launcher-domain").withRequiredArg().ofType(String.class);
@@ -791,6 +827,8 @@ public class App {
         parser.accepts("close-launcher").withOptionalArg().ofType(Boolean.class);
         parser.accepts("debug").withOptionalArg().ofType(Boolean.class);
         parser.accepts("debug-level").withRequiredArg().ofType(Integer.class);
+        parser.accepts("log-queue-capacity").withRequiredArg().ofType(Integer.class);
+        parser.accepts("log-overflow-policy").withRequiredArg().ofType(String.class);
         parser.accepts("launch").withRequiredArg().ofType(String.class);
         parser.accepts("proxy-type").withRequiredArg().ofType(String.class);
         parser.accepts("proxy-host").withRequiredArg().ofType(String.class);
@@ -814,6 +852,24 @@ public class App {
             LogManager.debug("Debug level has been set to " + options.valueOf("debug-level") + "!");
         }
 
+        if (options.has("log-queue-capacity")) {
+            LogManager.setQueueCapacity((Integer) options.valueOf("log-queue-capacity"));
+            LogManager.debug("Log queue capacity has been set to " + options.valueOf("log-queue-capacity") + "!");
+        }
+
+        if (options.has("log-overflow-policy")) {
+            String overflowPolicy = String.valueOf(options.valueOf("log-overflow-policy"));
+
+            try {
+                LogManager.setOverflowPolicy(
+                        LogChannel.OverflowPolicy.valueOf(overflowPolicy.toUpperCase(Locale.ENGLISH).replace('-', '_')));
+                LogManager.debug("Log overflow policy has been set to " + overflowPolicy + "!");
+            } catch (IllegalArgumentException e) {
+                LogManager.warn("Unknown log overflow policy " + overflowPolicy
+                        + "! Must be one of block, drop-oldest or drop-newest.");
+            }
+        }
+
         skipSetupDialog = options.has("skip-setup-dialog");
         if (skipSetupDialog) {
             LogManager.debug("Skipping setup dialog!");
@@ -890,6 +946,16 @@ public class App {
             LogManager.debug("Skipping hash checking! Don't ask for support with this enabled!");
         }
 
+        deepVerify = options.has("deep-verify");
+        if (deepVerify) {
+            LogManager.debug("Deep verifying all files instead of using the verified file index!");
+        }
+
+        if (options.has("metrics-port")) {
+            metricsPort = (Integer) options.valueOf("metrics-port");
+            LogManager.debug("Serving metrics on port " + metricsPort + "!");
+        }
+
         if (options.has("proxy-type") && options.has("proxy-host") && options.has("proxy-port")) {
             String proxyType = String.valueOf(options.valueOf("proxy-type"));
             String proxyHost = String.valueOf(options.valueOf("proxy-host"));
@@ -17,6 +17,7 @@
  */
 package com.atlauncher;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -37,7 +38,9 @@ public final class Data {
     public static final List<AbstractAccount> ACCOUNTS = new LinkedList<>();
     public static AbstractAccount SELECTED_ACCOUNT = null; // Account using the Launcher
 
-    public static final List<News> NEWS = new LinkedList<>();
+    // replaced all at once rather than changed, since it's loaded in the background while
+    // the news tab may be reading it
+    public static volatile List<News> NEWS = Collections.emptyList();
 
     public static final List<Pack> PACKS = new LinkedList<>();
 
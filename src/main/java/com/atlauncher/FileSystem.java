@@ -35,7 +35,10 @@ public final class FileSystem {
     public static final Path BASE_DIR = FileSystem.getCoreGracefully();
     public static final Path LOGS = BASE_DIR.resolve("logs");
     public static final Path BACKUPS = BASE_DIR.resolve("backups");
+    public static final Path INCREMENTAL_BACKUPS = BACKUPS.resolve("incremental");
     public static final Path CACHE = BASE_DIR.resolve("cache");
+    public static final Path LAUNCH_STAMPS = CACHE.resolve("launchstamps");
+    public static final Path PROCESSOR_CACHE = CACHE.resolve("processors");
     public static final Path LOADERS = BASE_DIR.resolve("loaders");
     public static final Path RUNTIMES = BASE_DIR.resolve("runtimes");
     public static final Path MINECRAFT_RUNTIMES = RUNTIMES.resolve("minecraft");
@@ -56,8 +59,10 @@ public final class FileSystem {
     public static final Path RESOURCES_VIRTUAL_LEGACY = RESOURCES_VIRTUAL.resolve("legacy");
 
     public static final Path LIBRARIES = BASE_DIR.resolve("libraries");
+    public static final Path NATIVES = BASE_DIR.resolve("natives");
 
     public static final Path DOWNLOADS = BASE_DIR.resolve("downloads");
+    public static final Path STORE = BASE_DIR.resolve("store");
     public static final Path INSTANCES = BASE_DIR.resolve("instances");
     public static final Path SERVERS = BASE_DIR.resolve("servers");
     public static final Path TEMP = BASE_DIR.resolve("temp");
@@ -158,6 +163,7 @@ public final class FileSystem {
         FileUtils.createDirectory(CACHE);
         FileUtils.createDirectory(INSTANCES);
         FileUtils.createDirectory(LIBRARIES);
+        FileUtils.createDirectory(NATIVES);
         FileUtils.createDirectory(LOADERS);
         FileUtils.createDirectory(LOGS);
         FileUtils.createDirectory(RUNTIMES);
@@ -181,6 +187,7 @@ public final class FileSystem {
         FileUtils.createDirectory(RESOURCES_VIRTUAL_LEGACY);
 
         FileUtils.createDirectory(DOWNLOADS);
+        FileUtils.createDirectory(STORE);
         FileUtils.createDirectory(FAILED_DOWNLOADS);
     }
 
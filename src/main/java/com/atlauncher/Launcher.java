@@ -33,6 +33,7 @@ import java.util.stream.Collectors;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
 
 import com.atlauncher.builders.HTMLBuilder;
 import com.atlauncher.constants.Constants;
@@ -58,6 +59,7 @@ import com.atlauncher.managers.PerformanceManager;
 import com.atlauncher.managers.ServerManager;
 import com.atlauncher.network.Analytics;
 import com.atlauncher.network.DownloadPool;
+import com.atlauncher.thread.TaskGraph;
 import com.atlauncher.utils.Java;
 import com.atlauncher.utils.OS;
 import com.google.gson.JsonIOException;
@@ -115,28 +117,37 @@ public class Launcher {
 
         addExecutableBitToTools();
 
-        NewsManager.loadNews(); // Load the news
-
-        MinecraftManager.loadMinecraftVersions(); // Load info about the different Minecraft versions
+        // load everything at once where it doesn't depend on something else, only
+        // waiting for what's needed to show the launcher
+        TaskGraph startup = new TaskGraph("Startup");
+        startup.add("news", () -> {
+            NewsManager.loadNews(); // Load the news
 
-        // Load info about the different java runtimes
-        App.TASKPOOL.execute(() -> {
-            MinecraftManager.loadJavaRuntimes();
+            // the news may have finished loading after the news tab was created
+            SwingUtilities.invokeLater(() -> {
+                if (this.newsPanel != null) {
+                    this.reloadNewsPanel();
+                }
+            });
         });
+        startup.add("minecraftVersions", MinecraftManager::loadMinecraftVersions);
+        startup.add("javaRuntimes", MinecraftManager::loadJavaRuntimes);
+        startup.add("packs", PackManager::loadPacks);
+        startup.add("users", PackManager::loadUsers, "packs"); // testers and allowed players are added to packs
+        startup.add("instances", InstanceManager::loadInstances, "packs"); // old system instances are checked by pack
+        startup.add("servers", ServerManager::loadServers);
+        startup.add("accounts", AccountManager::loadAccounts);
+        startup.add("checkingServers", () -> {
+            CheckingServersManager.loadCheckingServers(); // Load the saved servers we're checking with the tool
+
+            if (App.settings.enableServerChecker) {
+                CheckingServersManager.startCheckingServers();
+            }
+        });
+        startup.add("removeUnusedImages", PackManager::removeUnusedImages, "packs"); // remove unused pack images
+        startup.start();
 
-        PackManager.loadPacks(); // Load the Packs available in the Launcher
-
-        PackManager.loadUsers(); // Load the Testers and Allowed Players for the packs
-
-        InstanceManager.loadInstances(); // Load the users installed Instances
-
-        ServerManager.loadServers(); // Load the users installed servers
-
-        AccountManager.loadAccounts(); // Load the saved Accounts
-
-        CheckingServersManager.loadCheckingServers(); // Load the saved servers we're checking with the tool
-
-        PackManager.removeUnusedImages(); // remove unused pack images
+        startup.await("minecraftVersions", "packs", "users", "instances", "servers", "accounts");
 
         if (OS.isWindows() && !OS.is64Bit() && OS.isWindows64Bit()) {
             LogManager.warn("You're using 32 bit Java on a 64 bit Windows install!");
@@ -192,10 +203,6 @@ public class Launcher {
             }
         }
 
-        if (App.settings.enableServerChecker) {
-            CheckingServersManager.startCheckingServers();
-        }
-
         checkForExternalPackUpdates();
 
         if (App.settings.enableLogs && App.settings.enableAnalytics) {
@@ -236,7 +243,8 @@ public class Launcher {
             progressDialog.addThread(new Thread(() -> {
                 com.atlauncher.network.Download download = com.atlauncher.network.Download.build()
                         .setUrl(String.format("%s/%s.%s", Constants.DOWNLOAD_SERVER, Constants.LAUNCHER_NAME, toget))
-                        .withHttpClient(Network.createProgressClient(progressDialog)).downloadTo(newFile.toPath());
+                        .segmented().withHttpClient(Network.createProgressClient(progressDialog))
+                        .downloadTo(newFile.toPath());
 
                 progressDialog.setTotalBytes(download.getFilesize());
 
@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -43,11 +44,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
+import javax.swing.JComboBox;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -91,23 +93,32 @@ import com.atlauncher.exceptions.InvalidPack;
 import com.atlauncher.gui.dialogs.InstanceInstallerDialog;
 import com.atlauncher.gui.dialogs.ProgressDialog;
 import com.atlauncher.managers.AccountManager;
+import com.atlauncher.managers.BackupManager;
 import com.atlauncher.managers.CurseForgeUpdateManager;
 import com.atlauncher.managers.DialogManager;
+import com.atlauncher.managers.InstanceManager;
+import com.atlauncher.managers.LaunchStampManager;
 import com.atlauncher.managers.LogManager;
 import com.atlauncher.managers.MinecraftManager;
+import com.atlauncher.managers.ModStoreManager;
 import com.atlauncher.managers.ModpacksChUpdateManager;
+import com.atlauncher.managers.NativesManager;
 import com.atlauncher.managers.PackManager;
+import com.atlauncher.managers.PerformanceManager;
 import com.atlauncher.mclauncher.MCLauncher;
 import com.atlauncher.network.Analytics;
 import com.atlauncher.network.DownloadPool;
+import com.atlauncher.network.DownloadScheduler;
 import com.atlauncher.utils.FileUtils;
+import com.atlauncher.utils.Hashing;
 import com.atlauncher.utils.OS;
+import com.atlauncher.utils.OutputScanner;
+import com.atlauncher.utils.ParallelZip;
 import com.atlauncher.utils.Utils;
 import com.atlauncher.utils.ZipNameMapper;
 import com.google.gson.JsonIOException;
 
 import org.mini2Dx.gettext.GetText;
-import org.zeroturnaround.zip.ZipUtil;
 
 import net.arikia.dev.drpc.DiscordRPC;
 import net.arikia.dev.drpc.DiscordRichPresence;
@@ -379,190 +390,267 @@ public class Instance extends MinecraftVersion {
      * This will prepare the instance for launch. It will download the assets,
      * Minecraft jar and libraries, as well as organise the libraries, ready to be
      * played.
+     *
+     * If everything was prepared successfully, a launch stamp is saved so that
+     * the next launch can skip this if nothing has changed. Libraries, resources or
+     * runtime files that fail to download don't stop the launch, but mean no stamp
+     * is saved so they're tried again next time.
      */
-    public boolean prepareForLaunch(ProgressDialog progressDialog, Path nativesTempDir) {
+    public boolean prepareForLaunch(ProgressDialog progressDialog, Path nativesDir) {
         OkHttpClient httpClient = Network.createProgressClient(progressDialog);
+        List<Path> preparedFiles = new ArrayList<>();
+        boolean preparedEverything = true;
+
+        // each stage is timed separately, and whichever is open when returning early is ended
+        PerformanceManager.Span stage = null;
 
         try {
-            progressDialog.setLabel(GetText.tr("Downloading Minecraft"));
-            com.atlauncher.network.Download clientDownload = com.atlauncher.network.Download.build()
-                    .setUrl(this.downloads.client.url).hash(this.downloads.client.sha1).size(this.downloads.client.size)
-                    .withHttpClient(httpClient).downloadTo(this.getMinecraftJarLibraryPath());
-
-            if (clientDownload.needToDownload()) {
-                progressDialog.setTotalBytes(this.downloads.client.size);
-                clientDownload.downloadFile();
-            }
+            stage = PerformanceManager.span("prepareForLaunch.client");
+            try {
+                progressDialog.setLabel(GetText.tr("Downloading Minecraft"));
+                com.atlauncher.network.Download clientDownload = com.atlauncher.network.Download.build()
+                        .setUrl(this.downloads.client.url).hash(this.downloads.client.sha1)
+                        .size(this.downloads.client.size).withPriority(DownloadScheduler.Priority.LAUNCH)
+                        .withHttpClient(httpClient).downloadTo(this.getMinecraftJarLibraryPath());
+
+                if (clientDownload.needToDownload()) {
+                    progressDialog.setTotalBytes(this.downloads.client.size);
+                    clientDownload.downloadFile();
+                }
 
-            progressDialog.doneTask();
-        } catch (IOException e) {
-            LogManager.logStackTrace(e);
-            return false;
-        }
+                preparedFiles.add(this.getMinecraftJarLibraryPath());
 
-        // download libraries
-        progressDialog.setLabel(GetText.tr("Downloading Libraries"));
-        DownloadPool librariesPool = new DownloadPool();
-
-        // get non native libraries otherwise we double up
-        this.libraries.stream().filter(
-                library -> library.shouldInstall() && library.downloads.artifact != null && !library.hasNativeForOS())
-                .distinct().forEach(library -> {
-                    com.atlauncher.network.Download download = new com.atlauncher.network.Download()
-                            .setUrl(library.downloads.artifact.url)
-                            .downloadTo(FileSystem.LIBRARIES.resolve(library.downloads.artifact.path))
-                            .hash(library.downloads.artifact.sha1).size(library.downloads.artifact.size)
-                            .withHttpClient(httpClient);
-
-                    librariesPool.add(download);
-                });
+                progressDialog.doneTask();
+            } catch (IOException e) {
+                LogManager.logStackTrace(e);
+                return false;
+            }
+
+            stage.close();
+
+            // download libraries
+            stage = PerformanceManager.span("prepareForLaunch.libraries");
+            progressDialog.setLabel(GetText.tr("Downloading Libraries"));
+            DownloadPool librariesPool = new DownloadPool();
+
+            // get non native libraries otherwise we double up
+            this.libraries.stream()
+                    .filter(library -> library.shouldInstall() && library.downloads.artifact != null
+                            && !library.hasNativeForOS())
+                    .distinct().forEach(library -> {
+                        com.atlauncher.network.Download download = new com.atlauncher.network.Download()
+                                .setUrl(library.downloads.artifact.url)
+                                .downloadTo(FileSystem.LIBRARIES.resolve(library.downloads.artifact.path))
+                                .hash(library.downloads.artifact.sha1).size(library.downloads.artifact.size)
+                                .withPriority(DownloadScheduler.Priority.LAUNCH).withHttpClient(httpClient);
+
+                        librariesPool.add(download);
+                        preparedFiles.add(download.to);
+                    });
 
-        this.libraries.stream().filter(Library::hasNativeForOS).forEach(library -> {
-            com.atlauncher.data.minecraft.Download download = library.getNativeDownloadForOS();
+            this.libraries.stream().filter(Library::hasNativeForOS).forEach(library -> {
+                com.atlauncher.data.minecraft.Download download = library.getNativeDownloadForOS();
 
-            librariesPool.add(new com.atlauncher.network.Download().setUrl(download.url)
-                    .downloadTo(FileSystem.LIBRARIES.resolve(download.path)).hash(download.sha1).size(download.size)
-                    .withHttpClient(httpClient));
-        });
+                librariesPool.add(new com.atlauncher.network.Download().setUrl(download.url)
+                        .downloadTo(FileSystem.LIBRARIES.resolve(download.path)).hash(download.sha1).size(download.size)
+                        .withPriority(DownloadScheduler.Priority.LAUNCH).withHttpClient(httpClient));
+                preparedFiles.add(FileSystem.LIBRARIES.resolve(download.path));
+            });
 
-        DownloadPool smallLibrariesPool = librariesPool.downsize();
+            DownloadPool smallLibrariesPool = librariesPool.downsize();
 
-        progressDialog.setTotalBytes(smallLibrariesPool.totalSize());
+            progressDialog.setTotalBytes(smallLibrariesPool.totalSize());
 
-        smallLibrariesPool.downloadAll();
+            DownloadPool.Result librariesResult = smallLibrariesPool.downloadAll().join();
 
-        progressDialog.doneTask();
+            // like before, a failed library doesn't stop the launch, but it's not stamped as prepared
+            if (!librariesResult.isSuccessful()) {
+                LogManager.warn("Failed to download all libraries (" + librariesResult + ")");
+                preparedEverything = false;
+            }
 
-        // download Java runtime
-        if (javaVersion != null && Data.JAVA_RUNTIMES != null && App.settings.useJavaProvidedByMinecraft) {
-            Map<String, List<JavaRuntime>> runtimesForSystem = Data.JAVA_RUNTIMES.getForSystem();
-            String runtimeSystemString = JavaRuntimes.getSystem();
+            progressDialog.doneTask();
+            stage.close();
 
-            if (runtimesForSystem.containsKey(javaVersion.component)) {
-                progressDialog.setLabel(GetText.tr("Downloading Java Runtime {0}", javaVersion.majorVersion));
+            // download Java runtime
+            stage = PerformanceManager.span("prepareForLaunch.runtime");
+            if (javaVersion != null && Data.JAVA_RUNTIMES != null && App.settings.useJavaProvidedByMinecraft) {
+                Map<String, List<JavaRuntime>> runtimesForSystem = Data.JAVA_RUNTIMES.getForSystem();
+                String runtimeSystemString = JavaRuntimes.getSystem();
 
-                JavaRuntime runtimeToDownload = runtimesForSystem.get(javaVersion.component).get(0);
+                if (runtimesForSystem.containsKey(javaVersion.component)) {
+                    progressDialog.setLabel(GetText.tr("Downloading Java Runtime {0}", javaVersion.majorVersion));
 
-                try {
-                    JavaRuntimeManifest javaRuntimeManifest = com.atlauncher.network.Download.build().cached()
-                            .setUrl(runtimeToDownload.manifest.url).size(runtimeToDownload.manifest.size)
-                            .hash(runtimeToDownload.manifest.sha1).downloadTo(FileSystem.MINECRAFT_RUNTIMES
-                                    .resolve(javaVersion.component).resolve("manifest.json"))
-                            .asClassWithThrow(JavaRuntimeManifest.class);
-
-                    DownloadPool pool = new DownloadPool();
-
-                    // create root directory
-                    Path runtimeSystemDirectory = FileSystem.MINECRAFT_RUNTIMES.resolve(javaVersion.component)
-                            .resolve(runtimeSystemString);
-                    Path runtimeDirectory = runtimeSystemDirectory.resolve(javaVersion.component);
-                    FileUtils.createDirectory(runtimeDirectory);
-
-                    // create all the directories
-                    javaRuntimeManifest.files.forEach((key, file) -> {
-                        if (file.type == JavaRuntimeManifestFileType.DIRECTORY) {
-                            FileUtils.createDirectory(runtimeDirectory.resolve(key));
-                        }
-                    });
+                    JavaRuntime runtimeToDownload = runtimesForSystem.get(javaVersion.component).get(0);
 
-                    // collect the files we need to download
-                    javaRuntimeManifest.files.forEach((key, file) -> {
-                        if (file.type == JavaRuntimeManifestFileType.FILE) {
-                            com.atlauncher.network.Download download = new com.atlauncher.network.Download()
-                                    .setUrl(file.downloads.raw.url).downloadTo(runtimeDirectory.resolve(key))
-                                    .hash(file.downloads.raw.sha1).size(file.downloads.raw.size)
-                                    .executable(file.executable).withHttpClient(httpClient);
+                    try {
+                        JavaRuntimeManifest javaRuntimeManifest = com.atlauncher.network.Download.build().cached()
+                                .setUrl(runtimeToDownload.manifest.url).size(runtimeToDownload.manifest.size)
+                                .hash(runtimeToDownload.manifest.sha1).downloadTo(FileSystem.MINECRAFT_RUNTIMES
+                                        .resolve(javaVersion.component).resolve("manifest.json"))
+                                .withPriority(DownloadScheduler.Priority.LAUNCH)
+                                .asClassWithThrow(JavaRuntimeManifest.class);
+
+                        DownloadPool pool = new DownloadPool();
+
+                        // create root directory
+                        Path runtimeSystemDirectory = FileSystem.MINECRAFT_RUNTIMES.resolve(javaVersion.component)
+                                .resolve(runtimeSystemString);
+                        Path runtimeDirectory = runtimeSystemDirectory.resolve(javaVersion.component);
+                        FileUtils.createDirectory(runtimeDirectory);
+
+                        // create all the directories
+                        javaRuntimeManifest.files.forEach((key, file) -> {
+                            if (file.type == JavaRuntimeManifestFileType.DIRECTORY) {
+                                FileUtils.createDirectory(runtimeDirectory.resolve(key));
+                            }
+                        });
+
+                        // collect the files we need to download
+                        javaRuntimeManifest.files.forEach((key, file) -> {
+                            if (file.type == JavaRuntimeManifestFileType.FILE) {
+                                com.atlauncher.network.Download download = new com.atlauncher.network.Download()
+                                        .setUrl(file.downloads.raw.url).downloadTo(runtimeDirectory.resolve(key))
+                                        .hash(file.downloads.raw.sha1).size(file.downloads.raw.size)
+                                        .executable(file.executable).withPriority(DownloadScheduler.Priority.LAUNCH)
+                                        .withHttpClient(httpClient);
+
+                                pool.add(download);
+                                preparedFiles.add(download.to);
+                            }
+                        });
 
-                            pool.add(download);
-                        }
-                    });
+                        DownloadPool smallPool = pool.downsize();
 
-                    DownloadPool smallPool = pool.downsize();
+                        progressDialog.setTotalBytes(smallPool.totalSize());
 
-                    progressDialog.setTotalBytes(smallPool.totalSize());
+                        DownloadPool.Result runtimeResult = smallPool.downloadAll().join();
 
-                    smallPool.downloadAll();
+                        if (!runtimeResult.isSuccessful()) {
+                            LogManager.warn("Failed to download all Java runtime files (" + runtimeResult + ")");
+                            preparedEverything = false;
+                        }
 
-                    // write out the version file (theres also a .sha1 file created, but we're not
-                    // doing that)
-                    Files.write(runtimeSystemDirectory.resolve(".version"),
-                            runtimeToDownload.version.name.getBytes(StandardCharsets.UTF_8));
-                    // Files.write(runtimeSystemDirectory.resolve(javaVersion.component
-                    // + ".sha1"), runtimeToDownload.version.name.getBytes(StandardCharsets.UTF_8));
-                } catch (IOException e) {
-                    LogManager.logStackTrace("Failed to download Java runtime", e);
+                        // write out the version file (theres also a .sha1 file created, but we're not
+                        // doing that)
+                        Files.write(runtimeSystemDirectory.resolve(".version"),
+                                runtimeToDownload.version.name.getBytes(StandardCharsets.UTF_8));
+                        // Files.write(runtimeSystemDirectory.resolve(javaVersion.component
+                        // + ".sha1"), runtimeToDownload.version.name.getBytes(StandardCharsets.UTF_8));
+                        preparedFiles.add(runtimeSystemDirectory.resolve(".version"));
+                    } catch (IOException e) {
+                        LogManager.logStackTrace("Failed to download Java runtime", e);
+                        preparedEverything = false;
+                    }
                 }
             }
-        }
-        progressDialog.doneTask();
+            progressDialog.doneTask();
+            stage.close();
 
-        // organise assets
-        progressDialog.setLabel(GetText.tr("Downloading Resources"));
-        MojangAssetIndex assetIndex = this.assetIndex;
+            // organise assets
+            stage = PerformanceManager.span("prepareForLaunch.resources");
+            progressDialog.setLabel(GetText.tr("Downloading Resources"));
+            MojangAssetIndex assetIndex = this.assetIndex;
 
-        AssetIndex index = com.atlauncher.network.Download.build().setUrl(assetIndex.url).hash(assetIndex.sha1)
-                .size(assetIndex.size).downloadTo(FileSystem.RESOURCES_INDEXES.resolve(assetIndex.id + ".json"))
-                .withHttpClient(httpClient).asClass(AssetIndex.class);
+            AssetIndex index = com.atlauncher.network.Download.build().setUrl(assetIndex.url).hash(assetIndex.sha1)
+                    .size(assetIndex.size).downloadTo(FileSystem.RESOURCES_INDEXES.resolve(assetIndex.id + ".json"))
+                    .withPriority(DownloadScheduler.Priority.LAUNCH).withHttpClient(httpClient)
+                    .asClass(AssetIndex.class);
+            preparedFiles.add(FileSystem.RESOURCES_INDEXES.resolve(assetIndex.id + ".json"));
 
-        DownloadPool pool = new DownloadPool();
+            DownloadPool pool = new DownloadPool();
 
-        index.objects.forEach((key, object) -> {
-            String filename = object.hash.substring(0, 2) + "/" + object.hash;
-            String url = String.format("%s/%s", Constants.MINECRAFT_RESOURCES, filename);
+            index.objects.forEach((key, object) -> {
+                String filename = object.hash.substring(0, 2) + "/" + object.hash;
+                String url = String.format("%s/%s", Constants.MINECRAFT_RESOURCES, filename);
 
-            com.atlauncher.network.Download download = new com.atlauncher.network.Download().setUrl(url)
-                    .downloadTo(FileSystem.RESOURCES_OBJECTS.resolve(filename)).hash(object.hash).size(object.size)
-                    .withHttpClient(httpClient);
+                com.atlauncher.network.Download download = new com.atlauncher.network.Download().setUrl(url)
+                        .downloadTo(FileSystem.RESOURCES_OBJECTS.resolve(filename)).hash(object.hash).size(object.size)
+                        .withPriority(DownloadScheduler.Priority.LAUNCH).withHttpClient(httpClient);
 
-            pool.add(download);
-        });
+                pool.add(download);
+                preparedFiles.add(download.to);
+            });
 
-        DownloadPool smallPool = pool.downsize();
+            DownloadPool smallPool = pool.downsize();
 
-        progressDialog.setTotalBytes(smallPool.totalSize());
+            progressDialog.setTotalBytes(smallPool.totalSize());
 
-        smallPool.downloadAll();
+            DownloadPool.Result resourcesResult = smallPool.downloadAll().join();
 
-        // copy resources to instance
-        if (index.mapToResources || assetIndex.id.equalsIgnoreCase("legacy")) {
-            index.objects.forEach((key, object) -> {
-                String filename = object.hash.substring(0, 2) + "/" + object.hash;
+            if (!resourcesResult.isSuccessful()) {
+                LogManager.warn("Failed to download all resources (" + resourcesResult + ")");
+                preparedEverything = false;
+            }
 
-                Path downloadedFile = FileSystem.RESOURCES_OBJECTS.resolve(filename);
+            // link resources into the instance (or the legacy folder), copying where links aren't supported
+            if (index.mapToResources || assetIndex.id.equalsIgnoreCase("legacy")) {
+                index.objects.forEach((key, object) -> {
+                    String filename = object.hash.substring(0, 2) + "/" + object.hash;
 
-                if (index.mapToResources) {
-                    FileUtils.copyFile(downloadedFile, this.getRoot().resolve("resources/" + key), true);
-                } else if (assetIndex.id.equalsIgnoreCase("legacy")) {
-                    FileUtils.copyFile(downloadedFile, FileSystem.RESOURCES_VIRTUAL_LEGACY.resolve(key), true);
-                }
-            });
-        }
-
-        progressDialog.doneTask();
+                    Path downloadedFile = FileSystem.RESOURCES_OBJECTS.resolve(filename);
 
-        progressDialog.setLabel(GetText.tr("Organising Libraries"));
+                    if (index.mapToResources) {
+                        FileUtils.linkFile(downloadedFile, this.getRoot().resolve("resources/" + key));
+                        preparedFiles.add(this.getRoot().resolve("resources/" + key));
+                    } else if (assetIndex.id.equalsIgnoreCase("legacy")) {
+                        FileUtils.linkFile(downloadedFile, FileSystem.RESOURCES_VIRTUAL_LEGACY.resolve(key));
+                        preparedFiles.add(FileSystem.RESOURCES_VIRTUAL_LEGACY.resolve(key));
+                    }
+                });
+            }
 
-        // extract natives to a temp dir
-        this.libraries.stream().filter(Library::shouldInstall).forEach(library -> {
-            if (library.hasNativeForOS()) {
-                File nativeFile = FileSystem.LIBRARIES.resolve(library.getNativeDownloadForOS().path).toFile();
+            progressDialog.doneTask();
+            stage.close();
 
-                ZipUtil.unpack(nativeFile, nativesTempDir.toFile(), name -> {
-                    if (library.extract != null && library.extract.shouldExclude(name)) {
-                        return null;
-                    }
+            stage = PerformanceManager.span("prepareForLaunch.natives");
+            progressDialog.setLabel(GetText.tr("Organising Libraries"));
 
-                    return name;
-                });
+            // extract natives into the natives cache, unless they're already there
+            try {
+                NativesManager.extractIfNeeded(nativesDir,
+                        extractTo -> this.libraries.stream().filter(Library::shouldInstall).forEach(library -> {
+                            if (library.hasNativeForOS()) {
+                                File nativeFile = FileSystem.LIBRARIES.resolve(library.getNativeDownloadForOS().path)
+                                        .toFile();
+
+                                try {
+                                    ParallelZip.unpack(nativeFile.toPath(), extractTo, name -> {
+                                        if (library.extract != null && library.extract.shouldExclude(name)) {
+                                            return null;
+                                        }
+
+                                        return name;
+                                    });
+                                } catch (IOException e) {
+                                    throw new UncheckedIOException(e);
+                                }
+                            }
+                        }));
+            } catch (Exception e) {
+                LogManager.logStackTrace("Failed to extract natives", e);
+                return false;
             }
-        });
 
-        progressDialog.doneTask();
+            progressDialog.doneTask();
+            stage.close();
 
-        return true;
+            if (preparedEverything) {
+                LaunchStampManager.stamp(this, nativesDir, preparedFiles);
+            } else {
+                LaunchStampManager.remove(this);
+            }
+
+            return true;
+        } finally {
+            if (stage != null) {
+                stage.close();
+            }
+        }
     }
 
     public boolean launch() {
+        long launchStartedAt = System.nanoTime();
         final AbstractAccount account = launcher.account == null ? AccountManager.getSelectedAccount()
                 : AccountManager.getAccountByName(launcher.account);
 
@@ -607,28 +695,34 @@ public class Instance extends MinecraftVersion {
                 }
             }
 
-            Path nativesTempDir = FileSystem.TEMP.resolve("natives-" + UUID.randomUUID().toString().replace("-", ""));
+            Path nativesDir = NativesManager.getDirectory(this.getNativesKey());
 
-            try {
-                Files.createDirectory(nativesTempDir);
-            } catch (IOException e2) {
-                LogManager.logStackTrace(e2, false);
+            try (PerformanceManager.Span launchSpan = PerformanceManager.trace("launch").tag("instance",
+                    this.launcher.name)) {
+                if (LaunchStampManager.isUpToDate(this, nativesDir)) {
+                    LogManager.info("Nothing has changed since the last launch, skipping preparing for launch");
+                    launchSpan.tag("upToDate", true);
+                } else {
+                    ProgressDialog<Boolean> prepareDialog = new ProgressDialog<>(GetText.tr("Preparing For Launch"),
+                            5, GetText.tr("Preparing For Launch"));
+                    prepareDialog.addThread(new Thread(PerformanceManager.wrap(() -> {
+                        LogManager.info("Preparing for launch!");
+                        try (PerformanceManager.Span span = PerformanceManager.span("prepareForLaunch")) {
+                            prepareDialog.setReturnValue(prepareForLaunch(prepareDialog, nativesDir));
+                        }
+                        prepareDialog.close();
+                    })));
+                    prepareDialog.start();
+
+                    if (prepareDialog.getReturnValue() == null || !prepareDialog.getReturnValue()) {
+                        LogManager.error("Failed to prepare instance " + this.launcher.name
+                                + " for launch. Check the logs and try again.");
+                        return false;
+                    }
+                }
             }
 
-            ProgressDialog<Boolean> prepareDialog = new ProgressDialog<>(GetText.tr("Preparing For Launch"), 5,
-                    GetText.tr("Preparing For Launch"));
-            prepareDialog.addThread(new Thread(() -> {
-                LogManager.info("Preparing for launch!");
-                prepareDialog.setReturnValue(prepareForLaunch(prepareDialog, nativesTempDir));
-                prepareDialog.close();
-            }));
-            prepareDialog.start();
-
-            if (prepareDialog.getReturnValue() == null || !prepareDialog.getReturnValue()) {
-                LogManager.error("Failed to prepare instance " + this.launcher.name
-                        + " for launch. Check the logs and try again.");
-                return false;
-            }
+            App.TASKPOOL.submit(NativesManager::evictUnused);
 
             Analytics.sendEvent(this.launcher.pack + " - " + this.launcher.version, "Play", getAnalyticsCategory());
 
@@ -666,7 +760,7 @@ public class Instance extends MinecraftVersion {
                             return;
                         }
 
-                        process = MCLauncher.launch(mojangAccount, this, session, nativesTempDir);
+                        process = MCLauncher.launch(mojangAccount, this, session, nativesDir);
                     } else if (account instanceof MicrosoftAccount) {
                         MicrosoftAccount microsoftAccount = (MicrosoftAccount) account;
 
@@ -691,9 +785,11 @@ public class Instance extends MinecraftVersion {
                             return;
                         }
 
-                        process = MCLauncher.launch(microsoftAccount, this, nativesTempDir);
+                        process = MCLauncher.launch(microsoftAccount, this, nativesDir);
                     }
 
+                    PerformanceManager.recordLatency("launch.processStarted", System.nanoTime() - launchStartedAt);
+
                     if (process == null) {
                         LogManager.error("Failed to get process for Minecraft");
                         App.launcher.setMinecraftLaunched(false);
@@ -735,32 +831,19 @@ public class Instance extends MinecraftVersion {
                     InputStreamReader isr = new InputStreamReader(is);
                     BufferedReader br = new BufferedReader(isr);
                     String line;
-                    int detectedError = 0;
+                    AtomicInteger detectedError = new AtomicInteger(0);
+
+                    OutputScanner.Builder outputScannerBuilder = OutputScanner.builder();
+                    MinecraftError.addSignatures(outputScannerBuilder, this);
+                    if (!LogManager.showDebug) {
+                        outputScannerBuilder.redact(account.minecraftUsername, "**MINECRAFTUSERNAME**")
+                                .redact(account.username, "**MINECRAFTUSERNAME**").redact(account.uuid, "**UUID**")
+                                .redact(account.getAccessToken(), "**ACCESSTOKEN**");
+                    }
+                    OutputScanner outputScanner = outputScannerBuilder.build();
 
                     while ((line = br.readLine()) != null) {
-                        if (line.contains("java.lang.OutOfMemoryError")
-                                || line.contains("There is insufficient memory for the Java Runtime Environment")) {
-                            detectedError = MinecraftError.OUT_OF_MEMORY;
-                        }
-
-                        if (line.contains("java.util.ConcurrentModificationException")
-                                && Utils.matchVersion(this.id, "1.6", true, true)) {
-                            detectedError = MinecraftError.CONCURRENT_MODIFICATION_ERROR_1_6;
-                        }
-
-                        if (line.contains(
-                                "class jdk.internal.loader.ClassLoaders$AppClassLoader cannot be cast to class")) {
-                            detectedError = MinecraftError.USING_NEWER_JAVA_THAN_8;
-                        }
-
-                        if (!LogManager.showDebug) {
-                            line = line.replace(account.minecraftUsername, "**MINECRAFTUSERNAME**");
-                            line = line.replace(account.username, "**MINECRAFTUSERNAME**");
-                            line = line.replace(account.uuid, "**UUID**");
-                            if (account.getAccessToken() != null) {
-                                line = line.replace(account.getAccessToken(), "**ACCESSTOKEN**");
-                            }
-                        }
+                        line = outputScanner.scan(line, detectedError::set);
                         LogManager.minecraft(line);
                     }
                     App.launcher.hideKillMinecraft();
@@ -811,8 +894,8 @@ public class Instance extends MinecraftVersion {
                         }
                     }
 
-                    if (detectedError != 0) {
-                        MinecraftError.showInformationPopup(detectedError);
+                    if (detectedError.get() != 0) {
+                        MinecraftError.showInformationPopup(detectedError.get());
                     }
 
                     App.launcher.setMinecraftLaunched(false);
@@ -831,9 +914,6 @@ public class Instance extends MinecraftVersion {
                     if (App.settings.keepLauncherOpen) {
                         App.launcher.updateData();
                     }
-                    if (Files.isDirectory(nativesTempDir)) {
-                        FileUtils.deleteDirectory(nativesTempDir);
-                    }
                     if (!App.settings.keepLauncherOpen) {
                         System.exit(0);
                     }
@@ -847,6 +927,27 @@ public class Instance extends MinecraftVersion {
 
     }
 
+    /**
+     * Gets the key that the natives for this instance are cached under, which is
+     * the hash of each native library's hash and extract rules.
+     */
+    public String getNativesKey() {
+        if (this.libraries == null) {
+            return "none";
+        }
+
+        String natives = this.libraries.stream().filter(library -> library.shouldInstall() && library.hasNativeForOS())
+                .map(library -> {
+                    com.atlauncher.data.minecraft.Download download = library.getNativeDownloadForOS();
+                    String exclude = library.extract == null || library.extract.exclude == null ? ""
+                            : String.join(",", library.extract.exclude);
+
+                    return (download.sha1 == null ? download.path : download.sha1) + ":" + exclude;
+                }).collect(Collectors.joining("\n"));
+
+        return natives.isEmpty() ? "none" : Hashing.sha1(natives).toString();
+    }
+
     public void sendOpenEyePendingReports() {
         File reportsDir = this.getRoot().resolve("reports").toFile();
         if (reportsDir.exists()) {
@@ -911,9 +1012,13 @@ public class Instance extends MinecraftVersion {
                         ? this.getRoot().resolve("saves").resolve(file.fileName)
                         : this.getRoot().resolve("mods").resolve(file.fileName));
         com.atlauncher.network.Download download = com.atlauncher.network.Download.build().setUrl(file.downloadUrl)
-                .downloadTo(downloadLocation).size(file.fileLength)
+                .downloadTo(downloadLocation).size(file.fileLength).stored()
                 .withHttpClient(Network.createProgressClient(dialog));
 
+        if (file.packageFingerprint != 0L) {
+            download = download.fingerprint(file.packageFingerprint);
+        }
+
         dialog.setTotalBytes(file.fileLength);
 
         if (mod.categorySection.gameCategoryId == Constants.CURSEFORGE_WORLDS_SECTION_ID) {
@@ -960,6 +1065,7 @@ public class Instance extends MinecraftVersion {
                 null, mod.summary, false, true, true, mod, file));
 
         this.save();
+        ModStoreManager.save();
 
         // #. {0} is the name of a mod that was installed
         App.TOASTER.pop(GetText.tr("{0} Installed", mod.name));
@@ -971,7 +1077,7 @@ public class Instance extends MinecraftVersion {
         Path downloadLocation = FileSystem.DOWNLOADS.resolve(fileToDownload.filename);
         Path finalLocation = this.getRoot().resolve("mods").resolve(fileToDownload.filename);
         com.atlauncher.network.Download download = com.atlauncher.network.Download.build().setUrl(fileToDownload.url)
-                .downloadTo(downloadLocation).copyTo(finalLocation)
+                .downloadTo(downloadLocation).copyTo(finalLocation).stored()
                 .withHttpClient(Network.createProgressClient(dialog));
 
         if (fileToDownload.hashes != null && fileToDownload.hashes.containsKey("sha512")) {
@@ -1016,6 +1122,7 @@ public class Instance extends MinecraftVersion {
                 null, mod.description, false, true, true, mod, version));
 
         this.save();
+        ModStoreManager.save();
 
         // #. {0} is the name of a mod that was installed
         App.TOASTER.pop(GetText.tr("{0} Installed", mod.title));
@@ -1301,11 +1408,11 @@ public class Instance extends MinecraftVersion {
             }
         }
 
-        ZipUtil.pack(tempDir.toFile(), to.toFile());
+        boolean packed = ParallelZip.pack(tempDir, to);
 
         FileUtils.deleteDirectory(tempDir);
 
-        return true;
+        return packed;
     }
 
     public boolean exportAsCurseZip(String name, String version, String author, String saveTo, List<String> overrides,
@@ -1432,11 +1539,11 @@ public class Instance extends MinecraftVersion {
             }
         }
 
-        ZipUtil.pack(tempDir.toFile(), to.toFile());
+        boolean packed = ParallelZip.pack(tempDir, to);
 
         FileUtils.deleteDirectory(tempDir);
 
-        return true;
+        return packed;
     }
 
     public boolean rename(String newName) {
@@ -1639,8 +1746,22 @@ public class Instance extends MinecraftVersion {
             String time = timestamp.toString().replaceAll("[^0-9]", "_");
             String filename = getSafeName() + "-" + time.substring(0, time.lastIndexOf("_")) + ".zip";
 
-            ZipUtil.pack(getRoot().toFile(), FileSystem.BACKUPS.resolve(filename).toFile(),
-                    ZipNameMapper.getMapperForBackupMode(backupMode));
+            if (App.settings.incrementalBackups) {
+                try {
+                    BackupManager.createSnapshot(this, backupMode);
+                    BackupManager.prune(this, App.settings.incrementalBackupsToKeep);
+                } catch (IOException e) {
+                    LogManager.logStackTrace("Failed to backup instance " + launcher.name, e, false);
+                    dialog.dispose();
+                    App.TOASTER.popError(GetText.tr("Backup failed"));
+                    return;
+                }
+            } else if (!ParallelZip.pack(getRoot(), FileSystem.BACKUPS.resolve(filename),
+                    ZipNameMapper.getMapperForBackupMode(backupMode))) {
+                dialog.dispose();
+                App.TOASTER.popError(GetText.tr("Backup failed"));
+                return;
+            }
 
             dialog.dispose();
             App.TOASTER.pop(GetText.tr("Backup is complete"));
@@ -1655,6 +1776,58 @@ public class Instance extends MinecraftVersion {
         dialog.setVisible(true);
     }
 
+    /**
+     * Asks which incremental backup to restore the instance to, and then restores
+     * it.
+     */
+    public void restoreBackup() {
+        List<BackupManager.Snapshot> snapshots = BackupManager.getSnapshots(this);
+
+        if (snapshots.isEmpty()) {
+            DialogManager.okDialog().setTitle(GetText.tr("No Backups"))
+                    .setContent(new HTMLBuilder().center().text(GetText.tr(
+                            "There are no incremental backups of this instance.<br/><br/>Enable incremental backups in the Backups settings tab and then backup the instance."))
+                            .build())
+                    .setType(DialogManager.INFO).show();
+            return;
+        }
+
+        JComboBox<BackupManager.Snapshot> snapshotSelector = new JComboBox<>(
+                snapshots.toArray(new BackupManager.Snapshot[0]));
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JLabel(GetText.tr("Which backup do you want to restore {0} to?", launcher.name)),
+                BorderLayout.NORTH);
+        panel.add(snapshotSelector, BorderLayout.SOUTH);
+
+        int ret = DialogManager.okCancelDialog().setTitle(GetText.tr("Restore Backup")).setContent(panel)
+                .setType(DialogManager.QUESTION).show();
+
+        if (ret != DialogManager.OK_OPTION) {
+            return;
+        }
+
+        BackupManager.Snapshot snapshot = (BackupManager.Snapshot) snapshotSelector.getSelectedItem();
+
+        final ProgressDialog dialog = new ProgressDialog(GetText.tr("Restoring Backup"), 0,
+                GetText.tr("Restoring Backup. Please wait..."), null, App.launcher.getParent());
+        dialog.addThread(new Thread(() -> {
+            try {
+                BackupManager.restore(this, snapshot);
+
+                // the backup may have put back an older instance.json
+                InstanceManager.reloadInstance(this);
+                App.TOASTER.pop(GetText.tr("Backup restored"));
+            } catch (IOException e) {
+                LogManager.logStackTrace("Failed to restore backup of instance " + launcher.name, e, false);
+                App.TOASTER.popError(GetText.tr("Failed to restore backup"));
+            }
+
+            dialog.close();
+        }));
+        dialog.start();
+    }
+
     public boolean canChangeDescription() {
         return isExternalPack() || launcher.vanillaInstance || (getPack() != null && getPack().system);
     }
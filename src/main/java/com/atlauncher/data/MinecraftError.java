@@ -17,9 +17,15 @@
  */
 package com.atlauncher.data;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
 import com.atlauncher.builders.HTMLBuilder;
 import com.atlauncher.managers.DialogManager;
 import com.atlauncher.utils.OS;
+import com.atlauncher.utils.OutputScanner;
+import com.atlauncher.utils.Utils;
 
 import org.mini2Dx.gettext.GetText;
 
@@ -28,6 +34,44 @@ public class MinecraftError {
     static final int CONCURRENT_MODIFICATION_ERROR_1_6 = 2;
     static final int USING_NEWER_JAVA_THAN_8 = 3;
 
+    /**
+     * The text in Minecraft's output which identifies each of the errors above.
+     */
+    private static final List<Signature> signatures = new CopyOnWriteArrayList<>();
+
+    static {
+        addSignature("java.lang.OutOfMemoryError", OUT_OF_MEMORY);
+        addSignature("There is insufficient memory for the Java Runtime Environment", OUT_OF_MEMORY);
+        addSignature("java.util.ConcurrentModificationException", CONCURRENT_MODIFICATION_ERROR_1_6,
+                instance -> Utils.matchVersion(instance.id, "1.6", true, true));
+        addSignature("class jdk.internal.loader.ClassLoaders$AppClassLoader cannot be cast to class",
+                USING_NEWER_JAVA_THAN_8);
+    }
+
+    static void addSignature(String text, int error) {
+        addSignature(text, error, instance -> true);
+    }
+
+    /**
+     * Adds some text which, when found in the output of an instance it applies
+     * to, means Minecraft has crashed with the given error.
+     */
+    static void addSignature(String text, int error, Predicate<Instance> appliesTo) {
+        signatures.add(new Signature(text, error, appliesTo));
+    }
+
+    /**
+     * Adds the signatures of all the errors which can happen for the given
+     * instance to the given scanner.
+     */
+    static void addSignatures(OutputScanner.Builder builder, Instance instance) {
+        for (Signature signature : signatures) {
+            if (signature.appliesTo.test(instance)) {
+                builder.detect(signature.text, signature.error);
+            }
+        }
+    }
+
     static void showInformationPopup(int error) {
         switch (error) {
             case MinecraftError.OUT_OF_MEMORY:
@@ -66,4 +110,16 @@ public class MinecraftError {
             OS.openWebBrowser("https://atl.pw/java8download");
         }
     }
+
+    private static final class Signature {
+        private final String text;
+        private final int error;
+        private final Predicate<Instance> appliesTo;
+
+        private Signature(String text, int error, Predicate<Instance> appliesTo) {
+            this.text = text;
+            this.error = error;
+            this.appliesTo = appliesTo;
+        }
+    }
 }
@@ -109,6 +109,7 @@ public class Settings {
     public boolean enableAnalytics = true;
     public String analyticsClientId = UUID.randomUUID().toString();
     public boolean enableOpenEyeReporting = true;
+    public int consoleMaxLines = 10000;
 
     // Tools
     public boolean enableServerChecker = false;
@@ -117,6 +118,9 @@ public class Settings {
     // Backups
     public boolean enableAutomaticBackupAfterLaunch = false;
     public BackupMode backupMode = BackupMode.NORMAL;
+    public boolean incrementalBackups = false;
+    public int incrementalBackupsToKeep = 10;
+    public int zipCompressionLevel = 6;
 
     public void convert(Properties properties) {
         String importedDateFormat = properties.getProperty("dateformat");
@@ -321,6 +325,12 @@ public class Settings {
 
         validateConcurrentConnections();
 
+        validateConsoleMaxLines();
+
+        validateIncrementalBackupsToKeep();
+
+        validateZipCompressionLevel();
+
         validateDateFormat();
     }
 
@@ -492,6 +502,30 @@ public class Settings {
         }
     }
 
+    private void validateConsoleMaxLines() {
+        if (consoleMaxLines < 100) {
+            LogManager.warn("Tried to set the console line limit to " + consoleMaxLines
+                    + " which is not valid! Must be 100 or more. Setting back to default of 10000!");
+            consoleMaxLines = 10000;
+        }
+    }
+
+    private void validateIncrementalBackupsToKeep() {
+        if (incrementalBackupsToKeep < 1) {
+            LogManager.warn("Tried to set the number of incremental backups to keep to " + incrementalBackupsToKeep
+                    + " which is not valid! Must be 1 or more. Setting back to default of 10!");
+            incrementalBackupsToKeep = 10;
+        }
+    }
+
+    private void validateZipCompressionLevel() {
+        if (zipCompressionLevel < 0 || zipCompressionLevel > 9) {
+            LogManager.warn("Tried to set the zip compression level to " + zipCompressionLevel
+                    + " which is not valid! Must be between 0 and 9. Setting back to default of 6!");
+            zipCompressionLevel = 6;
+        }
+    }
+
     private void validateDateFormat() {
         if (!Arrays.asList(Constants.DATE_FORMATS).contains(dateFormat)) {
             LogManager.warn("Tried to set the date format to " + dateFormat + " which is not valid! Setting "
@@ -30,6 +30,7 @@ import com.atlauncher.data.curseforge.CurseForgeFile;
 import com.atlauncher.data.curseforge.CurseForgeProject;
 import com.atlauncher.managers.DialogManager;
 import com.atlauncher.managers.LogManager;
+import com.atlauncher.managers.ModStoreManager;
 import com.atlauncher.utils.Hashing;
 import com.atlauncher.utils.OS;
 import com.atlauncher.utils.Utils;
@@ -642,6 +643,27 @@ public class Mod {
         }
     }
 
+    /**
+     * Puts the downloaded file into the given directory. If it was downloaded with
+     * a hash, it's linked from the shared mod store, otherwise it's copied.
+     */
+    private void installFile(InstanceInstaller installer, File fileLocation, File directory) {
+        // the hashes are only for the client file
+        if (!installer.isServer || this.serverUrl == null) {
+            String algorithm = this.fingerprint != null ? "murmur"
+                    : (this.sha1 != null ? "sha1" : (this.md5 != null ? "md5" : null));
+            String hash = this.fingerprint != null ? this.fingerprint.toString()
+                    : (this.sha1 != null ? this.sha1 : this.md5);
+
+            if (algorithm != null && ModStoreManager.install(algorithm, hash, fileLocation.toPath(),
+                    directory.toPath().resolve(fileLocation.getName()))) {
+                return;
+            }
+        }
+
+        Utils.copyFile(fileLocation, directory);
+    }
+
     public void install(InstanceInstaller installer) {
         File fileLocation;
         ModType thisType;
@@ -656,17 +678,17 @@ public class Mod {
         case jar:
         case forge:
             if (installer.isServer && thisType == ModType.forge) {
-                Utils.copyFile(fileLocation, installer.root.toFile());
+                this.installFile(installer, fileLocation, installer.root.toFile());
                 break;
             } else if (installer.isServer && thisType == ModType.jar) {
                 Utils.unzip(fileLocation, installer.temp.resolve("jar").toFile());
                 break;
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("jarmods").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("jarmods").toFile());
             break;
         case mcpc:
             if (installer.isServer) {
-                Utils.copyFile(fileLocation, installer.root.toFile());
+                this.installFile(installer, fileLocation, installer.root.toFile());
                 break;
             }
             break;
@@ -674,13 +696,13 @@ public class Mod {
             if (!installer.root.resolve("texturepacks").toFile().exists()) {
                 installer.root.resolve("texturepacks").toFile().mkdir();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("texturepacks").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("texturepacks").toFile());
             break;
         case resourcepack:
             if (!installer.root.resolve("resourcepacks").toFile().exists()) {
                 installer.root.resolve("resourcepacks").toFile().mkdir();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("resourcepacks").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("resourcepacks").toFile());
             break;
         case texturepackextract:
             if (!installer.root.resolve("texturepacks").toFile().exists()) {
@@ -714,53 +736,53 @@ public class Mod {
                     installer.root.resolve(path).toFile().mkdirs();
                 }
 
-                Utils.copyFile(fileLocation, installer.root.resolve(path).toFile());
+                this.installFile(installer, fileLocation, installer.root.resolve(path).toFile());
             } else {
-                Utils.copyFile(fileLocation, installer.root.resolve("mods").toFile());
+                this.installFile(installer, fileLocation, installer.root.resolve("mods").toFile());
             }
             break;
         case ic2lib:
             if (!installer.root.resolve("mods/ic2").toFile().exists()) {
                 installer.root.resolve("mods/ic2").toFile().mkdir();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("mods/ic2").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("mods/ic2").toFile());
             break;
         case flan:
             if (!installer.root.resolve("Flan").toFile().exists()) {
                 installer.root.resolve("Flan").toFile().mkdir();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("Flan").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("Flan").toFile());
             break;
         case denlib:
             if (!installer.root.resolve("mods/denlib").toFile().exists()) {
                 installer.root.resolve("mods/denlib").toFile().mkdir();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("mods/denlib").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("mods/denlib").toFile());
             break;
         case depandency:
         case dependency:
             if (!installer.root.resolve("mods/" + installer.minecraftVersion.id).toFile().exists()) {
                 installer.root.resolve("mods/" + installer.minecraftVersion.id).toFile().mkdirs();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("mods/" + installer.minecraftVersion.id).toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("mods/" + installer.minecraftVersion.id).toFile());
             break;
         case plugins:
             if (!installer.root.resolve("plugins").toFile().exists()) {
                 installer.root.resolve("plugins").toFile().mkdir();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("plugins").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("plugins").toFile());
             break;
         case coremods:
             if (!installer.root.resolve("coremods").toFile().exists()) {
                 installer.root.resolve("coremods").toFile().mkdir();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("coremods").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("coremods").toFile());
             break;
         case shaderpack:
             if (!installer.root.resolve("shaderpacks").toFile().exists()) {
                 installer.root.resolve("shaderpacks").toFile().mkdir();
             }
-            Utils.copyFile(fileLocation, installer.root.resolve("shaderpacks").toFile());
+            this.installFile(installer, fileLocation, installer.root.resolve("shaderpacks").toFile());
             break;
         case extract:
             File tempDirExtract = FileSystem.TEMP.resolve(getSafeName()).toFile();
@@ -20,15 +20,19 @@ package com.atlauncher.data.minecraft.loaders.forge;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.atlauncher.FileSystem;
 import com.atlauncher.Gsons;
 import com.atlauncher.data.minecraft.Arguments;
 import com.atlauncher.data.minecraft.Library;
 import com.atlauncher.managers.LogManager;
+import com.atlauncher.thread.TaskGraph;
 import com.atlauncher.utils.FileUtils;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
@@ -80,20 +84,53 @@ public class Forge113Loader extends ForgeLoader {
         return version;
     }
 
+    /**
+     * Runs the processors from the install profile. Processors that don't touch
+     * each others files run at the same time, while a processor that isn't known
+     * to only output what it says it does is run on it's own, after everything
+     * before it and before everything after it.
+     */
     public void runProcessors() {
         ForgeInstallProfile installProfile = this.getInstallProfile();
-
-        installProfile.processors.forEach(processor -> {
-            if (!instanceInstaller.isCancelled()) {
-                try {
-                    processor.process(installProfile, this.tempDir, instanceInstaller);
-                } catch (IOException e) {
-                    LogManager.logStackTrace(e);
-                    LogManager.error("Failed to process processor with jar " + processor.getJar());
-                    instanceInstaller.cancel(true);
+        List<Processor> processors = installProfile.processors;
+        List<Set<Path>> referencedFiles = new ArrayList<>();
+        List<Set<Path>> outputFiles = new ArrayList<>();
+
+        TaskGraph processorGraph = new TaskGraph("ForgeProcessors");
+
+        for (int i = 0; i < processors.size(); i++) {
+            Processor processor = processors.get(i);
+            Set<Path> referenced = processor.getReferencedFiles(installProfile, this.tempDir, instanceInstaller);
+            Set<Path> outputs = processor.getOutputFiles(installProfile, instanceInstaller).values().stream()
+                    .map(file -> file.toPath().toAbsolutePath().normalize()).collect(Collectors.toSet());
+
+            List<String> dependsOn = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                if (outputs.isEmpty() || outputFiles.get(j).isEmpty()
+                        || !Collections.disjoint(outputFiles.get(j), referenced)
+                        || !Collections.disjoint(outputs, referencedFiles.get(j))) {
+                    dependsOn.add("processor" + j);
                 }
             }
-        });
+
+            referencedFiles.add(referenced);
+            outputFiles.add(outputs);
+
+            processorGraph.add("processor" + i, () -> {
+                if (!instanceInstaller.isCancelled()) {
+                    try {
+                        processor.process(installProfile, this.tempDir, instanceInstaller);
+                    } catch (Exception e) {
+                        // the graph would only log this and carry on, so cancel the install here
+                        LogManager.logStackTrace(e);
+                        LogManager.error("Failed to process processor with jar " + processor.getJar());
+                        instanceInstaller.cancel(true);
+                    }
+                }
+            }, dependsOn.toArray(new String[0]));
+        }
+
+        processorGraph.start().awaitAll();
     }
 
     public List<Library> getInstallLibraries() {
@@ -22,16 +22,21 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.jar.Attributes;
 import java.util.jar.JarFile;
 
 import com.atlauncher.FileSystem;
 import com.atlauncher.annot.Json;
 import com.atlauncher.managers.LogManager;
+import com.atlauncher.managers.ProcessorCacheManager;
 import com.atlauncher.utils.Hashing;
 import com.atlauncher.utils.Utils;
 import com.atlauncher.workers.InstanceInstaller;
@@ -94,6 +99,7 @@ public class Processor {
         }
 
         List<URL> classpath = new ArrayList<>();
+        List<File> classpathFiles = new ArrayList<>();
         classpath.add(jarPath.toURI().toURL());
 
         for (String classpathItem : this.getClasspath()) {
@@ -108,6 +114,7 @@ public class Processor {
             }
 
             classpath.add(classpathFile.toURI().toURL());
+            classpathFiles.add(classpathFile);
         }
 
         List<String> args = new ArrayList<>();
@@ -179,6 +186,20 @@ public class Processor {
             args.add(FileSystem.LIBRARIES.toFile().getAbsolutePath());
         }
 
+        Map<String, File> outputFiles = this.getOutputFiles(installProfile, instanceInstaller);
+        String cacheKey = outputFiles.isEmpty() ? null
+                : ProcessorCacheManager.getKey(jarPath, classpathFiles, args, outputFiles);
+
+        if (cacheKey != null && ProcessorCacheManager.restore(cacheKey, outputFiles)) {
+            if (!this.needToRun(installProfile, extractedDir, instanceInstaller)) {
+                LogManager.debug("Restored outputs of processor " + this.jar + " from the processor cache");
+                return;
+            }
+
+            LogManager.warn("Cached outputs of processor " + this.jar + " don't match their hashes, removing them");
+            ProcessorCacheManager.evict(cacheKey, outputFiles);
+        }
+
             ClassLoader cl = new URLClassLoader(classpath.toArray(new URL[0]),
                 Processor.class.getClassLoader());
         try {
@@ -191,7 +212,86 @@ public class Processor {
             LogManager.error(
                     "Failed to process processor with jar " + this.jar + " as there was an error invoking the jar");
             instanceInstaller.cancel(true);
+            return;
+        }
+
+        if (cacheKey != null && !this.needToRun(installProfile, extractedDir, instanceInstaller)) {
+            ProcessorCacheManager.store(cacheKey, outputFiles);
+        }
+    }
+
+    /**
+     * Gets the files this processor outputs, keyed by the name of the data item
+     * they're for. If any of them can't be worked out, nothing is returned, since
+     * it's not known everything the processor outputs.
+     */
+    public Map<String, File> getOutputFiles(ForgeInstallProfile installProfile, InstanceInstaller instanceInstaller) {
+        Map<String, File> outputFiles = new LinkedHashMap<>();
+
+        if (!this.hasOutputs()) {
+            return outputFiles;
+        }
+
+        File librariesDirectory = instanceInstaller.isServer ? instanceInstaller.root.resolve("libraries").toFile()
+                : FileSystem.LIBRARIES.toFile();
+
+        for (String key : this.outputs.keySet()) {
+            Data data = key.charAt(0) == '{' && key.charAt(key.length() - 1) == '}'
+                    ? installProfile.data.get(key.substring(1, key.length() - 1))
+                    : null;
+            String value = data == null ? null : data.getValue(!instanceInstaller.isServer, librariesDirectory);
+
+            if (value == null || value.isEmpty()) {
+                return new LinkedHashMap<>();
+            }
+
+            outputFiles.put(key.substring(1, key.length() - 1), new File(value));
+        }
+
+        return outputFiles;
+    }
+
+    /**
+     * Gets every file this processor's arguments refer to, which includes both
+     * it's inputs and outputs. These may not exist yet if an earlier processor
+     * creates them.
+     */
+    public Set<Path> getReferencedFiles(ForgeInstallProfile installProfile, File extractedDir,
+            InstanceInstaller instanceInstaller) {
+        Set<Path> files = new HashSet<>();
+
+        File librariesDirectory = instanceInstaller.isServer ? instanceInstaller.root.resolve("libraries").toFile()
+                : FileSystem.LIBRARIES.toFile();
+
+        for (String arg : this.getArgs()) {
+            char start = arg.charAt(0);
+            char end = arg.charAt(arg.length() - 1);
+
+            if (start == '{' && end == '}') {
+                Data data = installProfile.data.get(arg.substring(1, arg.length() - 1));
+                String value = data == null ? null : data.getValue(!instanceInstaller.isServer, librariesDirectory);
+
+                if (value == null || value.isEmpty()) {
+                    continue;
+                }
+
+                File file = new File(value);
+                if (value.charAt(0) == '/' && !value.toLowerCase()
+                        .contains(instanceInstaller.root.resolve("libraries").toFile().toString().toLowerCase())
+                        && !value.toLowerCase().contains(FileSystem.LIBRARIES.toString().toLowerCase())) {
+                    file = new File(extractedDir, value);
+                }
+
+                if (file.isAbsolute()) {
+                    files.add(file.toPath().toAbsolutePath().normalize());
+                }
+            } else if (start == '[' && end == ']') {
+                files.add(Utils.convertMavenIdentifierToFile(arg.substring(1, arg.length() - 1),
+                        FileSystem.LIBRARIES.toFile()).toPath().toAbsolutePath().normalize());
+            }
         }
+
+        return files;
     }
 
     public boolean needToRun(ForgeInstallProfile installProfile, File extractedDir,
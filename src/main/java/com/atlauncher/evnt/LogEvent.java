@@ -55,8 +55,13 @@ public final class LogEvent {
     public void post(Logger logger) {
         if ((this.meta & CONSOLE) == CONSOLE) {
             Console c = App.console.console;
-            c.setColor(this.type.color()).setBold(true).write("[" + Timestamper.now() + "] ");
-            c.setColor(UIManager.getColor("EditorPane.foreground")).setBold(false).write(this.body);
+
+            // the launcher and Minecraft logs are posted from different threads, so keep
+            // the style and text of each line together
+            synchronized (c) {
+                c.setColor(this.type.color()).setBold(true).write("[" + Timestamper.now() + "] ");
+                c.setColor(UIManager.getColor("EditorPane.foreground")).setBold(false).write(this.body);
+            }
         }
 
         if ((this.meta & LOG4J) == LOG4J) {
@@ -163,7 +163,7 @@ public class LauncherConsole extends JFrame implements RelocalizationListener {
     }
 
     public void clearConsole() {
-        console.setText(null);
+        console.clear();
     }
 
     @Override
@@ -101,6 +101,7 @@ public class InstanceCard extends CollapsiblePanel implements RelocalizationList
     private final JMenuItem normalBackupMenuItem = new JMenuItem(GetText.tr("Normal Backup"));
     private final JMenuItem normalPlusModsBackupMenuItem = new JMenuItem(GetText.tr("Normal + Mods Backup"));
     private final JMenuItem fullBackupMenuItem = new JMenuItem(GetText.tr("Full Backup"));
+    private final JMenuItem restoreBackupMenuItem = new JMenuItem(GetText.tr("Restore Backup"));
     private final DropDownButton backupButton = new DropDownButton(GetText.tr("Backup"), backupPopupMenu);
 
     private final JPopupMenu getHelpPopupMenu = new JPopupMenu();
@@ -244,6 +245,11 @@ public class InstanceCard extends CollapsiblePanel implements RelocalizationList
 
         fullBackupMenuItem.addActionListener(e -> instance.backup(BackupMode.FULL));
         backupPopupMenu.add(fullBackupMenuItem);
+
+        backupPopupMenu.addSeparator();
+
+        restoreBackupMenuItem.addActionListener(e -> instance.restoreBackup());
+        backupPopupMenu.add(restoreBackupMenuItem);
     }
 
     private void validatePlayable() {
@@ -665,6 +671,7 @@ public class InstanceCard extends CollapsiblePanel implements RelocalizationList
         this.normalBackupMenuItem.setText(GetText.tr("Normal Backup"));
         this.normalPlusModsBackupMenuItem.setText(GetText.tr("Normal + Mods Backup"));
         this.fullBackupMenuItem.setText(GetText.tr("Full Backup"));
+        this.restoreBackupMenuItem.setText(GetText.tr("Restore Backup"));
         this.backupButton.setText(GetText.tr("Backup"));
 
         this.discordLinkMenuItem.setText(GetText.tr("Discord"));
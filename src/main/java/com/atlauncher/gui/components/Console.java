@@ -18,13 +18,23 @@
 package com.atlauncher.gui.components;
 
 import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
 import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.BoxView;
 import javax.swing.text.ComponentView;
+import javax.swing.text.DefaultCaret;
+import javax.swing.text.Document;
 import javax.swing.text.Element;
 import javax.swing.text.IconView;
 import javax.swing.text.LabelView;
@@ -37,38 +47,225 @@ import javax.swing.text.ViewFactory;
 
 import com.atlauncher.App;
 
+/**
+ * The text area of the launcher console.
+ *
+ * Writes can come from any thread and are queued up, then added to the document
+ * in one go on the EDT every {@link #FLUSH_INTERVAL_MS} ms, rather than each
+ * line being added (and the view laid out and scrolled) one at a time. Only the
+ * last {@link com.atlauncher.data.Settings#consoleMaxLines} lines are kept, both
+ * in the queue and the document, so a game that logs hundreds of thousands of
+ * lines doesn't keep using more memory.
+ */
 @SuppressWarnings("serial")
 public final class Console extends JTextPane {
+    private static final int FLUSH_INTERVAL_MS = 100;
+    private static final int DEFAULT_MAX_LINES = 10000;
+
     private final SimpleAttributeSet attrs = new SimpleAttributeSet();
+    private AttributeSet currentAttrs = new SimpleAttributeSet();
+
+    private final Deque<Segment> pending = new ArrayDeque<>();
+    private int pendingLines = 0;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Timer flushTimer = new Timer(FLUSH_INTERVAL_MS, e -> this.flush());
 
     public Console() {
         this.setEditable(false);
         this.setEditorKit(new WrapEditorKit());
         this.setFont(App.THEME.getConsoleFont().deriveFont((float) UIManager.get("Console.fontSize")));
+
+        // scrolling to the bottom is done in flush, only when the view was already
+        // at the bottom, so that reading back through the log isn't interrupted
+        ((DefaultCaret) this.getCaret()).setUpdatePolicy(DefaultCaret.NEVER_UPDATE);
+
+        this.flushTimer.setRepeats(false);
     }
 
-    public Console setColor(Color c) {
+    public synchronized Console setColor(Color c) {
         StyleConstants.setForeground(this.attrs, c);
+        this.updateCurrentAttrs();
         return this;
     }
 
-    public Console setBold(boolean b) {
+    public synchronized Console setBold(boolean b) {
         StyleConstants.setBold(this.attrs, b);
+        this.updateCurrentAttrs();
         return this;
     }
 
+    /**
+     * Only makes a new copy of the style when it's actually changed, so writes in
+     * the same style share the same attributes and can be joined together.
+     */
+    private void updateCurrentAttrs() {
+        if (!this.currentAttrs.isEqual(this.attrs)) {
+            this.currentAttrs = this.attrs.copyAttributes();
+        }
+    }
+
     @Override
     public boolean getScrollableTracksViewportWidth() {
         return true;
     }
 
     public void write(String str) {
+        synchronized (this) {
+            Segment last = this.pending.peekLast();
+
+            // join together text with the same style, across lines, so there's less to
+            // insert
+            if (last != null && last.attrs == this.currentAttrs) {
+                last.append(str);
+            } else {
+                last = new Segment(this.currentAttrs);
+                last.append(str);
+                this.pending.addLast(last);
+            }
+
+            this.pendingLines += countLines(str);
+
+            int maxLines = getMaxLines();
+            while (this.pendingLines > maxLines && !this.pending.isEmpty()) {
+                Segment first = this.pending.peekFirst();
+                int excess = this.pendingLines - maxLines;
+
+                if (first.lines <= excess) {
+                    this.pending.removeFirst();
+                    this.pendingLines -= first.lines;
+                } else {
+                    first.removeLines(excess);
+                    this.pendingLines -= excess;
+                }
+            }
+        }
+
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.flushTimer.restart();
+        }
+    }
+
+    /**
+     * Removes everything from the console, including anything waiting to be
+     * added.
+     */
+    public void clear() {
+        synchronized (this) {
+            this.pending.clear();
+            this.pendingLines = 0;
+        }
+
+        if (SwingUtilities.isEventDispatchThread()) {
+            this.setText(null);
+        } else {
+            SwingUtilities.invokeLater(() -> this.setText(null));
+        }
+    }
+
+    /**
+     * Adds everything written since the last flush to the document, removing the
+     * oldest lines if there's now more than the limit. Must be run on the EDT.
+     */
+    private void flush() {
+        Segment[] segments;
+
+        synchronized (this) {
+            this.flushScheduled.set(false);
+
+            segments = this.pending.toArray(new Segment[0]);
+            this.pending.clear();
+            this.pendingLines = 0;
+        }
+
+        if (segments.length == 0) {
+            return;
+        }
+
+        boolean pinnedToBottom = this.isPinnedToBottom();
+        Document document = this.getDocument();
+
         try {
-            this.getDocument().insertString(this.getDocument().getLength(), str, this.attrs);
-            this.setCaretPosition(this.getDocument().getLength());
+            for (Segment segment : segments) {
+                document.insertString(document.getLength(), segment.text.toString(), segment.attrs);
+            }
+
+            Element root = document.getDefaultRootElement();
+            // the last paragraph is the empty line after the final newline
+            int linesToRemove = root.getElementCount() - 1 - getMaxLines();
+
+            if (linesToRemove > 0) {
+                document.remove(0, root.getElement(linesToRemove - 1).getEndOffset());
+            }
         } catch (BadLocationException ex) {
             ex.printStackTrace(System.err);
         }
+
+        if (pinnedToBottom) {
+            this.setCaretPosition(document.getLength());
+        }
+    }
+
+    /**
+     * Checks if the console is scrolled all the way to the bottom (or isn't in a
+     * scroll pane at all), in which case it should stay at the bottom as new
+     * lines come in.
+     */
+    private boolean isPinnedToBottom() {
+        JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+
+        if (scrollPane == null) {
+            return true;
+        }
+
+        JScrollBar scrollBar = scrollPane.getVerticalScrollBar();
+
+        return scrollBar.getValue() + scrollBar.getVisibleAmount() >= scrollBar.getMaximum()
+                - this.getFontMetrics(this.getFont()).getHeight();
+    }
+
+    private static int countLines(CharSequence text) {
+        int lines = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+
+        return lines;
+    }
+
+    private static int getMaxLines() {
+        return App.settings == null ? DEFAULT_MAX_LINES : App.settings.consoleMaxLines;
+    }
+
+    private static final class Segment {
+        private final StringBuilder text = new StringBuilder();
+        private final AttributeSet attrs;
+        private int lines = 0;
+
+        private Segment(AttributeSet attrs) {
+            this.attrs = attrs;
+        }
+
+        private void append(String str) {
+            this.text.append(str);
+            this.lines += countLines(str);
+        }
+
+        /**
+         * Removes the given number of whole lines from the start of this segment.
+         */
+        private void removeLines(int count) {
+            int end = 0;
+
+            for (int i = 0; i < count; i++) {
+                end = this.text.indexOf("\n", end) + 1;
+            }
+
+            this.text.delete(0, end);
+            this.lines -= count;
+        }
     }
 }
 
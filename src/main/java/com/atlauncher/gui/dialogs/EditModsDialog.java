@@ -60,10 +60,10 @@ import com.atlauncher.gui.layouts.WrapLayout;
 import com.atlauncher.managers.DialogManager;
 import com.atlauncher.managers.LogManager;
 import com.atlauncher.managers.MinecraftManager;
+import com.atlauncher.managers.ModMetadataManager;
 import com.atlauncher.managers.PerformanceManager;
 import com.atlauncher.network.Analytics;
 import com.atlauncher.utils.CurseForgeApi;
-import com.atlauncher.utils.Hashing;
 import com.atlauncher.utils.Utils;
 
 import org.mini2Dx.gettext.GetText;
@@ -328,7 +328,7 @@ public class EditModsDialog extends JDialog {
 
         if (!App.settings.dontCheckModsOnCurseForge) {
             try {
-                long murmurHash = Hashing.murmur(file.toPath());
+                long murmurHash = ModMetadataManager.getMurmur(file.toPath());
 
                 LogManager.debug("File " + file.getName() + " has murmur hash of " + murmurHash);
 
@@ -379,6 +379,7 @@ public class EditModsDialog extends JDialog {
                     mods.forEach(mod -> LogManager.info("Found extra mod with name of " + mod.file));
                     instance.launcher.mods.addAll(mods);
                     instance.save();
+                    ModMetadataManager.save();
                     progressDialog.close();
                 }));
 
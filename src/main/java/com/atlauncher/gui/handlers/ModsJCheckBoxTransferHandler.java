@@ -39,8 +39,8 @@ import com.atlauncher.gui.dialogs.FileTypeDialog;
 import com.atlauncher.gui.dialogs.ProgressDialog;
 import com.atlauncher.managers.DialogManager;
 import com.atlauncher.managers.LogManager;
+import com.atlauncher.managers.ModMetadataManager;
 import com.atlauncher.utils.CurseForgeApi;
-import com.atlauncher.utils.Hashing;
 import com.atlauncher.utils.Utils;
 
 import org.mini2Dx.gettext.GetText;
@@ -151,7 +151,7 @@ public class ModsJCheckBoxTransferHandler extends TransferHandler {
 
                     if (!App.settings.dontCheckModsOnCurseForge) {
                         try {
-                            long murmurHash = Hashing.murmur(file.toPath());
+                            long murmurHash = ModMetadataManager.getMurmur(file.toPath());
 
                             LogManager.debug("File " + file.getName() + " has murmur hash of " + murmurHash);
 
@@ -186,6 +186,7 @@ public class ModsJCheckBoxTransferHandler extends TransferHandler {
                         dialog.instance.launcher.mods.add(mod);
                     }
                 }
+                ModMetadataManager.save();
                 progressDialog.close();
             }));
             progressDialog.start();
@@ -21,6 +21,8 @@ import java.awt.GridBagConstraints;
 
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 
 import com.atlauncher.App;
 import com.atlauncher.constants.UIConstants;
@@ -34,6 +36,9 @@ import org.mini2Dx.gettext.GetText;
 public class BackupsSettingsTab extends AbstractSettingsTab {
     private final JComboBox<ComboItem<BackupMode>> backupMode;
     private final JCheckBox enableAutomaticBackupAfterLaunch;
+    private final JCheckBox incrementalBackups;
+    private final JSpinner incrementalBackupsToKeep;
+    private final JSpinner zipCompressionLevel;
 
     public BackupsSettingsTab() {
         // Backup mode
@@ -84,11 +89,74 @@ public class BackupsSettingsTab extends AbstractSettingsTab {
         enableAutomaticBackupAfterLaunch = new JCheckBox();
         enableAutomaticBackupAfterLaunch.setSelected(App.settings.enableAutomaticBackupAfterLaunch);
         add(enableAutomaticBackupAfterLaunch, gbc);
+
+        // Incremental backups
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.insets = UIConstants.LABEL_INSETS;
+        gbc.anchor = GridBagConstraints.BASELINE_TRAILING;
+        JLabelWithHover incrementalBackupsLabel = new JLabelWithHover(GetText.tr("Use Incremental Backups") + "?",
+                HELP_ICON, GetText.tr(
+                        "If backups should only store what's changed since the last backup, instead of zipping up everything each time."));
+        add(incrementalBackupsLabel, gbc);
+
+        gbc.gridx++;
+        gbc.insets = UIConstants.CHECKBOX_FIELD_INSETS;
+        gbc.anchor = GridBagConstraints.BASELINE_LEADING;
+        incrementalBackups = new JCheckBox();
+        incrementalBackups.setSelected(App.settings.incrementalBackups);
+        add(incrementalBackups, gbc);
+
+        // Incremental backups to keep
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.insets = UIConstants.LABEL_INSETS;
+        gbc.anchor = GridBagConstraints.BASELINE_TRAILING;
+        JLabelWithHover incrementalBackupsToKeepLabel = new JLabelWithHover(
+                GetText.tr("Incremental Backups To Keep") + ":", HELP_ICON,
+                GetText.tr("How many incremental backups to keep for each instance before removing the oldest."));
+        add(incrementalBackupsToKeepLabel, gbc);
+
+        gbc.gridx++;
+        gbc.insets = UIConstants.FIELD_INSETS;
+        gbc.anchor = GridBagConstraints.BASELINE_LEADING;
+        SpinnerNumberModel incrementalBackupsToKeepModel = new SpinnerNumberModel(
+                App.settings.incrementalBackupsToKeep, null, null, 1);
+        incrementalBackupsToKeepModel.setMinimum(1);
+        incrementalBackupsToKeep = new JSpinner(incrementalBackupsToKeepModel);
+        incrementalBackupsToKeep.setEnabled(App.settings.incrementalBackups);
+        add(incrementalBackupsToKeep, gbc);
+
+        incrementalBackups.addActionListener(e -> incrementalBackupsToKeep.setEnabled(incrementalBackups.isSelected()));
+
+        // Zip compression level
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.insets = UIConstants.LABEL_INSETS;
+        gbc.anchor = GridBagConstraints.BASELINE_TRAILING;
+        JLabelWithHover zipCompressionLevelLabel = new JLabelWithHover(GetText.tr("Zip Compression Level") + ":",
+                HELP_ICON, GetText.tr(
+                        "How much to compress backups and exports, from 0 (not at all) to 9 (smallest but slowest)."));
+        add(zipCompressionLevelLabel, gbc);
+
+        gbc.gridx++;
+        gbc.insets = UIConstants.FIELD_INSETS;
+        gbc.anchor = GridBagConstraints.BASELINE_LEADING;
+        SpinnerNumberModel zipCompressionLevelModel = new SpinnerNumberModel(App.settings.zipCompressionLevel, 0, 9,
+                1);
+        zipCompressionLevel = new JSpinner(zipCompressionLevelModel);
+        add(zipCompressionLevel, gbc);
     }
 
     public void save() {
         App.settings.backupMode = ((ComboItem<BackupMode>) backupMode.getSelectedItem()).getValue();
         App.settings.enableAutomaticBackupAfterLaunch = enableAutomaticBackupAfterLaunch.isSelected();
+        App.settings.incrementalBackups = incrementalBackups.isSelected();
+        App.settings.incrementalBackupsToKeep = (Integer) incrementalBackupsToKeep.getValue();
+        App.settings.zipCompressionLevel = (Integer) zipCompressionLevel.getValue();
     }
 
     @Override
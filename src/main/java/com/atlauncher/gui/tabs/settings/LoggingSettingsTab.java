@@ -21,6 +21,8 @@ import java.awt.GridBagConstraints;
 
 import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 
 import com.atlauncher.App;
 import com.atlauncher.builders.HTMLBuilder;
@@ -39,6 +41,8 @@ public class LoggingSettingsTab extends AbstractSettingsTab {
 
     private JCheckBox enableOpenEyeReporting;
 
+    private final JSpinner consoleMaxLines;
+
     public LoggingSettingsTab() {
         // Forge Logging Level
         gbc.gridx = 0;
@@ -137,6 +141,27 @@ public class LoggingSettingsTab extends AbstractSettingsTab {
             enableOpenEyeReporting.setSelected(true);
         }
         add(enableOpenEyeReporting, gbc);
+
+        // Console Line Limit
+
+        gbc.gridx = 0;
+        gbc.gridy++;
+        gbc.insets = UIConstants.LABEL_INSETS;
+        gbc.anchor = GridBagConstraints.BASELINE_TRAILING;
+        JLabelWithHover consoleMaxLinesLabel = new JLabelWithHover(GetText.tr("Console Line Limit") + ":", HELP_ICON,
+            new HTMLBuilder().center().split(100).text(GetText.tr(
+                "The most lines the console will show. Once there's more than this, the oldest lines are removed so that the launcher doesn't use more and more memory while Minecraft is running."))
+                .build());
+        add(consoleMaxLinesLabel, gbc);
+
+        gbc.gridx++;
+        gbc.insets = UIConstants.FIELD_INSETS;
+        gbc.anchor = GridBagConstraints.BASELINE_LEADING;
+        SpinnerNumberModel consoleMaxLinesModel = new SpinnerNumberModel(App.settings.consoleMaxLines, null, null,
+            1000);
+        consoleMaxLinesModel.setMinimum(100);
+        consoleMaxLines = new JSpinner(consoleMaxLinesModel);
+        add(consoleMaxLines, gbc);
     }
 
     public void save() {
@@ -144,6 +169,7 @@ public class LoggingSettingsTab extends AbstractSettingsTab {
         App.settings.enableLogs = enableLogs.isSelected();
         App.settings.enableAnalytics = enableAnalytics.isSelected();
         App.settings.enableOpenEyeReporting = enableOpenEyeReporting.isSelected();
+        App.settings.consoleMaxLines = (Integer) consoleMaxLines.getValue();
     }
 
     @Override
@@ -0,0 +1,455 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.atlauncher.FileSystem;
+import com.atlauncher.Gsons;
+import com.atlauncher.data.BackupMode;
+import com.atlauncher.data.Instance;
+import com.atlauncher.utils.FileUtils;
+import com.atlauncher.utils.Hashing;
+import com.atlauncher.utils.ZipNameMapper;
+
+import org.zeroturnaround.zip.NameMapper;
+
+/**
+ * Incremental backups of instances.
+ *
+ * Files are split into chunks which are stored (compressed) once by their
+ * hash, shared between every backup of every instance. Each backup is a
+ * snapshot, which lists the files it contains along with their size, last
+ * modified time and chunks. When backing up, any file with the same size and
+ * last modified time as in the previous snapshot reuses it's chunks without
+ * being read, and only the chunks of changed files which aren't already stored
+ * get written, so backing up a large world where only a few region files have
+ * changed is quick and takes up little space.
+ *
+ * The {@link BackupMode} decides which files are included, the same as for zip
+ * backups.
+ */
+public final class BackupManager {
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static Path snapshotsDirectory = FileSystem.INCREMENTAL_BACKUPS.resolve("snapshots");
+    private static Path chunksDirectory = FileSystem.INCREMENTAL_BACKUPS.resolve("chunks");
+
+    // used for testing
+    static void setStorageDirectory(Path directory) {
+        snapshotsDirectory = directory.resolve("snapshots");
+        chunksDirectory = directory.resolve("chunks");
+    }
+
+    private static Path getSnapshotsDirectory(Instance instance) {
+        return snapshotsDirectory.resolve(instance.getRoot().getFileName().toString());
+    }
+
+    private static Path getSnapshotFile(Path directory, long createdAt) {
+        return directory.resolve(new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss-SSS").format(new Date(createdAt)) + ".json");
+    }
+
+    private static Path getChunkFile(String hash) {
+        return chunksDirectory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Gets all the snapshots for the given instance, newest first.
+     */
+    public static List<Snapshot> getSnapshots(Instance instance) {
+        Path directory = getSnapshotsDirectory(instance);
+
+        if (!Files.isDirectory(directory)) {
+            return new LinkedList<>();
+        }
+
+        List<Snapshot> snapshots = new LinkedList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(".json"))
+                    .collect(Collectors.toList())) {
+                Snapshot snapshot = readSnapshot(file);
+
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to list backups for " + instance.launcher.name, e, false);
+        }
+
+        snapshots.sort(Comparator.comparingLong((Snapshot snapshot) -> snapshot.createdAt).reversed());
+
+        return snapshots;
+    }
+
+    private static Snapshot readSnapshot(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Snapshot snapshot = Gsons.DEFAULT.fromJson(reader, Snapshot.class);
+
+            if (snapshot == null || snapshot.version != SNAPSHOT_VERSION || snapshot.files == null) {
+                LogManager.warn("Ignoring backup " + file + " as it's not valid");
+                return null;
+            }
+
+            snapshot.file = file;
+
+            return snapshot;
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to read backup " + file, e, false);
+            return null;
+        }
+    }
+
+    /**
+     * Backs up the files in the given instance picked by the given backup mode,
+     * only storing what has changed since the last backup.
+     */
+    public static synchronized Snapshot createSnapshot(Instance instance, BackupMode backupMode) throws IOException {
+        try (PerformanceManager.Span span = PerformanceManager.span("backup.create")) {
+            return createSnapshot(instance, backupMode, span);
+        }
+    }
+
+    private static Snapshot createSnapshot(Instance instance, BackupMode backupMode, PerformanceManager.Span span)
+            throws IOException {
+        Path root = instance.getRoot();
+        NameMapper nameMapper = ZipNameMapper.getMapperForBackupMode(backupMode);
+
+        Map<String, SnapshotFile> previousFiles = new HashMap<>();
+        List<Snapshot> snapshots = getSnapshots(instance);
+        if (!snapshots.isEmpty()) {
+            for (SnapshotFile file : snapshots.get(0).files) {
+                previousFiles.put(file.path, file);
+            }
+        }
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.createdAt = System.currentTimeMillis();
+        snapshot.backupMode = backupMode;
+
+        int reused = 0;
+        long bytesStored = 0L;
+        byte[] buffer = new byte[CHUNK_SIZE];
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+            String name = getName(root, file);
+
+            if (nameMapper.map(name) == null) {
+                continue;
+            }
+
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            SnapshotFile previous = previousFiles.get(name);
+
+            if (previous != null && previous.size == attributes.size()
+                    && previous.modified == attributes.lastModifiedTime().toMillis()
+                    && previous.chunks.stream().allMatch(hash -> Files.exists(getChunkFile(hash)))) {
+                snapshot.files.add(previous);
+                reused++;
+                continue;
+            }
+
+            SnapshotFile snapshotFile = new SnapshotFile();
+            snapshotFile.path = name;
+            snapshotFile.size = attributes.size();
+            snapshotFile.modified = attributes.lastModifiedTime().toMillis();
+            bytesStored += storeChunks(file, snapshotFile.chunks, buffer);
+
+            snapshot.files.add(snapshotFile);
+        }
+
+        Path directory = getSnapshotsDirectory(instance);
+        FileUtils.createDirectory(directory);
+
+        snapshot.file = getSnapshotFile(directory, snapshot.createdAt);
+
+        // backups taken within the same millisecond would otherwise overwrite each other
+        while (Files.exists(snapshot.file)) {
+            snapshot.createdAt++;
+            snapshot.file = getSnapshotFile(directory, snapshot.createdAt);
+        }
+        Path tempFile = snapshot.file.resolveSibling(snapshot.file.getFileName().toString() + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT.toJson(snapshot, writer);
+        }
+        Files.move(tempFile, snapshot.file, StandardCopyOption.REPLACE_EXISTING);
+
+        LogManager.info("Backed up " + snapshot.files.size() + " files from " + instance.launcher.name + " ("
+                + reused + " unchanged since the last backup, " + bytesStored + " new bytes stored)");
+        span.tag("files", snapshot.files.size()).tag("unchanged", reused).tag("bytesStored", bytesStored);
+
+        return snapshot;
+    }
+
+    /**
+     * Splits the given file into chunks, storing any which aren't already and
+     * adding their hashes to the given list, using the given buffer (which must
+     * be the size of a chunk) to read them into. Returns how many bytes of new
+     * chunks were stored.
+     */
+    private static long storeChunks(Path file, List<String> chunks, byte[] buffer) throws IOException {
+        long stored = 0L;
+
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+
+            while ((read = readFully(inputStream, buffer)) > 0) {
+                byte[] chunk = read == buffer.length ? buffer : Arrays.copyOf(buffer, read);
+                String hash = Hashing.sha1(chunk).toString();
+                Path chunkFile = getChunkFile(hash);
+
+                if (!Files.exists(chunkFile)) {
+                    FileUtils.createDirectory(chunkFile.getParent());
+                    Path tempFile = chunkFile.resolveSibling(hash + ".tmp");
+
+                    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                    try (OutputStream outputStream = new DeflaterOutputStream(Files.newOutputStream(tempFile),
+                            deflater)) {
+                        outputStream.write(buffer, 0, read);
+                    } finally {
+                        deflater.end();
+                    }
+
+                    Files.move(tempFile, chunkFile, StandardCopyOption.REPLACE_EXISTING);
+                    stored += read;
+                }
+
+                chunks.add(hash);
+            }
+        }
+
+        return stored;
+    }
+
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+
+            if (read == -1) {
+                break;
+            }
+
+            total += read;
+        }
+
+        return total;
+    }
+
+    /**
+     * Restores the given instance to how it was when the given snapshot was
+     * taken. Files in the snapshot which have changed since are put back, and
+     * files which the snapshot's backup mode would have included but which didn't
+     * exist when it was taken are removed. Anything else in the instance is left
+     * alone.
+     */
+    public static synchronized void restore(Instance instance, Snapshot snapshot) throws IOException {
+        try (PerformanceManager.Span span = PerformanceManager.span("backup.restore")) {
+            restoreFiles(instance, snapshot);
+        }
+    }
+
+    private static void restoreFiles(Instance instance, Snapshot snapshot) throws IOException {
+        Path root = instance.getRoot();
+        Path absoluteRoot = root.toAbsolutePath().normalize();
+        Set<String> names = new HashSet<>();
+
+        for (SnapshotFile snapshotFile : snapshot.files) {
+            Path file = root.resolve(snapshotFile.path);
+
+            if (!file.toAbsolutePath().normalize().startsWith(absoluteRoot)) {
+                LogManager.warn("Not restoring " + snapshotFile.path + " as it's outside of the instance");
+                continue;
+            }
+
+            names.add(snapshotFile.path);
+
+            if (Files.isRegularFile(file)) {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+                if (attributes.size() == snapshotFile.size
+                        && attributes.lastModifiedTime().toMillis() == snapshotFile.modified) {
+                    continue;
+                }
+            }
+
+            FileUtils.createDirectory(file.getParent());
+            Path tempFile = file.resolveSibling(file.getFileName().toString() + ".restoring");
+
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                for (String hash : snapshotFile.chunks) {
+                    try (InputStream inputStream = new InflaterInputStream(
+                            Files.newInputStream(getChunkFile(hash)))) {
+                        byte[] buffer = new byte[8192];
+                        int read;
+
+                        while ((read = inputStream.read(buffer)) != -1) {
+                            outputStream.write(buffer, 0, read);
+                        }
+                    }
+                }
+            }
+
+            Files.setLastModifiedTime(tempFile, FileTime.fromMillis(snapshotFile.modified));
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        NameMapper nameMapper = ZipNameMapper.getMapperForBackupMode(snapshot.backupMode);
+        List<Path> extraFiles;
+        try (Stream<Path> walk = Files.walk(root)) {
+            extraFiles = walk.filter(Files::isRegularFile).filter(file -> {
+                String name = getName(root, file);
+
+                return nameMapper.map(name) != null && !names.contains(name);
+            }).collect(Collectors.toList());
+        }
+
+        for (Path file : extraFiles) {
+            FileUtils.delete(file);
+        }
+
+        LogManager.info("Restored " + instance.launcher.name + " to the backup from " + snapshot);
+    }
+
+    /**
+     * Removes all but the newest given number of snapshots for the given
+     * instance, and then any chunks no longer used by any snapshot.
+     */
+    public static synchronized void prune(Instance instance, int keep) {
+        List<Snapshot> snapshots = getSnapshots(instance);
+
+        if (snapshots.size() <= keep) {
+            return;
+        }
+
+        for (Snapshot snapshot : snapshots.subList(Math.max(0, keep), snapshots.size())) {
+            LogManager.debug("Removing old backup " + snapshot.file);
+            FileUtils.delete(snapshot.file);
+        }
+
+        removeUnusedChunks();
+    }
+
+    /**
+     * Removes any chunks which aren't used by any snapshot of any instance. If any
+     * snapshot can't be read, nothing is removed, as it may need them.
+     */
+    private static void removeUnusedChunks() {
+        if (!Files.isDirectory(chunksDirectory) || !Files.isDirectory(snapshotsDirectory)) {
+            return;
+        }
+
+        Set<String> used = new HashSet<>();
+
+        try (Stream<Path> walk = Files.walk(snapshotsDirectory)) {
+            for (Path file : walk.filter(f -> f.getFileName().toString().endsWith(".json"))
+                    .collect(Collectors.toList())) {
+                Snapshot snapshot = readSnapshot(file);
+
+                if (snapshot == null) {
+                    LogManager.warn("Not removing unused backup chunks as " + file + " couldn't be read");
+                    return;
+                }
+
+                snapshot.files.forEach(snapshotFile -> used.addAll(snapshotFile.chunks));
+            }
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to check for unused backup chunks", e, false);
+            return;
+        }
+
+        List<Path> unused;
+        try (Stream<Path> walk = Files.walk(chunksDirectory)) {
+            unused = walk.filter(Files::isRegularFile)
+                    .filter(file -> !used.contains(file.getFileName().toString())).collect(Collectors.toList());
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to check for unused backup chunks", e, false);
+            return;
+        }
+
+        LogManager.debug("Removing " + unused.size() + " unused backup chunks");
+        unused.forEach(FileUtils::delete);
+    }
+
+    private static String getName(Path root, Path file) {
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    public static final class Snapshot {
+        public int version = SNAPSHOT_VERSION;
+        public long createdAt;
+        public BackupMode backupMode;
+        public List<SnapshotFile> files = new ArrayList<>();
+
+        private transient Path file;
+
+        public int getFileCount() {
+            return this.files.size();
+        }
+
+        public long getSize() {
+            return this.files.stream().mapToLong(file -> file.size).sum();
+        }
+
+        @Override
+        public String toString() {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(this.createdAt));
+        }
+    }
+
+    private static final class SnapshotFile {
+        public String path;
+        public long size;
+        public long modified;
+        public List<String> chunks = new ArrayList<>();
+    }
+}
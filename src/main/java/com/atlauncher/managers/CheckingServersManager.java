@@ -55,6 +55,7 @@ public class CheckingServersManager {
                 fileReader = new FileReader(FileSystem.CHECKING_SERVERS_JSON.toFile());
             } catch (FileNotFoundException e) {
                 LogManager.logStackTrace(e);
+                PerformanceManager.end();
                 return;
             }
 
@@ -24,6 +24,7 @@ import com.atlauncher.Data;
 import com.atlauncher.data.Instance;
 import com.atlauncher.data.curseforge.CurseForgeProject;
 import com.atlauncher.data.curseforge.CurseForgeProjectLatestFile;
+import com.atlauncher.network.DownloadScheduler;
 import com.atlauncher.utils.CurseForgeApi;
 
 public class CurseForgeUpdateManager {
@@ -41,7 +42,8 @@ public class CurseForgeUpdateManager {
 
                     CurseForgeProject curseForgeMod = CurseForgeApi.getProjectById(
                             i.launcher.curseForgeManifest != null ? i.launcher.curseForgeManifest.projectID
-                                    : i.launcher.curseForgeProject.id);
+                                    : i.launcher.curseForgeProject.id,
+                            DownloadScheduler.Priority.PREFETCH);
 
                     if (curseForgeMod == null) {
                         return false;
@@ -17,12 +17,20 @@
  */
 package com.atlauncher.managers;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import com.atlauncher.App;
 import com.atlauncher.Data;
@@ -37,6 +45,8 @@ import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
 
 public class InstanceManager {
+    private static final AtomicInteger loaderThreadCount = new AtomicInteger(0);
+
     public static List<Instance> getInstances() {
         return Data.INSTANCES;
     }
@@ -48,79 +58,40 @@ public class InstanceManager {
     }
 
     /**
-     * Loads the user installed Instances
+     * Loads the user installed Instances. Each instance is loaded in parallel and
+     * on it's own, so one broken instance doesn't stop the rest from loading.
      */
     public static void loadInstances() {
         PerformanceManager.start();
         LogManager.debug("Loading instances");
-        Data.INSTANCES.clear();
 
-        for (String folder : Optional.of(FileSystem.INSTANCES.toFile().list(Utils.getInstanceFileFilter()))
-                .orElse(new String[0])) {
-            File instanceDir = FileSystem.INSTANCES.resolve(folder).toFile();
-
-            Instance instance = null;
-            boolean converted = false;
-
-            try {
-                try (FileReader fileReader = new FileReader(new File(instanceDir, "instance.json"))) {
-                    instance = Gsons.MINECRAFT.fromJson(fileReader, Instance.class);
-                    instance.ROOT = instanceDir.toPath();
-                    LogManager.debug("Loaded instance from " + instanceDir);
-
-                    if (instance.launcher == null) {
-                        instance = null;
-                        throw new JsonSyntaxException("Error parsing instance.json as Instance");
-                    }
-                } catch (JsonIOException | JsonSyntaxException ignored) {
-                    try (FileReader fileReader = new FileReader(new File(instanceDir, "instance.json"))) {
-                        InstanceV1 instanceV1 = Gsons.DEFAULT.fromJson(fileReader, InstanceV1.class);
-                        instanceV1.ROOT = instanceDir.toPath();
-                        instanceV1.convert();
-
-                        instance = instanceV1.convertToNewFormat(instanceDir.toPath());
-                        Utils.copyFile(new File(instanceDir, "instance.json"),
-                                new File(instanceDir, "instance-v1-backup.json"), true);
-                        converted = true;
-                        LogManager.debug("Converted V1 instance from " + instanceDir);
-                    } catch (JsonIOException | JsonSyntaxException e) {
-                        converted = false;
-                        LogManager.logStackTrace("Failed to load instance in the folder " + instanceDir, e);
-                        continue;
-                    }
-                }
+        String[] folders = Optional.ofNullable(FileSystem.INSTANCES.toFile().list(Utils.getInstanceFileFilter()))
+                .orElse(new String[0]);
 
-                if (instance == null) {
-                    LogManager.error("Failed to load instance in the folder " + instanceDir);
-                    continue;
-                } else {
-                    if (converted) {
-                        instance.save();
-                    }
-
-                    if (instance.launcher.curseForgeManifest != null
-                            && instance.launcher.curseForgeManifest.projectID != null
-                            && instance.launcher.curseForgeManifest.fileID != null) {
-                        LogManager.info(String.format("Converting instance \"%s\" CurseForge information",
-                                instance.launcher.name));
-                        instance.launcher.curseForgeProject = CurseForgeApi
-                                .getProjectById(instance.launcher.curseForgeManifest.projectID);
-                        instance.launcher.curseForgeFile = CurseForgeApi.getFileForProject(
-                                instance.launcher.curseForgeManifest.projectID,
-                                instance.launcher.curseForgeManifest.fileID);
-                        instance.launcher.curseForgeManifest = null;
-
-                        instance.save();
-                    }
-
-                    Data.INSTANCES.add(instance);
-                }
-            } catch (Exception e2) {
-                LogManager.logStackTrace("Failed to load instance in the folder " + instanceDir, e2);
-                continue;
-            }
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(folders.length, Runtime.getRuntime().availableProcessors())), runnable -> {
+                    Thread thread = new Thread(runnable, "InstanceLoader-" + loaderThreadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        List<Instance> instances;
+        try {
+            List<CompletableFuture<Instance>> futures = Arrays.stream(folders)
+                    .map(folder -> CompletableFuture.supplyAsync(
+                            PerformanceManager.wrap(() -> loadInstance(FileSystem.INSTANCES.resolve(folder).toFile())),
+                            executor))
+                    .collect(Collectors.toList());
+
+            instances = futures.stream().map(CompletableFuture::join).filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+        } finally {
+            executor.shutdown();
         }
 
+        Data.INSTANCES.clear();
+        Data.INSTANCES.addAll(instances);
+
         // convert all old system instances into just a Vanilla instance
         Data.INSTANCES.forEach(instance -> {
             if (instance.getPack() != null && instance.getPack().system) {
@@ -132,10 +103,89 @@ public class InstanceManager {
             }
         });
 
+        // converting old CurseForge information needs the CurseForge api, so do it in
+        // the background rather than hold up loading
+        List<Instance> curseForgeInstances = Data.INSTANCES.stream()
+                .filter(instance -> instance.launcher.curseForgeManifest != null
+                        && instance.launcher.curseForgeManifest.projectID != null
+                        && instance.launcher.curseForgeManifest.fileID != null)
+                .collect(Collectors.toList());
+
+        if (!curseForgeInstances.isEmpty()) {
+            App.TASKPOOL.submit(() -> curseForgeInstances.forEach(InstanceManager::convertCurseForgeManifest));
+        }
+
         LogManager.debug("Finished loading instances");
         PerformanceManager.end();
     }
 
+    /**
+     * Loads the instance in the given folder, converting it from the old format
+     * if needed. Returns null if the instance couldn't be loaded.
+     */
+    private static Instance loadInstance(File instanceDir) {
+        PerformanceManager.Span span = PerformanceManager.span("loadInstance").tag("folder", instanceDir.getName());
+
+        try {
+            File instanceJson = new File(instanceDir, "instance.json");
+            Instance instance;
+
+            try (BufferedReader reader = new BufferedReader(new FileReader(instanceJson))) {
+                instance = Gsons.MINECRAFT.fromJson(reader, Instance.class);
+
+                if (instance == null || instance.launcher == null) {
+                    throw new JsonSyntaxException("Error parsing instance.json as Instance");
+                }
+
+                instance.ROOT = instanceDir.toPath();
+                LogManager.debug("Loaded instance from " + instanceDir);
+            } catch (JsonIOException | JsonSyntaxException ignored) {
+                try (BufferedReader reader = new BufferedReader(new FileReader(instanceJson))) {
+                    InstanceV1 instanceV1 = Gsons.DEFAULT.fromJson(reader, InstanceV1.class);
+                    instanceV1.ROOT = instanceDir.toPath();
+                    instanceV1.convert();
+
+                    instance = instanceV1.convertToNewFormat(instanceDir.toPath());
+                    Utils.copyFile(instanceJson, new File(instanceDir, "instance-v1-backup.json"), true);
+                    LogManager.debug("Converted V1 instance from " + instanceDir);
+                } catch (JsonIOException | JsonSyntaxException e) {
+                    LogManager.logStackTrace("Failed to load instance in the folder " + instanceDir, e);
+                    return null;
+                }
+
+                if (instance == null) {
+                    LogManager.error("Failed to load instance in the folder " + instanceDir);
+                    return null;
+                }
+
+                instance.save();
+            }
+
+            return instance;
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to load instance in the folder " + instanceDir, e);
+            return null;
+        } finally {
+            span.close();
+        }
+    }
+
+    private static void convertCurseForgeManifest(Instance instance) {
+        try {
+            LogManager.info(String.format("Converting instance \"%s\" CurseForge information", instance.launcher.name));
+            instance.launcher.curseForgeProject = CurseForgeApi
+                    .getProjectById(instance.launcher.curseForgeManifest.projectID);
+            instance.launcher.curseForgeFile = CurseForgeApi.getFileForProject(
+                    instance.launcher.curseForgeManifest.projectID, instance.launcher.curseForgeManifest.fileID);
+            instance.launcher.curseForgeManifest = null;
+
+            instance.save();
+        } catch (Exception e) {
+            LogManager.logStackTrace(
+                    "Failed to convert instance \"" + instance.launcher.name + "\" CurseForge information", e);
+        }
+    }
+
     public static void setInstanceVisbility(Instance instance, boolean collapsed) {
         if (collapsed) {
             // Closed It
@@ -150,9 +200,30 @@ public class InstanceManager {
         App.launcher.reloadInstancesPanel();
     }
 
+    /**
+     * Loads the given instance again from it's folder, replacing it in the list of
+     * instances. Used after something has changed it's instance.json on disk, so
+     * that the old copy isn't saved back over the top of it.
+     */
+    public static void reloadInstance(Instance instance) {
+        Instance reloaded = loadInstance(instance.getRoot().toFile());
+
+        if (reloaded == null) {
+            return;
+        }
+
+        int index = Data.INSTANCES.indexOf(instance);
+        if (index != -1) {
+            Data.INSTANCES.set(index, reloaded);
+            App.launcher.reloadInstancesPanel();
+        }
+    }
+
     public static void removeInstance(Instance instance) {
         if (Data.INSTANCES.remove(instance)) {
             FileUtils.deleteDirectory(instance.getRoot());
+            ModStoreManager.removeReferences(instance.getRoot());
+            LaunchStampManager.remove(instance);
             App.launcher.reloadInstancesPanel();
         }
     }
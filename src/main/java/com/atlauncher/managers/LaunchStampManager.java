@@ -0,0 +1,211 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.atlauncher.App;
+import com.atlauncher.Data;
+import com.atlauncher.FileSystem;
+import com.atlauncher.Gsons;
+import com.atlauncher.data.Instance;
+import com.atlauncher.data.minecraft.JavaRuntime;
+import com.atlauncher.utils.FileUtils;
+import com.atlauncher.utils.Hashing;
+
+/**
+ * Keeps a stamp for each instance of what the last successful launch
+ * preparation did, being a hash of everything in the instance it depended on
+ * and the size and last modified time of every file it downloaded, linked or
+ * checked.
+ *
+ * As long as the instance hasn't changed and none of those files have, there's
+ * nothing for the preparation to do, so launching can skip straight to
+ * starting Minecraft.
+ */
+public final class LaunchStampManager {
+    private static final int STAMP_VERSION = 1;
+
+    private static Path getStampFile(Instance instance) {
+        return FileSystem.LAUNCH_STAMPS.resolve(instance.getRoot().getFileName().toString() + ".json");
+    }
+
+    /**
+     * Hashes everything about the instance and the launchers settings that
+     * preparing for launch depends on, so that any change to those (such as the
+     * instance being updated) means it needs preparing again.
+     */
+    private static String getInputsHash(Instance instance, Path nativesDir) {
+        StringBuilder inputs = new StringBuilder();
+
+        inputs.append(instance.id).append('\n');
+        inputs.append(Gsons.MINECRAFT.toJson(instance.downloads)).append('\n');
+        inputs.append(Gsons.MINECRAFT.toJson(instance.libraries)).append('\n');
+        inputs.append(Gsons.MINECRAFT.toJson(instance.assetIndex)).append('\n');
+        inputs.append(Gsons.MINECRAFT.toJson(instance.javaVersion)).append('\n');
+        inputs.append(nativesDir.getFileName()).append('\n');
+
+        if (instance.javaVersion != null && Data.JAVA_RUNTIMES != null && App.settings.useJavaProvidedByMinecraft) {
+            List<JavaRuntime> runtimes = Data.JAVA_RUNTIMES.getForSystem().get(instance.javaVersion.component);
+
+            if (runtimes != null && !runtimes.isEmpty()) {
+                inputs.append(runtimes.get(0).manifest.sha1);
+            }
+        }
+
+        return Hashing.sha1(inputs.toString()).toString();
+    }
+
+    /**
+     * Checks if the instance has been prepared for launch before and nothing has
+     * changed since, in which case it doesn't need preparing again.
+     */
+    public static boolean isUpToDate(Instance instance, Path nativesDir) {
+        if (App.deepVerify) {
+            return false;
+        }
+
+        Path stampFile = getStampFile(instance);
+
+        if (!Files.exists(stampFile) || !Files.isDirectory(nativesDir)) {
+            return false;
+        }
+
+        LaunchStamp stamp;
+        try (BufferedReader reader = Files.newBufferedReader(stampFile, StandardCharsets.UTF_8)) {
+            stamp = Gsons.DEFAULT.fromJson(reader, LaunchStamp.class);
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to read launch stamp for " + instance.launcher.name, e, false);
+            return false;
+        }
+
+        if (stamp == null || stamp.version != STAMP_VERSION || stamp.files == null
+                || !getInputsHash(instance, nativesDir).equals(stamp.inputs)) {
+            return false;
+        }
+
+        return stamp.files.entrySet().parallelStream().allMatch(entry -> {
+            FileIdentity current = readIdentity(FileSystem.BASE_DIR.resolve(entry.getKey()));
+
+            return current != null && current.isSameAs(entry.getValue());
+        });
+    }
+
+    /**
+     * Records that the instance was successfully prepared for launch, with the
+     * given files being everything that the preparation downloaded or checked.
+     */
+    public static void stamp(Instance instance, Path nativesDir, Collection<Path> files) {
+        LaunchStamp stamp = new LaunchStamp();
+        stamp.inputs = getInputsHash(instance, nativesDir);
+
+        for (Path file : files) {
+            FileIdentity identity = readIdentity(file);
+
+            if (identity == null) {
+                // something that should be there isn't, so it needs preparing again next time
+                remove(instance);
+                return;
+            }
+
+            stamp.files.put(getKey(file), identity);
+        }
+
+        Path stampFile = getStampFile(instance);
+        Path tempFile = stampFile.resolveSibling(stampFile.getFileName().toString() + ".tmp");
+
+        try {
+            FileUtils.createDirectory(FileSystem.LAUNCH_STAMPS);
+
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                Gsons.DEFAULT.toJson(stamp, writer);
+            }
+
+            Files.move(tempFile, stampFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save launch stamp for " + instance.launcher.name, e, false);
+        }
+    }
+
+    /**
+     * Removes the stamp for the given instance, so that the next launch does a
+     * full preparation.
+     */
+    public static void remove(Instance instance) {
+        Path stampFile = getStampFile(instance);
+
+        if (Files.exists(stampFile)) {
+            FileUtils.delete(stampFile);
+        }
+    }
+
+    private static String getKey(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+
+        if (absolute.startsWith(FileSystem.BASE_DIR.toAbsolutePath())) {
+            return FileSystem.BASE_DIR.toAbsolutePath().relativize(absolute).toString().replace('\\', '/');
+        }
+
+        return absolute.toString();
+    }
+
+    private static FileIdentity readIdentity(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+
+            return new FileIdentity(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static final class LaunchStamp {
+        public int version = STAMP_VERSION;
+        public String inputs;
+        public Map<String, FileIdentity> files = new HashMap<>();
+    }
+
+    private static final class FileIdentity {
+        public final long size;
+        public final long modified;
+
+        private FileIdentity(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        private boolean isSameAs(FileIdentity other) {
+            return other != null && this.size == other.size && this.modified == other.modified;
+        }
+    }
+}
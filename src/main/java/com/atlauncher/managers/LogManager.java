@@ -19,8 +19,6 @@ package com.atlauncher.managers;
 
 import java.io.CharArrayWriter;
 import java.io.PrintWriter;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 
 import com.atlauncher.Gsons;
 import com.atlauncher.evnt.LogEvent;
@@ -29,14 +27,48 @@ import com.atlauncher.exceptions.LocalException;
 import com.atlauncher.network.Analytics;
 import com.atlauncher.network.DownloadException;
 import com.atlauncher.network.ErrorReporting;
+import com.atlauncher.thread.LogChannel;
 import com.atlauncher.thread.LoggingThread;
 
 public final class LogManager {
-    private static final BlockingQueue<LogEvent> queue = new ArrayBlockingQueue<>(128);
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+
+    /**
+     * The launchers own logs and Minecraft's output are queued and posted
+     * separately, so a game spamming it's log can't hold up (or cause the
+     * dropping of) the launchers logs.
+     */
+    private static final LogChannel launcherChannel = new LogChannel("launcher", DEFAULT_QUEUE_CAPACITY);
+    private static final LogChannel minecraftChannel = new LogChannel("minecraft", DEFAULT_QUEUE_CAPACITY);
+    private static boolean started = false;
     public static boolean showDebug = false;
 
-    public static void start() {
-        new LoggingThread(queue).start();
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        started = true;
+        new LoggingThread(launcherChannel, "ATL-Logging-Thread").start();
+        new LoggingThread(minecraftChannel, "ATL-Minecraft-Logging-Thread").start();
+    }
+
+    /**
+     * Sets how many log messages can be waiting to be logged, for each of the
+     * launcher and Minecraft.
+     */
+    public static void setQueueCapacity(int capacity) {
+        launcherChannel.setCapacity(capacity);
+        minecraftChannel.setCapacity(capacity);
+    }
+
+    /**
+     * Sets what happens to new log messages when there's already as many waiting
+     * as the queue capacity.
+     */
+    public static void setOverflowPolicy(LogChannel.OverflowPolicy overflowPolicy) {
+        launcherChannel.setOverflowPolicy(overflowPolicy);
+        minecraftChannel.setOverflowPolicy(overflowPolicy);
     }
 
     /**
@@ -46,21 +78,21 @@ public final class LogManager {
     public static int debugLevel = 0;
 
     public static void info(String message) {
-        queue.offer(new LogEvent(LogType.INFO, message));
+        launcherChannel.offer(new LogEvent(LogType.INFO, message));
     }
 
     public static void debug(String message) {
         if (showDebug) {
-            queue.offer(new LogEvent(LogType.DEBUG, message));
+            launcherChannel.offer(new LogEvent(LogType.DEBUG, message));
         }
     }
 
     public static void warn(String message) {
-        queue.offer(new LogEvent(LogType.WARN, message));
+        launcherChannel.offer(new LogEvent(LogType.WARN, message));
     }
 
     public static void error(String message) {
-        queue.offer(new LogEvent(LogType.ERROR, message));
+        launcherChannel.offer(new LogEvent(LogType.ERROR, message));
     }
 
     public static void debugObject(Object object) {
@@ -75,7 +107,7 @@ public final class LogManager {
 
     public static void minecraft(String message) {
         Object[] value = prepareMessageForMinecraftLog(message);
-        queue.offer(new LogEvent((LogType) value[0], (String) value[1], LogEvent.CONSOLE));
+        minecraftChannel.offer(new LogEvent((LogType) value[0], (String) value[1], LogEvent.CONSOLE));
     }
 
     public static void logStackTrace(Throwable t) {
@@ -0,0 +1,261 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.atlauncher.FileSystem;
+import com.atlauncher.Gsons;
+import com.atlauncher.data.minecraft.FabricMod;
+import com.atlauncher.data.minecraft.MCMod;
+import com.atlauncher.utils.Hashing;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Keeps a persistent index of the metadata in mod files (their mcmod.info and
+ * fabric.mod.json) along with their murmur fingerprint for checking against
+ * CurseForge, keyed by the sha1 hash of the file.
+ *
+ * Since the hash of a file is itself remembered by the
+ * {@link VerifiedFileManager}, a mod that hasn't changed doesn't need reading
+ * at all, and since the index doesn't care where a file is, a mod that's been
+ * moved, renamed or copied in from an import is only read the once.
+ */
+public final class ModMetadataManager {
+    private static final Type entriesType = new TypeToken<Map<String, ModMetadata>>() {
+    }.getType();
+    private static final Type mcModsType = new TypeToken<List<MCMod>>() {
+    }.getType();
+
+    // entries for mods that haven't been looked at in this long are removed
+    private static final long MAX_UNUSED_MS = TimeUnit.DAYS.toMillis(90);
+
+    private static Path indexFile = FileSystem.CACHE.resolve("modmetadata.json");
+    private static Map<String, ModMetadata> entries = null;
+    private static volatile boolean dirty = false;
+
+    // used for testing
+    static synchronized void setIndexFile(Path file) {
+        indexFile = file;
+        entries = null;
+        dirty = false;
+    }
+
+    private static synchronized Map<String, ModMetadata> getEntries() {
+        if (entries == null) {
+            entries = new ConcurrentHashMap<>();
+
+            if (Files.exists(indexFile)) {
+                try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                    Map<String, ModMetadata> loaded = Gsons.DEFAULT.fromJson(reader, entriesType);
+
+                    if (loaded != null) {
+                        entries.putAll(loaded);
+                    }
+                } catch (Exception e) {
+                    LogManager.logStackTrace("Failed to read mod metadata index, starting with an empty one", e,
+                            false);
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Reads the metadata for any of the given files that aren't in the index, in
+     * parallel.
+     */
+    public static void index(Collection<Path> files) {
+        files.parallelStream().forEach(ModMetadataManager::get);
+    }
+
+    /**
+     * Gets the first mod in the given files mcmod.info, or null if it doesn't
+     * have one.
+     */
+    public static MCMod getMCMod(Path file) {
+        ModMetadata metadata = get(file);
+
+        return metadata == null ? null : metadata.mcMod;
+    }
+
+    /**
+     * Gets the given files fabric.mod.json, or null if it doesn't have one.
+     */
+    public static FabricMod getFabricMod(Path file) {
+        ModMetadata metadata = get(file);
+
+        return metadata == null ? null : metadata.fabricMod;
+    }
+
+    /**
+     * Gets the murmur fingerprint of the given file, which is only worked out the
+     * first time it's asked for.
+     */
+    public static long getMurmur(Path file) throws IOException {
+        ModMetadata metadata = get(file);
+
+        if (metadata != null && metadata.murmur != null) {
+            return metadata.murmur;
+        }
+
+        long murmur = Hashing.murmur(file);
+
+        if (metadata != null) {
+            metadata.murmur = murmur;
+            dirty = true;
+        }
+
+        return murmur;
+    }
+
+    /**
+     * Gets the metadata for the given file from the index, reading it from the
+     * file if nothing with the same hash has been seen before. Returns null if the
+     * file can't be read.
+     */
+    private static ModMetadata get(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        String key;
+        try {
+            key = VerifiedFileManager.getHash(file, "sha1");
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to hash mod " + file, e, false);
+            return null;
+        }
+
+        ModMetadata existing = getEntries().get(key);
+        long now = System.currentTimeMillis();
+
+        if (existing != null) {
+            // only worth saving again if it's been a while since it was last used
+            if (now - existing.lastUsed > TimeUnit.DAYS.toMillis(1)) {
+                existing.lastUsed = now;
+                dirty = true;
+            }
+
+            return existing;
+        }
+
+        // read outside of the map so reading one file doesn't hold up looking up others
+        ModMetadata metadata = new ModMetadata();
+        metadata.lastUsed = now;
+        readMetadata(file, metadata);
+        getEntries().put(key, metadata);
+        dirty = true;
+
+        return metadata;
+    }
+
+    /**
+     * Writes the index out to disk if anything has changed since it was last
+     * saved. Should be called once done with a batch of mods, such as after an
+     * install or scanning a mods folder.
+     */
+    public static synchronized void save() {
+        // the hashes the index is keyed by are only remembered once that's saved too
+        VerifiedFileManager.scheduleSave();
+
+        if (!dirty || entries == null) {
+            return;
+        }
+
+        dirty = false;
+
+        // remove entries for mods that haven't been seen in a while so the index doesn't
+        // grow forever
+        long cutoff = System.currentTimeMillis() - MAX_UNUSED_MS;
+        entries.values().removeIf(metadata -> metadata.lastUsed < cutoff);
+
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName().toString() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT.toJson(new HashMap<>(entries), entriesType, writer);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save mod metadata index", e, false);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save mod metadata index", e, false);
+        }
+    }
+
+    /**
+     * Reads the mcmod.info and fabric.mod.json from the given file, opening it
+     * only the once.
+     */
+    private static void readMetadata(Path file, ModMetadata metadata) {
+        PerformanceManager.increment("modmetadata.read");
+
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            ZipEntry mcModEntry = zipFile.getEntry("mcmod.info");
+            if (mcModEntry != null) {
+                try (Reader reader = new InputStreamReader(zipFile.getInputStream(mcModEntry),
+                        StandardCharsets.UTF_8)) {
+                    List<MCMod> mods = Gsons.MINECRAFT.fromJson(reader, mcModsType);
+
+                    if (mods != null && mods.size() != 0 && mods.get(0) != null) {
+                        metadata.mcMod = mods.get(0);
+                    }
+                } catch (Exception ignored) {
+                }
+            }
+
+            ZipEntry fabricModEntry = zipFile.getEntry("fabric.mod.json");
+            if (fabricModEntry != null) {
+                try (Reader reader = new InputStreamReader(zipFile.getInputStream(fabricModEntry),
+                        StandardCharsets.UTF_8)) {
+                    metadata.fabricMod = Gsons.MINECRAFT.fromJson(reader, FabricMod.class);
+                } catch (Exception ignored) {
+                }
+            }
+        } catch (Exception ignored) {
+            // not a zip, so there's nothing to read
+        }
+    }
+
+    private static final class ModMetadata {
+        public MCMod mcMod;
+        public FabricMod fabricMod;
+        public volatile Long murmur;
+        public volatile long lastUsed;
+    }
+}
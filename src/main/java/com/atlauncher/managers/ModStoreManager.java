@@ -0,0 +1,310 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.atlauncher.FileSystem;
+import com.atlauncher.Gsons;
+import com.atlauncher.utils.FileUtils;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * A store of mod files shared between all instances, keyed by their hash (or
+ * CurseForge fingerprint), so that the same file is only ever downloaded and
+ * stored once. Instances get hard links into the store rather than their own
+ * copy.
+ *
+ * Each blob keeps a list of the files linked to it, both in instances and in
+ * caches like the downloads folder, and once none of those are still links to it
+ * (such as after the instance is deleted) the blob is removed.
+ */
+public final class ModStoreManager {
+    private static final Type referencesType = new TypeToken<Map<String, Set<String>>>() {
+    }.getType();
+    private static final Path REFERENCES_FILE = FileSystem.STORE.resolve("references.json");
+
+    private static Map<String, Set<String>> references = null;
+    private static boolean dirty = false;
+
+    private static Map<String, Set<String>> getReferences() {
+        if (references == null) {
+            references = new HashMap<>();
+
+            if (Files.exists(REFERENCES_FILE)) {
+                try (BufferedReader reader = Files.newBufferedReader(REFERENCES_FILE, StandardCharsets.UTF_8)) {
+                    Map<String, Set<String>> loaded = Gsons.DEFAULT.fromJson(reader, referencesType);
+
+                    if (loaded != null) {
+                        references.putAll(loaded);
+                    }
+                } catch (Exception e) {
+                    LogManager.logStackTrace("Failed to read mod store references, starting with none", e, false);
+                }
+            }
+        }
+
+        return references;
+    }
+
+    private static String getKey(String algorithm, String hash) {
+        String lowerHash = hash.toLowerCase(Locale.ENGLISH);
+
+        return algorithm + "/" + (lowerHash.length() > 2 ? lowerHash.substring(0, 2) + "/" : "") + lowerHash;
+    }
+
+    public static Path getBlob(String algorithm, String hash) {
+        return FileSystem.STORE.resolve(getKey(algorithm, hash));
+    }
+
+    private static boolean isValidBlob(Path blob, String algorithm, String hash) {
+        try {
+            return Files.isRegularFile(blob) && VerifiedFileManager.getHash(blob, algorithm).equalsIgnoreCase(hash);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds the given file to the store if it's not there already, as long as it
+     * actually has the given hash. Returns true if the store has the file after
+     * this.
+     *
+     * The file counts as a reference to the blob while it's still a link to it, so
+     * that the blob isn't removed while the file (such as one in the downloads
+     * folder) still uses it.
+     */
+    public static synchronized boolean addToStore(Path file, String algorithm, String hash) {
+        Path blob = getBlob(algorithm, hash);
+
+        if (!Files.exists(blob)) {
+            try {
+                if (!Files.isRegularFile(file)
+                        || !VerifiedFileManager.getHash(file, algorithm).equalsIgnoreCase(hash)) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+
+            if (!FileUtils.linkFile(file, blob)) {
+                return false;
+            }
+        }
+
+        addReference(algorithm, hash, file);
+
+        return true;
+    }
+
+    /**
+     * Records the given file as using the blob with the given hash, as long as it's
+     * actually a link to it. If it had to be copied then it's not using the store,
+     * so there's no need to count it.
+     */
+    private static void addReference(String algorithm, String hash, Path file) {
+        Path blob = getBlob(algorithm, hash);
+
+        try {
+            if (Files.exists(file) && Files.isSameFile(blob, file)
+                    && getReferences().computeIfAbsent(getKey(algorithm, hash), key -> new HashSet<>())
+                            .add(getReferencePath(file))) {
+                dirty = true;
+            }
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to check link to mod store for " + file, e, false);
+        }
+    }
+
+    /**
+     * If the store has a file with the given hash, puts it at the given path and
+     * returns true, otherwise returns false. This is used for caches (such as the
+     * downloads folder) and not instances, which should use
+     * {@link #install(String, String, Path, Path)}.
+     */
+    public static synchronized boolean restore(String algorithm, String hash, Path to) {
+        Path blob = getBlob(algorithm, hash);
+
+        if (!Files.exists(blob)) {
+            return false;
+        }
+
+        if (!isValidBlob(blob, algorithm, hash)) {
+            LogManager.warn("Mod store file " + blob + " doesn't match it's hash, removing it");
+            FileUtils.delete(blob);
+            return false;
+        }
+
+        if (!FileUtils.linkFile(blob, to)) {
+            return false;
+        }
+
+        addReference(algorithm, hash, to);
+
+        return true;
+    }
+
+    /**
+     * Links the file with the given hash from the store into the given path (in an
+     * instance), adding it to the store from the source file first if needed.
+     * Returns false if the file couldn't be put into the store, in which case it
+     * should be copied instead.
+     *
+     * Every instance with this file shares the one copy on disk, so anything which
+     * edits the file in place (rather than replacing it) changes it for every
+     * instance using it, as well as the store.
+     */
+    public static synchronized boolean install(String algorithm, String hash, Path source, Path to) {
+        if (!addToStore(source, algorithm, hash)) {
+            return false;
+        }
+
+        Path blob = getBlob(algorithm, hash);
+
+        if (!FileUtils.linkFile(blob, to)) {
+            return false;
+        }
+
+        addReference(algorithm, hash, to);
+
+        return true;
+    }
+
+    private static String getReferencePath(Path path) {
+        Path absolute = path.toAbsolutePath().normalize();
+
+        if (absolute.startsWith(FileSystem.BASE_DIR.toAbsolutePath())) {
+            return FileSystem.BASE_DIR.toAbsolutePath().relativize(absolute).toString().replace('\\', '/');
+        }
+
+        return absolute.toString();
+    }
+
+    /**
+     * Removes the references from all files within the given directory (such as
+     * an instance that's been deleted) and then removes anything from the store
+     * that's no longer used.
+     */
+    public static synchronized void removeReferences(Path directory) {
+        String prefix = getReferencePath(directory) + "/";
+
+        getReferences().values().forEach(paths -> paths.removeIf(path -> path.startsWith(prefix)));
+        dirty = true;
+
+        collectGarbage();
+    }
+
+    /**
+     * Removes files from the store that nothing links to anymore. References are
+     * checked against what's on disk, so files which have since been deleted or
+     * replaced (like when a mod is updated) no longer count.
+     */
+    public static synchronized void collectGarbage() {
+        Iterator<Map.Entry<String, Set<String>>> iterator = getReferences().entrySet().iterator();
+        int removed = 0;
+
+        while (iterator.hasNext()) {
+            Map.Entry<String, Set<String>> entry = iterator.next();
+            Path blob = FileSystem.STORE.resolve(entry.getKey());
+
+            dirty |= entry.getValue().removeIf(path -> {
+                Path file = FileSystem.BASE_DIR.resolve(path);
+
+                try {
+                    return !Files.exists(file) || !Files.exists(blob) || !Files.isSameFile(blob, file);
+                } catch (IOException e) {
+                    return true;
+                }
+            });
+
+            if (entry.getValue().isEmpty()) {
+                iterator.remove();
+                dirty = true;
+
+                if (Files.exists(blob)) {
+                    FileUtils.delete(blob);
+                    removed++;
+                }
+            }
+        }
+
+        // anything in the store that was never recorded as linked anywhere (such as when
+        // the file it came from had to be copied into it) isn't used either
+        if (Files.isDirectory(FileSystem.STORE)) {
+            try (Stream<Path> files = Files.walk(FileSystem.STORE)) {
+                for (Path blob : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    String key = FileSystem.STORE.relativize(blob).toString().replace('\\', '/');
+
+                    if (key.contains("/") && !getReferences().containsKey(key)) {
+                        FileUtils.delete(blob);
+                        removed++;
+                    }
+                }
+            } catch (IOException e) {
+                LogManager.logStackTrace("Failed to clean up the mod store", e, false);
+            }
+        }
+
+        if (removed != 0) {
+            LogManager.debug("Removed " + removed + " unused files from the mod store");
+        }
+
+        save();
+    }
+
+    /**
+     * Writes the references out to disk if they've changed since they were last
+     * saved.
+     */
+    public static synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+
+        dirty = false;
+
+        Path tempFile = REFERENCES_FILE.resolveSibling(REFERENCES_FILE.getFileName().toString() + ".tmp");
+
+        try {
+            FileUtils.createDirectory(FileSystem.STORE);
+
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                Gsons.DEFAULT.toJson(getReferences(), referencesType, writer);
+            }
+
+            Files.move(tempFile, REFERENCES_FILE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save mod store references", e, false);
+        }
+    }
+}
@@ -26,6 +26,7 @@ import com.atlauncher.constants.Constants;
 import com.atlauncher.data.Instance;
 import com.atlauncher.data.modpacksch.ModpacksChPackManifest;
 import com.atlauncher.data.modpacksch.ModpacksChPackVersion;
+import com.atlauncher.network.DownloadScheduler;
 
 import okhttp3.CacheControl;
 
@@ -47,7 +48,7 @@ public class ModpacksChUpdateManager {
                             .setUrl(String.format("%s/modpack/%d", Constants.MODPACKS_CH_API_URL,
                                     i.launcher.modpacksChPackManifest.id))
                             .cached(new CacheControl.Builder().maxStale(1, TimeUnit.HOURS).build())
-                            .asClass(ModpacksChPackManifest.class);
+                            .withPriority(DownloadScheduler.Priority.PREFETCH).asClass(ModpacksChPackManifest.class);
 
                     if (packManifest == null) {
                         return false;
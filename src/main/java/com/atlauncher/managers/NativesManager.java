@@ -0,0 +1,102 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.atlauncher.Data;
+import com.atlauncher.FileSystem;
+import com.atlauncher.data.Instance;
+import com.atlauncher.utils.FileUtils;
+
+/**
+ * Keeps extracted natives around between launches. Each set of natives is
+ * extracted once into a directory named after the hash of the native libraries
+ * and their extract rules (see {@link Instance#getNativesKey()}), which is then
+ * shared by every launch of every instance with the same natives.
+ */
+public final class NativesManager {
+    private static final String EXTRACTING_SUFFIX = ".extracting";
+
+    public static Path getDirectory(String key) {
+        return FileSystem.NATIVES.resolve(key);
+    }
+
+    /**
+     * Runs the given extractor if the given natives directory doesn't exist yet.
+     * The natives are extracted to a temporary directory first and moved into
+     * place once done, so a launch that crashes or is killed part way through
+     * can't leave behind a directory that looks complete.
+     */
+    public static synchronized void extractIfNeeded(Path directory, Consumer<Path> extractor) throws IOException {
+        if (Files.isDirectory(directory)) {
+            LogManager.debug("Using cached natives from " + directory);
+            return;
+        }
+
+        Path extractingDirectory = directory.resolveSibling(directory.getFileName().toString() + EXTRACTING_SUFFIX);
+
+        if (Files.exists(extractingDirectory)) {
+            FileUtils.deleteDirectory(extractingDirectory);
+        }
+
+        FileUtils.createDirectory(extractingDirectory);
+
+        LogManager.debug("Extracting natives to " + directory);
+        extractor.accept(extractingDirectory);
+
+        Files.move(extractingDirectory, directory, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Removes any cached natives which no instance uses anymore, such as after an
+     * instance was deleted or updated to a different Minecraft version.
+     */
+    public static synchronized void evictUnused() {
+        if (!Files.isDirectory(FileSystem.NATIVES)) {
+            return;
+        }
+
+        Set<String> keysInUse = Data.INSTANCES.stream().map(Instance::getNativesKey).collect(Collectors.toSet());
+
+        List<Path> unused;
+        try (Stream<Path> directories = Files.list(FileSystem.NATIVES)) {
+            unused = directories.filter(directory -> !keysInUse.contains(directory.getFileName().toString()))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to check for unused natives", e, false);
+            return;
+        }
+
+        for (Path directory : unused) {
+            LogManager.debug("Removing unused natives from " + directory);
+
+            // if they're still loaded by a running game (on Windows) this will fail, and
+            // they'll be tried again next time
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
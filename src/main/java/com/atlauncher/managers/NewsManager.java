@@ -23,6 +23,8 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
 
 import com.atlauncher.Data;
@@ -50,18 +52,21 @@ public class NewsManager {
     public static void loadNews() {
         PerformanceManager.start();
         LogManager.debug("Loading news");
-        Data.NEWS.clear();
+        List<News> news = new LinkedList<>();
         try {
             java.lang.reflect.Type type = new TypeToken<List<News>>() {
             }.getType();
             File fileDir = FileSystem.JSON.resolve("newnews.json").toFile();
             BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(fileDir), StandardCharsets.UTF_8));
 
-            Data.NEWS.addAll(Gsons.DEFAULT.fromJson(in, type));
+            news.addAll(Gsons.DEFAULT.fromJson(in, type));
             in.close();
         } catch (JsonIOException | JsonSyntaxException | IOException e) {
             LogManager.logStackTrace(e);
         }
+
+        // news can be loaded in the background, so only swap it in once it's all read
+        Data.NEWS = Collections.unmodifiableList(news);
         LogManager.debug("Finished loading news");
         PerformanceManager.end();
     }
@@ -72,9 +77,15 @@ public class NewsManager {
      * @return The HTML for displaying on the News Panel
      */
     public static String getNewsHTML() {
+        List<News> newsItems = Data.NEWS;
+
+        if (newsItems.isEmpty()) {
+            return "<html></html>";
+        }
+
         StringBuilder news = new StringBuilder("<html>");
 
-        for (News newsItem : Data.NEWS) {
+        for (News newsItem : newsItems) {
             news.append(newsItem.getHTML()).append("<hr/>");
         }
 
@@ -17,36 +17,415 @@
  */
 package com.atlauncher.managers;
 
-import java.time.Duration;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+import com.atlauncher.Gsons;
+
+/**
+ * Collects timings, counters and latency histograms from around the launcher.
+ *
+ * Timings are recorded as spans, which nest within whatever span is open on
+ * the current thread (or the thread a task was handed off from, see
+ * {@link #wrap(Runnable)}), so everything done for a single install or launch
+ * ends up in one trace. Every span also records it's duration into the latency
+ * histogram of the same name.
+ *
+ * Everything collected can be written out as JSON with {@link #export(Path)}
+ * or served locally by the {@link com.atlauncher.network.MetricsServer}.
+ */
 public final class PerformanceManager {
+    private static final int MAX_TRACES = 100;
+    private static final int MAX_CHILDREN = 1000;
 
-    private static final Map<String, Instant> times = new HashMap<>();
+    private static final long startedAt = System.currentTimeMillis();
+    private static final AtomicLong nextTraceId = new AtomicLong(1L);
+    private static final ThreadLocal<Deque<Span>> openSpans = ThreadLocal.withInitial(ArrayDeque::new);
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private static final Deque<Span> traces = new ArrayDeque<>();
 
     public static void start() {
         start(new Throwable().getStackTrace()[1].getMethodName());
     }
 
     public static void start(String name) {
-        if (LogManager.showDebug) {
-            times.put(name, Instant.now());
-        }
+        // a span with the same name still open here was never ended (such as from
+        // returning early), so end it rather than nest everything after within it
+        end(name);
+
+        span(name);
     }
 
     public static void end() {
         end(new Throwable().getStackTrace()[1].getMethodName());
     }
 
+    /**
+     * Ends the most recent span on this thread with the given name, along with
+     * any spans started within it that haven't been ended. Spans on other threads
+     * are never touched, even with the same name, so work that finishes on a
+     * different thread to where it started should hold onto the {@link Span} from
+     * {@link #span(String)} and close that instead.
+     */
     public static void end(String name) {
-        if (LogManager.showDebug && times.containsKey(name)) {
-            long timeElapsed = Duration.between(times.get(name), Instant.now()).toMillis();
+        for (Span span : getOpenSpans()) {
+            if (span.name.equals(name) && span.owner == Thread.currentThread()) {
+                span.close();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the spans open on this thread, first dropping any which were ended on
+     * another thread.
+     */
+    private static Deque<Span> getOpenSpans() {
+        Deque<Span> spans = openSpans.get();
+
+        while (!spans.isEmpty() && spans.peek().finishedAtNanos != 0L) {
+            spans.pop();
+        }
+
+        return spans;
+    }
+
+    /**
+     * Starts a span within whatever span is currently open on this thread. It
+     * should be closed on the same thread, ideally with try-with-resources.
+     */
+    public static Span span(String name) {
+        Deque<Span> spans = getOpenSpans();
+        Span parent = spans.peek();
+
+        Span span = new Span(name, parent == null ? nextTraceId.getAndIncrement() : parent.traceId, parent);
+        spans.push(span);
+
+        return span;
+    }
+
+    /**
+     * Starts a new trace, which is a span that isn't nested in anything else
+     * even if there's one open on this thread. Used for things like an install
+     * or launch so everything they do is grouped together.
+     */
+    public static Span trace(String name) {
+        Span span = new Span(name, nextTraceId.getAndIncrement(), null);
+        getOpenSpans().push(span);
+
+        return span;
+    }
+
+    /**
+     * Wraps the given task so that any spans it starts when run on another
+     * thread are nested within the span open on this thread right now.
+     */
+    public static Runnable wrap(Runnable runnable) {
+        Supplier<Void> supplier = wrap(() -> {
+            runnable.run();
+            return null;
+        });
+
+        return supplier::get;
+    }
+
+    /**
+     * Wraps the given task so that any spans it starts when run on another
+     * thread are nested within the span open on this thread right now.
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        Span parent = getOpenSpans().peek();
+
+        if (parent == null) {
+            return supplier;
+        }
+
+        return () -> {
+            Deque<Span> spans = openSpans.get();
+            spans.push(parent);
+
+            try {
+                return supplier.get();
+            } finally {
+                spans.remove(parent);
+            }
+        };
+    }
+
+    public static void increment(String name) {
+        increment(name, 1L);
+    }
+
+    public static void increment(String name, long amount) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+    }
+
+    /**
+     * Gets the current value of the counter with the given name.
+     */
+    public static long getCount(String name) {
+        LongAdder counter = counters.get(name);
+
+        return counter == null ? 0L : counter.sum();
+    }
+
+    /**
+     * Records how long something took into the latency histogram with the given
+     * name.
+     */
+    public static void recordLatency(String name, long nanos) {
+        latencies.computeIfAbsent(name, key -> new Histogram()).record(nanos);
+    }
+
+    private static void finished(Span span) {
+        recordLatency(span.name, span.getDurationNanos());
+
+        if (span.parent == null) {
+            synchronized (traces) {
+                traces.addLast(span);
+
+                while (traces.size() > MAX_TRACES) {
+                    traces.removeFirst();
+                }
+            }
+
+            // only whole traces are logged, everything within them is in the exported metrics
+            if (LogManager.showDebug) {
+                LogManager.debug(span.name + " took " + toMillis(span.getDurationNanos()) + " ms", 5);
+            }
+        }
+    }
+
+    /**
+     * Gets everything collected so far as JSON.
+     */
+    public static String toJson() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+
+        snapshot.put("generatedAt", Instant.now().toString());
+        snapshot.put("uptimeMs", System.currentTimeMillis() - startedAt);
+        snapshot.put("counters", new TreeMap<>(counters.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum()))));
+        snapshot.put("latencies", new TreeMap<>(latencies.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().toMap()))));
+
+        synchronized (traces) {
+            snapshot.put("traces", traces.stream().map(Span::toMap).collect(Collectors.toList()));
+        }
+
+        return Gsons.DEFAULT.toJson(snapshot);
+    }
+
+    /**
+     * Writes everything collected so far out to the given file as JSON.
+     */
+    public static void export(Path file) {
+        Path tempFile = file.resolveSibling(file.getFileName().toString() + ".tmp");
+
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                writer.write(toJson());
+            }
+
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to export metrics to " + file, e, false);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    /**
+     * A timed piece of work, which may have other spans nested within it.
+     */
+    public static final class Span implements AutoCloseable {
+        private final String name;
+        private final long traceId;
+        private final Span parent;
+        private final Thread owner = Thread.currentThread();
+        private final long startedAtMillis = System.currentTimeMillis();
+        private final long startedAtNanos = System.nanoTime();
+        private final Map<String, String> tags = new ConcurrentHashMap<>();
+        private final List<Span> children = new LinkedList<>();
+        private int droppedChildren = 0;
+        private volatile long finishedAtNanos = 0L;
+
+        private Span(String name, long traceId, Span parent) {
+            this.name = name;
+            this.traceId = traceId;
+            this.parent = parent;
+
+            if (parent != null) {
+                parent.addChild(this);
+            }
+        }
+
+        private synchronized void addChild(Span child) {
+            if (this.children.size() < MAX_CHILDREN) {
+                this.children.add(child);
+            } else {
+                this.droppedChildren++;
+            }
+        }
+
+        /**
+         * Adds some extra information about this span, like the file being
+         * downloaded.
+         */
+        public Span tag(String key, Object value) {
+            this.tags.put(key, String.valueOf(value));
+            return this;
+        }
+
+        public long getTraceId() {
+            return this.traceId;
+        }
+
+        public long getDurationNanos() {
+            return (this.finishedAtNanos == 0L ? System.nanoTime() : this.finishedAtNanos) - this.startedAtNanos;
+        }
+
+        /**
+         * Ends this span, as well as any spans opened after it on this thread that
+         * were never ended (such as from returning early).
+         */
+        @Override
+        public void close() {
+            if (this.finishedAtNanos != 0L) {
+                return;
+            }
+
+            this.finishedAtNanos = System.nanoTime();
+
+            if (this.owner == Thread.currentThread()) {
+                Deque<Span> spans = openSpans.get();
+
+                if (spans.contains(this)) {
+                    Iterator<Span> iterator = spans.iterator();
+
+                    while (iterator.hasNext()) {
+                        Span span = iterator.next();
+                        iterator.remove();
+
+                        if (span == this) {
+                            break;
+                        }
+
+                        if (span.owner == this.owner && span.finishedAtNanos == 0L) {
+                            span.finishedAtNanos = this.finishedAtNanos;
+                            finished(span);
+                        }
+                    }
+                }
+            }
+
+            finished(this);
+        }
+
+        private synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+
+            map.put("name", this.name);
+            map.put("traceId", this.traceId);
+            map.put("thread", this.owner.getName());
+            map.put("startedAt", Instant.ofEpochMilli(this.startedAtMillis).toString());
+            map.put("durationMs", toMillis(this.getDurationNanos()));
+
+            if (this.finishedAtNanos == 0L) {
+                map.put("running", true);
+            }
+
+            if (!this.tags.isEmpty()) {
+                map.put("tags", new TreeMap<>(this.tags));
+            }
+
+            if (!this.children.isEmpty()) {
+                map.put("children", this.children.stream().map(Span::toMap).collect(Collectors.toList()));
+            }
+
+            if (this.droppedChildren != 0) {
+                map.put("droppedChildren", this.droppedChildren);
+            }
+
+            return map;
+        }
+    }
+
+    /**
+     * A latency histogram with power of two buckets in microseconds, which is
+     * plenty to tell a 2 ms hash from a 2 second download.
+     */
+    private static final class Histogram {
+        private static final int BUCKETS = 40;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong(0L);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private void record(long nanos) {
+            long micros = Math.max(0L, nanos / 1000L);
+
+            this.count.increment();
+            this.total.add(nanos);
+            this.max.accumulateAndGet(nanos, Math::max);
+            this.buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+        }
+
+        /**
+         * Estimates the given percentile, as the upper bound of the bucket it falls
+         * in.
+         */
+        private double getPercentileMillis(long count, double percentile) {
+            long target = (long) Math.ceil(count * percentile);
+            long seen = 0L;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.buckets.get(i);
+
+                if (seen >= target) {
+                    return Math.min(toMillis((1L << i) * 1000L), toMillis(this.max.get()));
+                }
+            }
+
+            return toMillis(this.max.get());
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            long count = this.count.sum();
 
-            times.remove(name);
+            map.put("count", count);
+            map.put("totalMs", toMillis(this.total.sum()));
+            map.put("meanMs", count == 0 ? 0.0 : toMillis(this.total.sum() / count));
+            map.put("maxMs", toMillis(this.max.get()));
+            map.put("p50Ms", this.getPercentileMillis(count, 0.5));
+            map.put("p90Ms", this.getPercentileMillis(count, 0.9));
+            map.put("p99Ms", this.getPercentileMillis(count, 0.99));
 
-            LogManager.debug(name + " took " + timeElapsed + " ms", 5);
+            return map;
         }
     }
 }
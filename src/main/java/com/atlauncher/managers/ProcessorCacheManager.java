@@ -0,0 +1,174 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.atlauncher.FileSystem;
+import com.atlauncher.utils.FileUtils;
+import com.atlauncher.utils.Hashing;
+
+/**
+ * Keeps the outputs of Forge's install processors (such as splitting, remapping
+ * and patching the Minecraft jar) so that installing the same version of Forge
+ * again, for any instance or server, can skip running them.
+ *
+ * Outputs are stored under a key made from the hashes of the processor's jar,
+ * it's classpath and any files passed to it, along with the rest of it's
+ * arguments, so they're only reused when the processor would be given exactly
+ * the same thing to work on. They're linked back into place where possible.
+ */
+public final class ProcessorCacheManager {
+    private static final String STORING_SUFFIX = ".storing";
+
+    private static Path cacheDirectory = FileSystem.PROCESSOR_CACHE;
+
+    // used for testing
+    static void setCacheDirectory(Path directory) {
+        cacheDirectory = directory;
+    }
+
+    /**
+     * Works out the key for a processor run with the given jar, classpath and
+     * arguments. Arguments which are the path to one of the given outputs are
+     * replaced with the name of the output, so the key is the same wherever the
+     * outputs are going.
+     */
+    public static String getKey(File jar, List<File> classpath, List<String> args, Map<String, File> outputs)
+            throws IOException {
+        StringBuilder key = new StringBuilder();
+
+        key.append("jar ").append(VerifiedFileManager.getHash(jar.toPath(), "sha1")).append('\n');
+
+        for (File file : classpath) {
+            key.append("classpath ").append(VerifiedFileManager.getHash(file.toPath(), "sha1")).append('\n');
+        }
+
+        Map<Path, String> outputNames = new HashMap<>();
+        outputs.forEach((name, file) -> outputNames.put(normalise(file), name));
+
+        for (String arg : args) {
+            File file = new File(arg);
+
+            if (file.isAbsolute() && outputNames.containsKey(normalise(file))) {
+                key.append("output ").append(outputNames.get(normalise(file)));
+            } else if (file.isAbsolute() && file.isFile()) {
+                // these are often in the installers temp directory, so aren't worth remembering
+                key.append("file ").append(Hashing.sha1(file.toPath()));
+            } else {
+                key.append("arg ").append(arg);
+            }
+
+            key.append('\n');
+        }
+
+        return Hashing.sha1(key.toString()).toString();
+    }
+
+    /**
+     * Puts the cached outputs for the given key into place, returning false if
+     * there's nothing cached for it.
+     */
+    public static boolean restore(String key, Map<String, File> outputs) {
+        Path directory = cacheDirectory.resolve(key);
+
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+
+        for (Map.Entry<String, File> output : outputs.entrySet()) {
+            Path cached = directory.resolve(output.getKey());
+
+            if (!Files.isRegularFile(cached) || !FileUtils.linkFile(cached, output.getValue().toPath())) {
+                LogManager.debug("Cached processor outputs in " + directory + " are missing " + output.getKey());
+                return false;
+            }
+        }
+
+        PerformanceManager.increment("processors.cached");
+
+        return true;
+    }
+
+    /**
+     * Removes what's cached for the given key, along with the outputs that were
+     * restored from it. Since restored outputs may be linked to the cached files,
+     * they're deleted rather than left for the processor to write over, which
+     * would change the cached files too.
+     */
+    public static synchronized void evict(String key, Map<String, File> outputs) {
+        Path directory = cacheDirectory.resolve(key);
+
+        for (File output : outputs.values()) {
+            if (Files.exists(output.toPath())) {
+                FileUtils.delete(output.toPath());
+            }
+        }
+
+        if (Files.exists(directory)) {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    /**
+     * Stores the given outputs of a processor under the given key. They're copied
+     * in, so the processor's outputs stay separate files, but are linked back out
+     * by {@link #restore(String, Map)}, so restored outputs must never be written
+     * to in place.
+     */
+    public static synchronized void store(String key, Map<String, File> outputs) {
+        Path directory = cacheDirectory.resolve(key);
+
+        if (Files.isDirectory(directory)) {
+            return;
+        }
+
+        Path storingDirectory = directory.resolveSibling(key + STORING_SUFFIX);
+
+        try {
+            if (Files.exists(storingDirectory)) {
+                FileUtils.deleteDirectory(storingDirectory);
+            }
+
+            FileUtils.createDirectory(storingDirectory);
+
+            for (Map.Entry<String, File> output : outputs.entrySet()) {
+                Files.copy(output.getValue().toPath(), storingDirectory.resolve(output.getKey()));
+            }
+
+            Files.move(storingDirectory, directory, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to cache processor outputs", e, false);
+
+            if (Files.exists(storingDirectory)) {
+                FileUtils.deleteDirectory(storingDirectory);
+            }
+        }
+    }
+
+    private static Path normalise(File file) {
+        return file.toPath().toAbsolutePath().normalize();
+    }
+}
@@ -100,6 +100,7 @@ public class ServerManager {
     public static void removeServer(Server server) {
         if (Data.SERVERS.remove(server)) {
             FileUtils.deleteDirectory(server.getRoot());
+            ModStoreManager.removeReferences(server.getRoot());
             App.launcher.reloadServersPanel();
         }
     }
@@ -0,0 +1,266 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.atlauncher.App;
+import com.atlauncher.FileSystem;
+import com.atlauncher.Gsons;
+import com.atlauncher.utils.Hashing;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Keeps a persistent index of files that have already had their hash verified,
+ * keyed by the files path and identified by its size, last modified time and
+ * file key. As long as none of those have changed, the stored hash is trusted
+ * instead of reading the whole file in again.
+ */
+public final class VerifiedFileManager {
+    private static final Type entriesType = new TypeToken<Map<String, VerifiedFile>>() {
+    }.getType();
+    private static final Path INDEX_FILE = FileSystem.CACHE.resolve("verifiedfiles.json");
+    private static final long SAVE_DELAY_MS = 5000L;
+
+    private static final ScheduledExecutorService saveExecutor = Executors
+            .newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "VerifiedFileSaver");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private static final AtomicBoolean saveScheduled = new AtomicBoolean(false);
+
+    private static Map<String, VerifiedFile> entries = null;
+    private static volatile boolean dirty = false;
+
+    private static synchronized Map<String, VerifiedFile> getEntries() {
+        if (entries == null) {
+            entries = new ConcurrentHashMap<>();
+
+            if (Files.exists(INDEX_FILE)) {
+                try (BufferedReader reader = Files.newBufferedReader(INDEX_FILE, StandardCharsets.UTF_8)) {
+                    Map<String, VerifiedFile> loaded = Gsons.DEFAULT.fromJson(reader, entriesType);
+
+                    if (loaded != null) {
+                        entries.putAll(loaded);
+                    }
+                } catch (Exception e) {
+                    LogManager.logStackTrace("Failed to read verified file index, starting with an empty one", e,
+                            false);
+                }
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * Returns the previously verified hash for the given file and algorithm, or
+     * null if the file has never been verified, has changed since, or a deep
+     * verify has been requested.
+     */
+    public static String getVerifiedHash(Path file, String algorithm) {
+        if (App.deepVerify) {
+            return null;
+        }
+
+        VerifiedFile entry = getEntries().get(getKey(file));
+
+        if (entry == null) {
+            return null;
+        }
+
+        VerifiedFile current = readAttributes(file);
+
+        if (current == null || !entry.isSameFileAs(current)) {
+            return null;
+        }
+
+        return entry.hashes.get(algorithm);
+    }
+
+    /**
+     * Gets the hash of the given file with the given algorithm ("md5", "sha1",
+     * "sha512" or "murmur"), reading the file only if it's changed since it was
+     * last hashed.
+     */
+    public static String getHash(Path file, String algorithm) throws IOException {
+        String hash = getVerifiedHash(file, algorithm);
+
+        if (hash != null) {
+            return hash;
+        }
+
+        long start = System.nanoTime();
+
+        if (algorithm.equals("murmur")) {
+            hash = String.valueOf(Hashing.murmur(file));
+        } else {
+            Hashing.HashCode hashCode = algorithm.equals("md5") ? Hashing.md5(file)
+                    : (algorithm.equals("sha512") ? Hashing.sha512(file) : Hashing.sha1(file));
+            hash = (hashCode == null ? Hashing.HashCode.EMPTY : hashCode).toString();
+        }
+
+        PerformanceManager.recordLatency("hash." + algorithm, System.nanoTime() - start);
+        PerformanceManager.increment("hash.bytes", Files.size(file));
+
+        setVerifiedHash(file, algorithm, hash);
+
+        return hash;
+    }
+
+    /**
+     * Records the hash of the given file, as it is on disk right now, for the
+     * given algorithm.
+     */
+    public static void setVerifiedHash(Path file, String algorithm, String hash) {
+        if (hash == null || hash.isEmpty()) {
+            return;
+        }
+
+        VerifiedFile current = readAttributes(file);
+
+        if (current == null) {
+            return;
+        }
+
+        getEntries().compute(getKey(file), (key, existing) -> {
+            if (existing != null && existing.isSameFileAs(current)) {
+                current.hashes.putAll(existing.hashes);
+            }
+
+            current.hashes.put(algorithm, hash);
+            return current;
+        });
+
+        dirty = true;
+    }
+
+    /**
+     * Removes any stored hashes for the given file.
+     */
+    public static void invalidate(Path file) {
+        if (getEntries().remove(getKey(file)) != null) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Saves the index in the background in a few seconds time, if anything has
+     * changed, so that lots of changes close together (such as a download pool
+     * finishing after another) only write it out once.
+     */
+    public static void scheduleSave() {
+        if (dirty && saveScheduled.compareAndSet(false, true)) {
+            saveExecutor.schedule(() -> {
+                saveScheduled.set(false);
+                save();
+            }, SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the index out to disk if anything has changed since it was last
+     * saved. This checks every file in the index still exists, so shouldn't be
+     * called from anywhere that's waiting on it, use {@link #scheduleSave()}
+     * instead.
+     */
+    public static synchronized void save() {
+        if (!dirty || entries == null) {
+            return;
+        }
+
+        dirty = false;
+
+        // remove entries for files that no longer exist so the index doesn't grow
+        // forever
+        entries.keySet().removeIf(key -> !Files.exists(FileSystem.BASE_DIR.resolve(key)));
+
+        Path tempFile = INDEX_FILE.resolveSibling(INDEX_FILE.getFileName().toString() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            Gsons.DEFAULT.toJson(new HashMap<>(entries), entriesType, writer);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save verified file index", e, false);
+            return;
+        }
+
+        try {
+            Files.move(tempFile, INDEX_FILE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to save verified file index", e, false);
+        }
+    }
+
+    private static String getKey(Path file) {
+        Path absolute = file.toAbsolutePath().normalize();
+
+        if (absolute.startsWith(FileSystem.BASE_DIR.toAbsolutePath())) {
+            return FileSystem.BASE_DIR.toAbsolutePath().relativize(absolute).toString().replace('\\', '/');
+        }
+
+        return absolute.toString();
+    }
+
+    private static VerifiedFile readAttributes(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+
+            return new VerifiedFile(attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    attributes.fileKey() == null ? null : attributes.fileKey().toString());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static final class VerifiedFile {
+        public final long size;
+        public final long modified;
+        public final String fileKey;
+        public final Map<String, String> hashes = new HashMap<>();
+
+        private VerifiedFile(long size, long modified, String fileKey) {
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+        }
+
+        private boolean isSameFileAs(VerifiedFile other) {
+            return this.size == other.size && this.modified == other.modified
+                    && (this.fileKey == null ? other.fileKey == null : this.fileKey.equals(other.fileKey));
+        }
+    }
+}
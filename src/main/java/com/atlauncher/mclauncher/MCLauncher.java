@@ -49,11 +49,11 @@ import com.mojang.util.UUIDTypeAdapter;
 
 public class MCLauncher {
 
-    public static Process launch(MicrosoftAccount account, Instance instance, Path nativesTempDir) throws Exception {
-        return launch(account, instance, null, nativesTempDir.toFile());
+    public static Process launch(MicrosoftAccount account, Instance instance, Path nativesDir) throws Exception {
+        return launch(account, instance, null, nativesDir.toFile());
     }
 
-    public static Process launch(MojangAccount account, Instance instance, LoginResponse response, Path nativesTempDir)
+    public static Process launch(MojangAccount account, Instance instance, LoginResponse response, Path nativesDir)
             throws Exception {
         String props = "[]";
 
@@ -62,7 +62,7 @@ public class MCLauncher {
             props = gson.toJson(response.getAuth().getUserProperties());
         }
 
-        return launch(account, instance, props, nativesTempDir.toFile());
+        return launch(account, instance, props, nativesDir.toFile());
     }
 
     private static Process launch(AbstractAccount account, Instance instance, String props, File nativesDir)
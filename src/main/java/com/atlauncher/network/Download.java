@@ -18,28 +18,47 @@
 package com.atlauncher.network;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 import com.atlauncher.FileSystem;
 import com.atlauncher.Gsons;
 import com.atlauncher.Network;
 import com.atlauncher.managers.LogManager;
+import com.atlauncher.managers.ModStoreManager;
+import com.atlauncher.managers.PerformanceManager;
+import com.atlauncher.managers.VerifiedFileManager;
 import com.atlauncher.utils.FileUtils;
 import com.atlauncher.utils.Hashing;
-import com.atlauncher.utils.Utils;
+import com.atlauncher.utils.ParallelZip;
 import com.atlauncher.workers.InstanceInstaller;
 import com.google.gson.Gson;
 
-import org.zeroturnaround.zip.ZipUtil;
-
 import okhttp3.CacheControl;
 import okhttp3.Headers;
 import okhttp3.OkHttpClient;
@@ -49,6 +68,43 @@ import okhttp3.Response;
 
 public final class Download {
     public static final int MAX_ATTEMPTS = 3;
+    private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Files smaller than this are always downloaded over a single connection, even
+     * when segmented downloading is turned on.
+     */
+    public static final long SEGMENTED_DOWNLOAD_THRESHOLD = 16L * 1024 * 1024;
+    public static final int DEFAULT_SEGMENTS = 4;
+
+    private static final AtomicInteger segmentThreadCount = new AtomicInteger(0);
+
+    /**
+     * Runs the byte ranges of segmented downloads. This is separate from the
+     * scheduler's threads since a download running on one of those waits for it's
+     * segments to finish.
+     */
+    private static final ExecutorService segmentExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "DownloadSegment-" + segmentThreadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The downloads currently being written to disk, keyed by the file they're
+     * writing to, so that two installs (or an install and a launch) needing the
+     * same file don't both download it over the top of each other. This is only
+     * keyed by path since two downloads must never write the same file at once,
+     * even for different versions of it, and a waiter checks the file against
+     * it's own expected hash once the other download is done.
+     */
+    private static final Map<Path, InFlightDownload> inFlightDownloads = new ConcurrentHashMap<>();
+
+    /**
+     * How many times a download will wait on (or take over from) other downloads
+     * of the same file that failed before giving up.
+     */
+    private static final int MAX_SHARED_DOWNLOAD_ATTEMPTS = 3;
 
     // pre request
     String url;
@@ -62,6 +118,9 @@ public final class Download {
     private Long fingerprint = null;
     public long size = -1L;
     private boolean executable = false;
+    private int segments = 1;
+    private boolean stored = false;
+    DownloadScheduler.Priority priority = DownloadScheduler.Priority.INSTALL;
     public InstanceInstaller instanceInstaller;
     private OkHttpClient httpClient = Network.CLIENT;
     private RequestBody post = null;
@@ -70,6 +129,10 @@ public final class Download {
 
     // generated on/after request
     public Response response;
+    private String downloadedHash = null;
+
+    // whether what's in the .part file has been counted as downloaded yet
+    private boolean partFileCounted = false;
 
     public Download() {
 
@@ -82,7 +145,7 @@ public final class Download {
     public boolean exists() {
         try {
             if (this.response == null) {
-                this.execute();
+                this.executeScheduled();
             }
 
             return this.response.isSuccessful();
@@ -99,7 +162,7 @@ public final class Download {
     }
 
     public String asString() {
-        try {
+        try (DownloadScheduler.Permit permit = DownloadScheduler.acquire(this.url, this.priority)) {
             this.execute();
 
             return this.response.body().string();
@@ -122,13 +185,25 @@ public final class Download {
             }
 
             try (InputStreamReader isr = new InputStreamReader(Files.newInputStream(this.to))) {
-                return gson.fromJson(isr, tClass);
+                return timeJsonParse(() -> gson.fromJson(isr, tClass));
             }
         }
 
-        this.execute();
+        try (DownloadScheduler.Permit permit = DownloadScheduler.acquire(this.url, this.priority)) {
+            this.execute();
 
-        return gson.fromJson(this.response.body().charStream(), tClass);
+            return timeJsonParse(() -> gson.fromJson(this.response.body().charStream(), tClass));
+        }
+    }
+
+    private static <T> T timeJsonParse(Supplier<T> parse) {
+        long start = System.nanoTime();
+
+        try {
+            return parse.get();
+        } finally {
+            PerformanceManager.recordLatency("json.parse", System.nanoTime() - start);
+        }
     }
 
     public <T> T asClass(Class<T> tClass, Gson gson) {
@@ -161,13 +236,15 @@ public final class Download {
             }
 
             try (InputStreamReader isr = new InputStreamReader(Files.newInputStream(this.to))) {
-                return gson.fromJson(isr, tClass);
+                return timeJsonParse(() -> gson.fromJson(isr, tClass));
             }
         }
 
-        this.execute();
+        try (DownloadScheduler.Permit permit = DownloadScheduler.acquire(this.url, this.priority)) {
+            this.execute();
 
-        return gson.fromJson(this.response.body().charStream(), tClass);
+            return timeJsonParse(() -> gson.fromJson(this.response.body().charStream(), tClass));
+        }
     }
 
     public <T> T asType(Type tClass, Gson gson) {
@@ -241,6 +318,30 @@ public final class Download {
         return this;
     }
 
+    /**
+     * Allows this file to be downloaded in the default number of byte ranges at
+     * once if it's large enough and the server supports range requests.
+     */
+    public Download segmented() {
+        return segmented(DEFAULT_SEGMENTS);
+    }
+
+    public Download segmented(int segments) {
+        this.segments = Math.max(1, segments);
+
+        return this;
+    }
+
+    /**
+     * Keeps this file in the shared mod store, so it's only downloaded once for
+     * all instances, and links it into place when copying it.
+     */
+    public Download stored() {
+        this.stored = true;
+
+        return this;
+    }
+
     public Download copyTo(Path copyTo) {
         this.copyTo = copyTo;
 
@@ -267,6 +368,11 @@ public final class Download {
         return this;
     }
 
+    public Download withPriority(DownloadScheduler.Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
     public Download withInstanceInstaller(InstanceInstaller instanceInstaller) {
         this.instanceInstaller = instanceInstaller;
         return this;
@@ -283,11 +389,46 @@ public final class Download {
     }
 
     private void execute() throws IOException {
+        execute(0L, null);
+    }
+
+    /**
+     * Opens the connection while holding a connection from the scheduler, for
+     * things like checking the size of the file or if it exists, which happen
+     * outside of downloading it.
+     */
+    private void executeScheduled() throws IOException {
+        try (DownloadScheduler.Permit permit = DownloadScheduler.acquire(this.url, this.priority)) {
+            this.execute();
+        }
+    }
+
+    /**
+     * Opens the connection. If resumeFrom is more than 0, then a range request is
+     * made for the rest of the file, which the server should only honour if the
+     * file still matches the given ETag or Last-Modified validator.
+     */
+    private void execute(long resumeFrom, String validator) throws IOException {
         // connection is already open, so close it first
         if (this.response != null) {
             this.response.close();
         }
 
+        Request.Builder builder = this.createRequestBuilder();
+
+        if (resumeFrom > 0L && validator != null) {
+            builder.header("Range", "bytes=" + resumeFrom + "-");
+            builder.header("If-Range", validator);
+        }
+
+        this.response = httpClient.newCall(builder.build()).execute();
+
+        if (this.response == null || (!this.ignoreFailures && !this.response.isSuccessful())) {
+            throw new DownloadException(this);
+        }
+    }
+
+    private Request.Builder createRequestBuilder() {
         Request.Builder builder = new Request.Builder().url(this.url);
 
         if (this.post != null) {
@@ -302,17 +443,13 @@ public final class Download {
             builder.cacheControl(this.cacheControl);
         }
 
-        this.response = httpClient.newCall(builder.build()).execute();
-
-        if (this.response == null || (!this.ignoreFailures && !this.response.isSuccessful())) {
-            throw new DownloadException(this);
-        }
+        return builder;
     }
 
     public int code() {
         try {
             if (this.response == null) {
-                this.execute();
+                this.executeScheduled();
             }
             return this.response.code();
         } catch (Exception e) {
@@ -337,7 +474,7 @@ public final class Download {
 
     public int getResponseCode() throws IOException {
         if (this.response == null) {
-            this.execute();
+            this.executeScheduled();
         }
 
         return this.response.code();
@@ -345,7 +482,7 @@ public final class Download {
 
     private String getHashFromURL() throws IOException {
         if (this.response == null) {
-            this.execute();
+            this.executeScheduled();
         }
 
         String etag = this.response.header("ETag");
@@ -377,9 +514,9 @@ public final class Download {
         try {
             if (this.size == -1L) {
                 if (this.response == null) {
-                    this.execute();
+                    this.executeScheduled();
                 }
-                long size = Long.parseLong(this.response.header("Content-Length"));
+                long size = this.getResponseFileSize();
 
                 if (size == -1L) {
                     this.size = 0L;
@@ -398,6 +535,43 @@ public final class Download {
         return this.size;
     }
 
+    /**
+     * Gets the size of the whole file from the open response. The Content-Length
+     * of a partial response is only the length of the range, so the size is taken
+     * from it's Content-Range instead.
+     */
+    private long getResponseFileSize() {
+        if (this.response.code() != 206) {
+            return Long.parseLong(this.response.header("Content-Length"));
+        }
+
+        String contentRange = this.response.header("Content-Range");
+
+        if (contentRange == null || contentRange.endsWith("/*") || contentRange.lastIndexOf('/') == -1) {
+            return -1L;
+        }
+
+        return Long.parseLong(contentRange.substring(contentRange.lastIndexOf('/') + 1).trim());
+    }
+
+    /**
+     * Gets the first byte of a partial response from it's Content-Range, or -1 if
+     * it doesn't have a valid one.
+     */
+    private long getResponseRangeStart() {
+        String contentRange = this.response.header("Content-Range");
+
+        if (contentRange == null || !contentRange.startsWith("bytes ") || contentRange.indexOf('-') == -1) {
+            return -1L;
+        }
+
+        try {
+            return Long.parseLong(contentRange.substring("bytes ".length(), contentRange.indexOf('-')).trim());
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
     public boolean needToDownload() {
         if (this.to == null) {
             return true;
@@ -409,20 +583,16 @@ public final class Download {
                 return false;
             }
 
-            if (this.fingerprint != null) {
-                try {
-                    if (Hashing.murmur(this.to) == this.fingerprint) {
-                        return false;
+            try {
+                if (this.fileMatches(this.to)) {
+                    if (this.useStore()) {
+                        ModStoreManager.addToStore(this.to, this.getHashAlgorithm(), this.getExpectedHash());
                     }
-                } catch (IOException e) {
-                    LogManager.error("Error getting murmur hash");
+
                     return false;
                 }
-            } else if (this.md5() && Hashing.md5(this.to).equals(Hashing.HashCode.fromString(this.getHash()))) {
-                return false;
-            } else if (this.sha512() && Hashing.sha512(this.to).equals(Hashing.HashCode.fromString(this.getHash()))) {
-                return false;
-            } else if (Hashing.sha1(this.to).equals(Hashing.HashCode.fromString(this.getHash()))) {
+            } catch (IOException e) {
+                LogManager.error("Error getting " + this.getHashAlgorithm() + " hash of " + this.to);
                 return false;
             }
 
@@ -432,10 +602,136 @@ public final class Download {
             }
         }
 
+        // the file may have already been downloaded for another instance
+        if (this.useStore() && ModStoreManager.restore(this.getHashAlgorithm(), this.getExpectedHash(), this.to)) {
+            return false;
+        }
+
         return true;
     }
 
+    /**
+     * If this download should be kept in, and linked from, the shared mod store.
+     * Only downloads with a known hash can be, since that's what they're stored
+     * by.
+     */
+    private boolean useStore() {
+        return this.stored && !this.ignoreFailures && (this.fingerprint != null
+                || (this.hash != null && !this.hash.isEmpty() && !this.hash.equals("-")));
+    }
+
+    private String getHashAlgorithm() {
+        if (this.fingerprint != null) {
+            return "murmur";
+        } else if (this.md5()) {
+            return "md5";
+        } else if (this.sha512()) {
+            return "sha512";
+        }
+
+        return "sha1";
+    }
+
+    private String getExpectedHash() {
+        if (this.fingerprint != null) {
+            return this.fingerprint.toString();
+        }
+
+        return Hashing.HashCode.fromString(this.getHash()).toString();
+    }
+
+    /**
+     * Gets the hash of the given file using the algorithm for this download. If
+     * the file is unchanged since it was last hashed, the hash stored in the
+     * verified file index is used instead of reading the file again.
+     */
+    private String getFileHash(Path file) throws IOException {
+        return VerifiedFileManager.getHash(file, this.getHashAlgorithm());
+    }
+
+    private boolean fileMatches(Path file) throws IOException {
+        return Files.exists(file) && this.getFileHash(file).equals(this.getExpectedHash());
+    }
+
+    private MessageDigest createDigest() {
+        if (this.fingerprint != null || Hashing.HashCode.fromString(this.getHash()).equals(Hashing.HashCode.EMPTY)) {
+            // murmur fingerprints need the length of the file up front, so can't be
+            // computed while streaming
+            return null;
+        }
+
+        try {
+            return MessageDigest.getInstance(this.md5() ? "MD5" : (this.sha512() ? "SHA-512" : "SHA-1"));
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
     private void downloadDirect() {
+        if (this.downloadBody(this.to, 0L) && this.downloadedHash != null) {
+            VerifiedFileManager.setVerifiedHash(this.to, this.getHashAlgorithm(), this.downloadedHash);
+        }
+    }
+
+    /**
+     * Streams the response body into the given file, starting at the given offset
+     * (anything in the file after that offset is discarded). Returns false if the
+     * transfer didn't finish, in which case whatever was written is left in place.
+     */
+    private boolean downloadDirect(Path file, long offset) {
+        this.countSize();
+
+        this.downloadedHash = null;
+        MessageDigest digest = this.createDigest();
+
+        try (FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                ReadableByteChannel rbc = Channels.newChannel(this.response.body().byteStream())) {
+            fc.truncate(offset);
+            fc.position(offset);
+
+            if (offset > 0L) {
+                // bytes left by an earlier run of the launcher were counted as part of the
+                // total but never as downloaded, unlike ones from an earlier attempt in this run
+                if (instanceInstaller != null && !this.partFileCounted) {
+                    instanceInstaller.addDownloadedBytes(offset);
+                }
+
+                if (digest != null) {
+                    updateDigest(digest, file, offset);
+                }
+            }
+
+            this.partFileCounted = true;
+
+            // hash the bytes as they're written so the file doesn't need to be read
+            // back in again to verify it
+            ByteBuffer buffer = ByteBuffer.allocate(DOWNLOAD_BUFFER_SIZE);
+            while (rbc.read(buffer) != -1) {
+                buffer.flip();
+
+                if (digest != null) {
+                    digest.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                }
+
+                while (buffer.hasRemaining()) {
+                    fc.write(buffer);
+                }
+
+                buffer.clear();
+            }
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to download file " + this.to, e, false);
+            return false;
+        }
+
+        if (digest != null) {
+            this.downloadedHash = Hashing.HashCode.fromBytes(digest.digest()).toString();
+        }
+
+        return true;
+    }
+
+    private void countSize() {
         if (size == -1L) {
             size = this.getFilesize();
 
@@ -443,33 +739,253 @@ public final class Download {
                 instanceInstaller.addBytesToDownload(size);
             }
         }
-        try (FileChannel fc = FileChannel.open(this.to, Utils.WRITE);
-                ReadableByteChannel rbc = Channels.newChannel(this.response.body().byteStream())) {
-            fc.transferFrom(rbc, 0, Long.MAX_VALUE);
-        } catch (Exception e) {
-            LogManager.logStackTrace("Failed to download file " + this.to, e, false);
-        }
     }
 
-    private boolean hashMatches() {
-        if (Files.exists(this.to)) {
-            if (this.fingerprint != null) {
+    /**
+     * Downloads the body of the open response into the given file, in segments if
+     * possible, falling back to a single connection if the segmented download
+     * fails.
+     */
+    private boolean downloadBody(Path file, long offset) {
+        if (offset == 0L && this.canDownloadSegmented()) {
+            List<DownloadScheduler.Permit> permits = this.acquireSegmentPermits();
+
+            // if there's no spare connections right now, just use the one we have
+            if (!permits.isEmpty()) {
+                if (this.downloadSegmented(file, permits)) {
+                    return true;
+                }
+
+                LogManager.debug(
+                        "Segmented download of " + this.url + " failed, downloading over a single connection");
+
                 try {
-                    return Hashing.murmur(this.to) == this.fingerprint;
+                    this.execute();
                 } catch (IOException e) {
-                    LogManager.error("Error getting murmur hash");
+                    LogManager.logStackTrace("Failed to download file " + this.to, e, false);
                     return false;
                 }
-            } else if (this.md5()) {
-                return Hashing.md5(this.to).equals(Hashing.HashCode.fromString(this.getHash()));
-            } else if (this.sha512()) {
-                return Hashing.sha512(this.to).equals(Hashing.HashCode.fromString(this.getHash()));
-            } else {
-                return Hashing.sha1(this.to).equals(Hashing.HashCode.fromString(this.getHash()));
             }
         }
 
-        return false;
+        return this.downloadDirect(file, offset);
+    }
+
+    private boolean canDownloadSegmented() {
+        if (this.segments < 2 || this.post != null || this.response == null || this.response.code() != 200) {
+            return false;
+        }
+
+        // only trust the length the server gives, since the size from metadata could
+        // be wrong, and a response that's been transparently gunzipped has no length
+        return "bytes".equalsIgnoreCase(this.response.header("Accept-Ranges"))
+                && this.response.body().contentLength() >= SEGMENTED_DOWNLOAD_THRESHOLD;
+    }
+
+    /**
+     * Downloads the file in byte ranges over multiple connections at once, writing
+     * each range straight to it's position in a preallocated file. Since the
+     * ranges arrive out of order, the file can't be hashed while it's being
+     * written, so it's verified as a whole afterwards.
+     *
+     * The first segment uses this download's own connection, and each of the
+     * others uses one of the given permits, which are all closed by the time this
+     * returns.
+     */
+    private boolean downloadSegmented(Path file, List<DownloadScheduler.Permit> permits) {
+        this.countSize();
+
+        long length = this.response.body().contentLength();
+        String validator = this.getResumeValidator();
+        int count = permits.size() + 1;
+
+        // the ranges are requested separately, so this connection isn't needed
+        this.response.close();
+        this.response = null;
+        this.downloadedHash = null;
+
+        LogManager.debug("Downloading " + this.url + " in " + count + " segments");
+
+        AtomicBoolean failed = new AtomicBoolean(false);
+        AtomicLong written = new AtomicLong(0L);
+
+        try {
+            // a preallocated file can't be resumed from it's length, so don't let it be
+            Files.deleteIfExists(this.getPartValidatorFile());
+
+            try (FileChannel fc = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                fc.write(ByteBuffer.allocate(1), length - 1);
+
+                long segmentSize = (length + count - 1) / count;
+                CompletableFuture<?>[] futures = new CompletableFuture[count];
+
+                for (int i = 0; i < count; i++) {
+                    long start = i * segmentSize;
+                    long end = Math.min(length, start + segmentSize) - 1;
+                    DownloadScheduler.Permit permit = i == 0 ? null : permits.get(i - 1);
+
+                    futures[i] = CompletableFuture.runAsync(PerformanceManager.wrap(() -> {
+                        try (PerformanceManager.Span span = PerformanceManager.span("download.segment")) {
+                            this.downloadSegment(fc, start, end, validator, failed, written);
+                        } catch (IOException e) {
+                            failed.set(true);
+                            throw new UncheckedIOException(e);
+                        } finally {
+                            if (permit != null) {
+                                permit.close();
+                            }
+                        }
+                    }), segmentExecutor);
+                }
+
+                CompletableFuture.allOf(futures).join();
+            }
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed segmented download of " + this.to, e, false);
+
+            // these bytes will be downloaded again, so take them back off the progress
+            if (instanceInstaller != null) {
+                instanceInstaller.addDownloadedBytes(-written.get());
+            }
+
+            return false;
+        } finally {
+            permits.forEach(DownloadScheduler.Permit::close);
+        }
+
+        return true;
+    }
+
+    /**
+     * Takes as many extra connections as are free right now, up to one less than
+     * the number of segments wanted for this file.
+     */
+    private List<DownloadScheduler.Permit> acquireSegmentPermits() {
+        List<DownloadScheduler.Permit> permits = new LinkedList<>();
+        long wanted = Math.min(this.segments,
+                this.response.body().contentLength() / (SEGMENTED_DOWNLOAD_THRESHOLD / DEFAULT_SEGMENTS));
+
+        DownloadScheduler.Permit permit;
+        while (permits.size() < wanted - 1 && (permit = DownloadScheduler.tryAcquire(this.url)) != null) {
+            permits.add(permit);
+        }
+
+        return permits;
+    }
+
+    private void downloadSegment(FileChannel fc, long start, long end, String validator, AtomicBoolean failed,
+            AtomicLong written) throws IOException {
+        Request.Builder builder = this.createRequestBuilder();
+        builder.header("Range", "bytes=" + start + "-" + end);
+
+        if (validator != null) {
+            builder.header("If-Range", validator);
+        }
+
+        try (Response segmentResponse = httpClient.newCall(builder.build()).execute()) {
+            String contentRange = segmentResponse.header("Content-Range");
+
+            if (segmentResponse.code() != 206 || contentRange == null
+                    || !contentRange.startsWith("bytes " + start + "-" + end + "/")) {
+                throw new IOException("Server didn't return bytes " + start + "-" + end + " of " + this.url);
+            }
+
+            try (ReadableByteChannel rbc = Channels.newChannel(segmentResponse.body().byteStream())) {
+                ByteBuffer buffer = ByteBuffer.allocate(DOWNLOAD_BUFFER_SIZE);
+                long position = start;
+
+                while (rbc.read(buffer) != -1) {
+                    if (failed.get() || (instanceInstaller != null && instanceInstaller.isCancelled())) {
+                        throw new IOException("Segmented download of " + this.url + " was stopped");
+                    }
+
+                    buffer.flip();
+
+                    if (position + buffer.remaining() > end + 1) {
+                        throw new IOException("Server sent too many bytes for segment " + start + "-" + end);
+                    }
+
+                    while (buffer.hasRemaining()) {
+                        int bytes = fc.write(buffer, position);
+                        position += bytes;
+                        written.addAndGet(bytes);
+                    }
+
+                    buffer.clear();
+                }
+
+                if (position != end + 1) {
+                    throw new IOException("Segment " + start + "-" + end + " of " + this.url + " ended early");
+                }
+            }
+        }
+    }
+
+    private static void updateDigest(MessageDigest digest, Path file, long length) throws IOException {
+        try (InputStream is = Files.newInputStream(file)) {
+            byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+            long remaining = length;
+            int read;
+
+            while (remaining > 0 && (read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                digest.update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+
+    /**
+     * Checks the file just downloaded against the expected hash, using the hash
+     * computed while it was streamed to disk when there is one.
+     */
+    private boolean downloadedHashMatches(Path file) {
+        if (this.downloadedHash != null) {
+            return this.downloadedHash.equals(this.getExpectedHash());
+        }
+
+        try {
+            return this.fileMatches(file);
+        } catch (IOException e) {
+            LogManager.error("Error getting " + this.getHashAlgorithm() + " hash of " + file);
+            return false;
+        }
+    }
+
+    private Path getPartFile() {
+        return this.to.resolveSibling(this.to.getFileName().toString() + ".part");
+    }
+
+    private Path getPartValidatorFile() {
+        return this.to.resolveSibling(this.to.getFileName().toString() + ".part.validator");
+    }
+
+    private boolean hasPartFile() {
+        return Files.exists(this.getPartFile()) && Files.exists(this.getPartValidatorFile());
+    }
+
+    private void deletePartFiles() {
+        try {
+            Files.deleteIfExists(this.getPartFile());
+            Files.deleteIfExists(this.getPartValidatorFile());
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to delete partial download of " + this.to, e, false);
+        }
+    }
+
+    /**
+     * Gets the value to send in an If-Range header when resuming this download
+     * later on, which is a strong ETag if the server sent one, or the
+     * Last-Modified date otherwise.
+     */
+    private String getResumeValidator() {
+        String etag = this.response.header("ETag");
+
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+
+        return this.response.header("Last-Modified");
     }
 
     private boolean downloadRec(int attempt) {
@@ -482,10 +998,32 @@ public final class Download {
             FileUtils.delete(this.to);
         }
 
-        // if already opened or not first attempt, open the connection
-        if (this.response == null || attempt != 1) {
+        Path partFile = this.getPartFile();
+        Path validatorFile = this.getPartValidatorFile();
+
+        // if there's a partial download from a previous attempt (or a previous run of
+        // the launcher), then try to carry on from where it stopped
+        long resumeFrom = 0L;
+        String validator = null;
+        if (this.hasPartFile()) {
             try {
-                this.execute();
+                resumeFrom = Files.size(partFile);
+                validator = new String(Files.readAllBytes(validatorFile), StandardCharsets.UTF_8).trim();
+            } catch (IOException e) {
+                resumeFrom = 0L;
+            }
+
+            if (resumeFrom == 0L || validator == null || validator.isEmpty()
+                    || (this.size > 0L && resumeFrom >= this.size)) {
+                resumeFrom = 0L;
+                validator = null;
+            }
+        }
+
+        // if already opened or not first attempt (or resuming), open the connection
+        if (this.response == null || attempt != 1 || resumeFrom != 0L) {
+            try {
+                this.execute(resumeFrom, validator);
             } catch (IOException e) {
                 LogManager.logStackTrace(e);
 
@@ -494,18 +1032,84 @@ public final class Download {
                     this.response = null;
                 }
 
+                if (resumeFrom != 0L) {
+                    // the range was probably rejected, so throw away what we had and start again
+                    this.deletePartFiles();
+                    return this.downloadRec(attempt + 1);
+                }
+
                 return false;
             }
         }
 
+        if (resumeFrom != 0L && this.response.code() == 206 && this.getResponseRangeStart() != resumeFrom) {
+            // appending a different range to what we have would give a corrupt file, which
+            // without a hash to check would be kept, so throw it away and start again
+            LogManager.debug("Server returned the wrong range resuming download of " + this.url
+                    + ", downloading whole file");
+            this.response.close();
+            this.response = null;
+            this.deletePartFiles();
+            return this.downloadRec(attempt);
+        }
+
+        if (resumeFrom != 0L && this.response.code() != 206) {
+            // the server ignored the range, or the file has changed since, so start from
+            // scratch
+            LogManager.debug("Couldn't resume download of " + this.url + ", downloading whole file");
+            resumeFrom = 0L;
+        } else if (resumeFrom != 0L) {
+            LogManager.debug("Resuming download of " + this.url + " from byte " + resumeFrom);
+        }
+
+        if (resumeFrom == 0L) {
+            String newValidator = this.getResumeValidator();
+
+            try {
+                if (newValidator == null) {
+                    Files.deleteIfExists(validatorFile);
+                } else {
+                    Files.write(validatorFile, newValidator.getBytes(StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                LogManager.logStackTrace("Failed to save resume information for " + this.to, e, false);
+            }
+        }
+
         // download the file to disk
-        this.downloadDirect();
+        if (!this.downloadBody(partFile, resumeFrom)) {
+            // keep the partial file so the next attempt can carry on from where this one
+            // stopped
+            LogManager.debug("Failed downloading " + this.url + " on attempt " + attempt);
+            return this.downloadRec(attempt + 1);
+        }
 
         // check if the hash matches (or they're ignored and file isn't 0 bytes)
-        if ((this.ignoreFailures && this.to.toFile().length() != 0) || hashMatches()) {
+        boolean matches = (this.ignoreFailures && partFile.toFile().length() != 0)
+                || downloadedHashMatches(partFile);
+
+        if (matches || attempt == MAX_ATTEMPTS) {
+            // on the last attempt the bad file is moved into place anyway, so it can be
+            // copied to the failed downloads folder
+            try {
+                Files.move(partFile, this.to, StandardCopyOption.REPLACE_EXISTING);
+                Files.deleteIfExists(validatorFile);
+            } catch (IOException e) {
+                LogManager.logStackTrace("Failed to move downloaded file into place at " + this.to, e, false);
+                return false;
+            }
+        }
+
+        if (matches) {
+            if (this.downloadedHash != null) {
+                VerifiedFileManager.setVerifiedHash(this.to, this.getHashAlgorithm(), this.downloadedHash);
+            }
+
             return true;
         }
 
+        this.deletePartFiles();
+
         // if the hash doesn't match, attempt again
         LogManager.debug("Failed downloading " + this.url + " on attempt " + attempt);
         return this.downloadRec(attempt + 1);
@@ -514,8 +1118,11 @@ public final class Download {
     public void copy() {
         if (this.copyTo != null) {
             if (Files.exists(this.copyTo)) {
-                if (hashMatches()) {
-                    return;
+                try {
+                    if (this.fileMatches(this.copyTo)) {
+                        return;
+                    }
+                } catch (IOException ignored) {
                 }
 
                 FileUtils.delete(this.copyTo);
@@ -525,7 +1132,16 @@ public final class Download {
                 FileUtils.createDirectory(this.copyTo.getParent());
             }
 
-            FileUtils.copyFile(this.to, this.copyTo, true);
+            if (this.useStore()
+                    && ModStoreManager.install(this.getHashAlgorithm(), this.getExpectedHash(), this.to, this.copyTo)) {
+                return;
+            }
+
+            if (FileUtils.copyFile(this.to, this.copyTo, true)) {
+                String algorithm = this.getHashAlgorithm();
+                VerifiedFileManager.setVerifiedHash(this.copyTo, algorithm,
+                        VerifiedFileManager.getVerifiedHash(this.to, algorithm));
+            }
         }
     }
 
@@ -535,38 +1151,89 @@ public final class Download {
         }
 
         if (!this.needToDownload()) {
-            if (this.copyTo != null) {
-                if (this.fingerprint != null) {
-                    try {
-                        if (Hashing.murmur(this.copyTo) != this.fingerprint) {
-                            this.copy();
-                        }
-                    } catch (IOException ignored) {
-                    }
-                } else {
-                    Hashing.HashCode fileHash = Hashing.HashCode.EMPTY;
-                    if (Files.exists(this.copyTo)) {
-                        if (this.md5()) {
-                            fileHash = Hashing.md5(this.copyTo);
-                        } else if (this.sha512()) {
-                            fileHash = Hashing.sha512(this.copyTo);
-                        } else {
-                            fileHash = Hashing.sha1(this.copyTo);
-                        }
-                    }
+            this.copy();
 
-                    if (!fileHash.equals(Hashing.HashCode.fromString(this.getHash()))) {
-                        this.copy();
-                    }
+            runPostProcessors();
+            return;
+        }
+
+        Path key = this.to.toAbsolutePath().normalize();
+
+        for (int attempt = 1;; attempt++) {
+            InFlightDownload flight = new InFlightDownload();
+            InFlightDownload existing = inFlightDownloads.putIfAbsent(key, flight);
+
+            if (existing == null) {
+                try {
+                    this.downloadAsOwner();
+                } finally {
+                    inFlightDownloads.remove(key, flight);
+                    flight.done.complete(null);
                 }
+
+                return;
             }
 
-            runPostProcessors();
-            return;
+            // any connection this thread holds (such as from a pool download) is given back
+            // while waiting, so the other download can't be held up waiting for it
+            LogManager.debug("Waiting for another download of " + this.to + " to finish");
+            PerformanceManager.increment("downloads.shared");
+
+            DownloadScheduler.awaitWithoutPermit(existing.done, this.priority);
+
+            if (!this.needToDownload()) {
+                // the bytes were counted as needing to be downloaded, so count them as done
+                if (this.instanceInstaller != null && this.size > 0L) {
+                    this.instanceInstaller.addDownloadedBytes(this.size);
+                }
+
+                this.copy();
+                runPostProcessors();
+                return;
+            }
+
+            // the other download failed (or was for a different version of the file), so
+            // try downloading it ourselves
+            if (attempt == MAX_SHARED_DOWNLOAD_ATTEMPTS) {
+                LogManager.error("Error downloading " + this.to.getFileName() + " from " + this.url
+                        + ". Gave up after " + attempt + " attempts, cancelling install!");
+
+                if (this.instanceInstaller != null) {
+                    this.instanceInstaller.cancel(true);
+                }
+
+                return;
+            }
+
+            if (this.instanceInstaller != null && this.instanceInstaller.isCancelled()) {
+                return;
+            }
         }
+    }
 
-        // open the connection if not already opened
-        if (this.response == null) {
+    private void downloadAsOwner() throws IOException {
+        long queuedAt = System.nanoTime();
+        try (DownloadScheduler.Permit permit = DownloadScheduler.acquire(this.url, this.priority)) {
+            PerformanceManager.recordLatency("download.queued", System.nanoTime() - queuedAt);
+
+            try (PerformanceManager.Span span = PerformanceManager.span("download").tag("file",
+                    this.to.getFileName())) {
+                this.downloadAndVerify();
+            }
+        }
+
+        if (Files.exists(this.to)) {
+            PerformanceManager.increment("downloads.succeeded");
+            PerformanceManager.increment("downloads.bytes", Files.size(this.to));
+        } else {
+            PerformanceManager.increment("downloads.failed");
+        }
+    }
+
+    private void downloadAndVerify() throws IOException {
+        // open the connection if not already opened, unless there's a partial download
+        // to carry on from, which needs a range request instead
+        if (this.response == null && !this.hasPartFile()) {
             try {
                 this.execute();
             } catch (IOException e) {
@@ -600,6 +1267,10 @@ public final class Download {
 
         if ((this.ignoreFailures && this.to.toFile().length() != 0)
                 || (expected != null && expected.equals(Hashing.HashCode.EMPTY))) {
+            if (this.response == null) {
+                this.execute();
+            }
+
             if (this.response.isSuccessful()) {
                 this.downloadDirect();
             }
@@ -607,7 +1278,8 @@ public final class Download {
             boolean downloaded = this.downloadRec(1);
 
             if (!downloaded) {
-                if (this.response.header("content-type").contains("text/html")) {
+                if (this.response != null && this.response.header("content-type") != null
+                        && this.response.header("content-type").contains("text/html") && Files.exists(this.to)) {
                     LogManager.error(
                             "The response from this request was a HTML response. This is usually caused by an antivirus or firewall software intercepting and rewriting the response. The response is below.");
 
@@ -634,30 +1306,12 @@ public final class Download {
                 }
             }
 
-            if (downloaded && this.copyTo != null) {
-                if (this.fingerprint != null) {
-                    try {
-                        if (Hashing.murmur(this.copyTo) != this.fingerprint) {
-                            this.copy();
-                        }
-                    } catch (IOException ignored) {
-                    }
-                } else {
-                    Hashing.HashCode fileHash2 = Hashing.HashCode.EMPTY;
-                    if (Files.exists(this.copyTo)) {
-                        if (this.md5()) {
-                            fileHash2 = Hashing.md5(this.copyTo);
-                        } else if (this.sha512()) {
-                            fileHash2 = Hashing.sha512(this.copyTo);
-                        } else {
-                            fileHash2 = Hashing.sha1(this.copyTo);
-                        }
-                    }
-
-                    if (!fileHash2.equals(expected)) {
-                        this.copy();
-                    }
+            if (downloaded) {
+                if (this.useStore()) {
+                    ModStoreManager.addToStore(this.to, this.getHashAlgorithm(), this.getExpectedHash());
                 }
+
+                this.copy();
             }
         }
 
@@ -668,7 +1322,7 @@ public final class Download {
         }
     }
 
-    private void runPostProcessors() {
+    private void runPostProcessors() throws IOException {
         if (this.response != null) {
             this.response.close();
         }
@@ -676,7 +1330,7 @@ public final class Download {
         if (Files.exists(this.to) && this.unzipTo != null) {
             FileUtils.createDirectory(this.unzipTo);
 
-            ZipUtil.unpack(this.to.toFile(), this.unzipTo.toFile());
+            ParallelZip.unpack(this.to, this.unzipTo);
         }
 
         if (Files.exists(this.to) && this.executable) {
@@ -707,4 +1361,8 @@ public final class Download {
     public int hashCode() {
         return this.to.hashCode();
     }
+
+    private static final class InFlightDownload {
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+    }
 }
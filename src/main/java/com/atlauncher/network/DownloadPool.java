@@ -18,19 +18,45 @@
 package com.atlauncher.network;
 
 import java.nio.file.Files;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.atlauncher.App;
 import com.atlauncher.managers.LogManager;
+import com.atlauncher.managers.PerformanceManager;
+import com.atlauncher.managers.VerifiedFileManager;
 import com.atlauncher.utils.FileUtils;
 
 @SuppressWarnings("serial")
 public final class DownloadPool extends LinkedList<Download> {
+    private static final AtomicInteger threadCount = new AtomicInteger(0);
+
+    /**
+     * The executor shared by every pool for checking which files need to be
+     * downloaded. It's sized to the users concurrent connections setting and it's
+     * threads are let go when idle. The downloads themselves are run by the
+     * {@link DownloadScheduler}.
+     */
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(getConcurrentConnections(),
+            getConcurrentConnections(), 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "DownloadPool-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        executor.allowCoreThreadTimeOut(true);
+    }
+
     private final boolean wait;
+    private volatile boolean cancelled = false;
 
     public DownloadPool(boolean wait) {
         this.wait = wait;
@@ -40,26 +66,102 @@ public final class DownloadPool extends LinkedList<Download> {
         this(true);
     }
 
-    public void downloadAll() {
-        for (Download dl : this) {
-            if (!Files.isDirectory(dl.to.getParent())) {
-                FileUtils.createDirectory(dl.to.getParent());
-            }
+    private static int getConcurrentConnections() {
+        return Math.max(1, App.settings == null ? 8 : App.settings.concurrentConnections);
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        int size = getConcurrentConnections();
+
+        // the setting may have changed since last used, so resize in an order that
+        // keeps the core size less than or equal to the max
+        if (size > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        } else if (size < executor.getMaximumPoolSize()) {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
         }
 
-        ExecutorService executor = Executors.newFixedThreadPool(App.settings.concurrentConnections);
+        return executor;
+    }
+
+    /**
+     * Downloads all the files in this pool through the {@link DownloadScheduler},
+     * at the priority of each download.
+     *
+     * If this pool was created to wait (the default) then this will block until
+     * all the downloads have finished, otherwise the returned future can be used
+     * to wait on the result.
+     */
+    public CompletableFuture<Result> downloadAll() {
+        List<Download> downloads;
         synchronized (this) {
-            for (Download dl : this) {
-                executor.execute(new Downloader(dl));
+            downloads = new LinkedList<>(this);
+        }
+
+        for (Download dl : downloads) {
+            if (!Files.isDirectory(dl.to.getParent())) {
+                FileUtils.createDirectory(dl.to.getParent());
             }
         }
-        executor.shutdown();
+
+        Result result = new Result();
+        CompletableFuture<?>[] futures = downloads.stream()
+                .map(dl -> DownloadScheduler.submit(dl.url, dl.priority, () -> this.download(dl, result)))
+                .toArray(CompletableFuture[]::new);
+
+        CompletableFuture<Result> future = CompletableFuture.allOf(futures).handle((v, t) -> {
+            VerifiedFileManager.scheduleSave();
+            LogManager.debug(
+                    "Finished downloading pool (" + result + "), scheduler has " + DownloadScheduler.getStatus());
+            return result;
+        });
+
         if (this.wait) {
-            while (!executor.isTerminated()) {
+            future.join();
+        }
+
+        return future;
+    }
+
+    private void download(Download dl, Result result) {
+        if (this.cancelled || (dl.instanceInstaller != null && dl.instanceInstaller.isCancelled())) {
+            result.cancelled.incrementAndGet();
+            return;
+        }
+
+        try {
+            if (dl.needToDownload()) {
+                dl.downloadFile();
+            } else {
+                dl.copy();
+            }
+
+            if (dl.instanceInstaller != null && dl.instanceInstaller.isCancelled()) {
+                result.cancelled.incrementAndGet();
+            } else if (!Files.exists(dl.to)) {
+                result.addFailed(dl);
+            } else {
+                result.succeeded.incrementAndGet();
             }
+        } catch (Exception e) {
+            LogManager.logStackTrace("Error trying to download " + dl.to.getFileName(), e);
+            result.addFailed(dl);
         }
     }
 
+    /**
+     * Stops any downloads in this pool which haven't started yet from starting.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
     public long totalSize() {
         long size = 0;
         synchronized (this) {
@@ -73,26 +175,30 @@ public final class DownloadPool extends LinkedList<Download> {
     }
 
     public DownloadPool downsize() {
+        PerformanceManager.start();
         final DownloadPool pool = new DownloadPool(this.wait);
         final List<Download> downloads = this.stream().distinct().collect(Collectors.toList());
 
-        ExecutorService executor = Executors.newFixedThreadPool(App.settings.concurrentConnections);
-        for (final Download dl : downloads) {
-            executor.submit(() -> {
-                if (dl.needToDownload()) {
-                    synchronized (pool) {
-                        pool.add(dl);
+        CompletableFuture<?>[] futures = downloads.stream()
+                .map(dl -> CompletableFuture.runAsync(PerformanceManager.wrap(() -> {
+                    if (dl.needToDownload()) {
+                        synchronized (pool) {
+                            pool.add(dl);
+                        }
+                    } else {
+                        dl.copy();
                     }
-                } else {
-                    dl.copy();
-                }
-            });
-        }
+                }), getExecutor())).toArray(CompletableFuture[]::new);
 
-        executor.shutdown();
-        while (!executor.isTerminated()) {
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (Exception e) {
+            LogManager.logStackTrace("Error checking which files need to be downloaded", e);
         }
 
+        VerifiedFileManager.scheduleSave();
+        PerformanceManager.end();
+
         return pool;
     }
 
@@ -108,24 +214,44 @@ public final class DownloadPool extends LinkedList<Download> {
         return false;
     }
 
-    private static final class Downloader implements Runnable {
-        private final Download dl;
+    /**
+     * The aggregated result of downloading all the files in a pool.
+     */
+    public static final class Result {
+        private final AtomicInteger succeeded = new AtomicInteger(0);
+        private final AtomicInteger cancelled = new AtomicInteger(0);
+        private final List<Download> failed = Collections.synchronizedList(new LinkedList<>());
 
-        private Downloader(Download dl) {
-            this.dl = dl;
+        private void addFailed(Download dl) {
+            this.failed.add(dl);
         }
 
-        @Override
-        public void run() {
-            try {
-                if (this.dl.needToDownload()) {
-                    this.dl.downloadFile();
-                } else {
-                    this.dl.copy();
-                }
-            } catch (Exception e) {
-                LogManager.logStackTrace("Error trying to download " + this.dl.to.getFileName(), e);
+        public int getSucceeded() {
+            return this.succeeded.get();
+        }
+
+        public int getCancelled() {
+            return this.cancelled.get();
+        }
+
+        public int getFailed() {
+            return this.failed.size();
+        }
+
+        public List<Download> getFailedDownloads() {
+            synchronized (this.failed) {
+                return new LinkedList<>(this.failed);
             }
         }
+
+        public boolean isSuccessful() {
+            return this.getFailed() == 0 && this.getCancelled() == 0;
+        }
+
+        @Override
+        public String toString() {
+            return this.getSucceeded() + " succeeded, " + this.getFailed() + " failed and " + this.getCancelled()
+                    + " cancelled";
+        }
     }
 }
@@ -0,0 +1,342 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.network;
+
+import java.io.InterruptedIOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.atlauncher.App;
+import com.atlauncher.managers.PerformanceManager;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Schedules every download the launcher makes, so no matter how many installs,
+ * launches and background checks are running at once, there's never more
+ * connections open than the user has allowed in total, or more than
+ * {@link #MAX_CONNECTIONS_PER_HOST} to a single host.
+ *
+ * When there's more waiting than can run, launch preparation goes first, then
+ * installs, then prefetching.
+ */
+public final class DownloadScheduler {
+    public static final int MAX_CONNECTIONS_PER_HOST = 8;
+
+    public enum Priority {
+        LAUNCH, INSTALL, PREFETCH
+    }
+
+    private static final Object lock = new Object();
+    private static final TreeSet<Waiter> waiting = new TreeSet<>(
+            Comparator.comparing((Waiter waiter) -> waiter.priority).thenComparingLong(waiter -> waiter.sequence));
+    private static final Map<String, Integer> inFlightByHost = new HashMap<>();
+    private static int inFlight = 0;
+    private static long nextSequence = 0L;
+
+    /**
+     * The permit held by the current thread, so that downloads started while
+     * already holding one (such as a pool download calling downloadFile) don't
+     * wait on themselves.
+     */
+    private static final ThreadLocal<Permit> currentPermit = new ThreadLocal<>();
+
+    private static final AtomicInteger threadCount = new AtomicInteger(0);
+    private static final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "DownloadScheduler-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static int getMaxConnections() {
+        return Math.max(1, App.settings == null ? 8 : App.settings.concurrentConnections);
+    }
+
+    private static int getMaxConnectionsPerHost() {
+        return Math.min(getMaxConnections(), MAX_CONNECTIONS_PER_HOST);
+    }
+
+    private static String getHost(String url) {
+        HttpUrl httpUrl = url == null ? null : HttpUrl.parse(url);
+
+        return httpUrl == null ? "" : httpUrl.host();
+    }
+
+    /**
+     * Waits until a connection to the host of the given url is free and takes it.
+     * The returned permit must be closed once the download has finished.
+     */
+    public static Permit acquire(String url, Priority priority) throws InterruptedIOException {
+        if (currentPermit.get() != null) {
+            return new Permit(null, false);
+        }
+
+        String host = getHost(url);
+        waitForConnection(host, priority);
+
+        Permit permit = new Permit(host, true);
+        currentPermit.set(permit);
+        return permit;
+    }
+
+    /**
+     * Waits on the given future without holding onto the connection this thread
+     * has, so that whatever it's waiting on (such as another download of the same
+     * file) can't be held up waiting for that connection. The connection is taken
+     * back before returning.
+     */
+    public static void awaitWithoutPermit(CompletableFuture<?> future, Priority priority)
+            throws InterruptedIOException {
+        Permit permit = currentPermit.get();
+
+        if (permit == null || !permit.suspend()) {
+            future.join();
+            return;
+        }
+
+        try {
+            future.join();
+        } finally {
+            permit.resume(priority);
+        }
+    }
+
+    private static void waitForConnection(String host, Priority priority) throws InterruptedIOException {
+        synchronized (lock) {
+            Waiter waiter = new Waiter(host, priority, null);
+            waiting.add(waiter);
+            dispatch();
+
+            while (!waiter.granted) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    if (waiter.granted) {
+                        release(host);
+                    } else {
+                        waiting.remove(waiter);
+                    }
+
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to download from " + host);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes a connection to the host of the given url if one is free right now,
+     * otherwise returns null. This is used for extra connections that are nice to
+     * have, like the segments of a large file.
+     */
+    public static Permit tryAcquire(String url) {
+        String host = getHost(url);
+
+        synchronized (lock) {
+            if (inFlight >= getMaxConnections() || inFlightByHost.getOrDefault(host, 0) >= getMaxConnectionsPerHost()) {
+                return null;
+            }
+
+            take(host);
+        }
+
+        return new Permit(host, false);
+    }
+
+    /**
+     * Queues the given work to run on a scheduler thread once a connection to the
+     * host of the given url is free.
+     */
+    public static CompletableFuture<Void> submit(String url, Priority priority, Runnable runnable) {
+        String host = getHost(url);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Runnable work = PerformanceManager.wrap(runnable);
+
+        synchronized (lock) {
+            waiting.add(new Waiter(host, priority, () -> {
+                Permit permit = new Permit(host, true);
+                currentPermit.set(permit);
+
+                try {
+                    work.run();
+                    future.complete(null);
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    permit.close();
+                }
+            }));
+            dispatch();
+        }
+
+        return future;
+    }
+
+    /**
+     * Hands out free connections to whatever has been waiting the longest in the
+     * highest priority, skipping over anything for a host that's already at it's
+     * limit. Must be called while holding the lock.
+     */
+    private static void dispatch() {
+        boolean wakeWaiters = false;
+        Iterator<Waiter> iterator = waiting.iterator();
+
+        while (inFlight < getMaxConnections() && iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+
+            if (inFlightByHost.getOrDefault(waiter.host, 0) >= getMaxConnectionsPerHost()) {
+                continue;
+            }
+
+            iterator.remove();
+            take(waiter.host);
+            waiter.granted = true;
+
+            if (waiter.task == null) {
+                wakeWaiters = true;
+            } else {
+                workers.execute(waiter.task);
+            }
+        }
+
+        if (wakeWaiters) {
+            lock.notifyAll();
+        }
+    }
+
+    private static void take(String host) {
+        inFlight++;
+        inFlightByHost.merge(host, 1, Integer::sum);
+    }
+
+    private static void release(String host) {
+        synchronized (lock) {
+            inFlight--;
+            inFlightByHost.computeIfPresent(host, (key, count) -> count <= 1 ? null : count - 1);
+            dispatch();
+        }
+    }
+
+    public static int getQueuedCount() {
+        synchronized (lock) {
+            return waiting.size();
+        }
+    }
+
+    public static int getQueuedCount(Priority priority) {
+        synchronized (lock) {
+            return (int) waiting.stream().filter(waiter -> waiter.priority == priority).count();
+        }
+    }
+
+    public static int getInFlightCount() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    public static Map<String, Integer> getInFlightCountByHost() {
+        synchronized (lock) {
+            return new HashMap<>(inFlightByHost);
+        }
+    }
+
+    public static String getStatus() {
+        synchronized (lock) {
+            return String.format("%d in flight (%s), %d queued (%d launch, %d install, %d prefetch)", inFlight,
+                    inFlightByHost, waiting.size(), getQueuedCount(Priority.LAUNCH), getQueuedCount(Priority.INSTALL),
+                    getQueuedCount(Priority.PREFETCH));
+        }
+    }
+
+    /**
+     * A connection taken from the scheduler, which is given back when closed.
+     */
+    public static final class Permit implements AutoCloseable {
+        private final String host;
+        private final boolean boundToThread;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile boolean suspended = false;
+
+        private Permit(String host, boolean boundToThread) {
+            this.host = host;
+            this.boundToThread = boundToThread;
+        }
+
+        /**
+         * Gives the connection back for now, without letting go of the permit.
+         */
+        private boolean suspend() {
+            if (this.host == null || this.suspended || this.released.get()) {
+                return false;
+            }
+
+            this.suspended = true;
+            release(this.host);
+            return true;
+        }
+
+        /**
+         * Takes a connection back after {@link #suspend()}. If this is interrupted
+         * the permit stays suspended, so closing it won't give back a connection it
+         * doesn't have.
+         */
+        private void resume(Priority priority) throws InterruptedIOException {
+            waitForConnection(this.host, priority);
+            this.suspended = false;
+        }
+
+        @Override
+        public void close() {
+            if (this.host == null || !this.released.compareAndSet(false, true)) {
+                return;
+            }
+
+            if (this.boundToThread) {
+                currentPermit.remove();
+            }
+
+            if (!this.suspended) {
+                release(this.host);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final String host;
+        private final Priority priority;
+        private final long sequence;
+        private final Runnable task;
+        private boolean granted = false;
+
+        private Waiter(String host, Priority priority, Runnable task) {
+            this.host = host;
+            this.priority = priority;
+            this.sequence = nextSequence++;
+            this.task = task;
+        }
+    }
+}
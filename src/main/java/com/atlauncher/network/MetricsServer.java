@@ -0,0 +1,111 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.network;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+
+import javax.net.ServerSocketFactory;
+
+import com.atlauncher.managers.LogManager;
+import com.atlauncher.managers.PerformanceManager;
+
+import net.freeutils.httpserver.HTTPServer;
+import net.freeutils.httpserver.HTTPServer.VirtualHost;
+
+/**
+ * Serves the metrics collected by the {@link PerformanceManager} as JSON at
+ * http://localhost:port/metrics. It only listens on the loopback address, so
+ * nothing outside this machine can read it.
+ */
+public final class MetricsServer {
+    private static HTTPServer server = null;
+
+    public static synchronized void start(int port) {
+        if (server != null) {
+            return;
+        }
+
+        HTTPServer httpServer = new HTTPServer(port);
+        httpServer.setServerSocketFactory(new LoopbackServerSocketFactory());
+
+        VirtualHost host = httpServer.getVirtualHost(null);
+        host.addContext("/metrics", (req, res) -> {
+            res.getHeaders().add("Content-Type", "application/json");
+            res.send(200, PerformanceManager.toJson());
+            return 0;
+        }, "GET");
+
+        try {
+            httpServer.start();
+            server = httpServer;
+            LogManager.info("Serving metrics at http://localhost:" + port + "/metrics");
+        } catch (IOException e) {
+            LogManager.logStackTrace("Failed to start metrics server on port " + port, e, false);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop();
+            server = null;
+        }
+    }
+
+    /**
+     * Creates server sockets which bind to the loopback address, whatever address
+     * they're asked to bind to.
+     */
+    private static final class LoopbackServerSocketFactory extends ServerSocketFactory {
+        @Override
+        public ServerSocket createServerSocket() throws IOException {
+            return new LoopbackServerSocket();
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port) throws IOException {
+            return new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog) throws IOException {
+            return new ServerSocket(port, backlog, InetAddress.getLoopbackAddress());
+        }
+
+        @Override
+        public ServerSocket createServerSocket(int port, int backlog, InetAddress address) throws IOException {
+            return new ServerSocket(port, backlog, InetAddress.getLoopbackAddress());
+        }
+    }
+
+    private static final class LoopbackServerSocket extends ServerSocket {
+        private LoopbackServerSocket() throws IOException {
+            super();
+        }
+
+        @Override
+        public void bind(SocketAddress endpoint, int backlog) throws IOException {
+            int port = endpoint instanceof InetSocketAddress ? ((InetSocketAddress) endpoint).getPort() : 0;
+
+            super.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), backlog);
+        }
+    }
+}
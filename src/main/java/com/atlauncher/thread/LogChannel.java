@@ -0,0 +1,189 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.thread;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.atlauncher.evnt.LogEvent;
+
+/**
+ * A bounded queue of log events waiting to be posted by a
+ * {@link LoggingThread}. When it's full, what happens to new events depends on
+ * the {@link OverflowPolicy}, and any events that don't make it in are counted
+ * so the logging thread can report how many were lost.
+ */
+public final class LogChannel {
+    /**
+     * How long to wait for room in the queue with {@link OverflowPolicy#BLOCK}
+     * before giving up on the event, so a stuck logging thread can't hang
+     * everything that logs.
+     */
+    private static final long BLOCK_TIMEOUT_MS = 1000L;
+
+    private final String name;
+    private final Deque<LogEvent> events = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private volatile int capacity;
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private volatile Thread consumer = null;
+    private long dropped = 0L;
+
+    public LogChannel(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Adds the event to the queue, returning false if it had to be dropped.
+     */
+    public boolean offer(LogEvent event) {
+        lock.lock();
+        try {
+            if (events.size() >= capacity && !makeRoom()) {
+                dropped++;
+                return false;
+            }
+
+            events.addLast(event);
+            notEmpty.signal();
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes room for one more event according to the overflow policy, returning
+     * false if the new event should be dropped instead. Must hold the lock.
+     */
+    private boolean makeRoom() {
+        switch (overflowPolicy) {
+            case DROP_OLDEST: {
+                events.removeFirst();
+                dropped++;
+                return true;
+            }
+            case BLOCK: {
+                Thread currentConsumer = consumer;
+
+                // with nothing taking events (or if it's the logging thread itself logging),
+                // waiting would never end
+                if (currentConsumer == null || currentConsumer == Thread.currentThread()) {
+                    return false;
+                }
+
+                long remaining = TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MS);
+                try {
+                    while (events.size() >= capacity) {
+                        if (remaining <= 0L) {
+                            return false;
+                        }
+
+                        remaining = notFull.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+
+                return true;
+            }
+            case DROP_NEWEST:
+            default: {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Waits for at least one event and then moves up to the given number of
+     * events into the given list.
+     */
+    public void take(List<LogEvent> batch, int max) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (events.isEmpty()) {
+                notEmpty.await();
+            }
+
+            for (int i = 0; i < max && !events.isEmpty(); i++) {
+                batch.add(events.removeFirst());
+            }
+
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets how many events have been dropped since this was last called.
+     */
+    public long takeDropped() {
+        lock.lock();
+        try {
+            long count = dropped;
+            dropped = 0L;
+
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Wait (up to a second) for the logging thread to make room.
+         */
+        BLOCK,
+
+        /**
+         * Drop the oldest event waiting to make room for the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Drop the new event.
+         */
+        DROP_NEWEST
+    }
+}
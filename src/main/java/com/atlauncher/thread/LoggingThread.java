@@ -17,35 +17,67 @@
  */
 package com.atlauncher.thread;
 
-import java.util.concurrent.BlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.atlauncher.evnt.LogEvent;
+import com.atlauncher.evnt.LogEvent.LogType;
+import com.atlauncher.managers.PerformanceManager;
 
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Posts the events from a {@link LogChannel} to the console and log files,
+ * taking as many as are waiting at once. If any events were dropped because
+ * the channel was full, a warning saying how many is posted in their place.
+ */
 public final class LoggingThread extends Thread {
-    private final BlockingQueue<LogEvent> queue;
+    private static final int BATCH_SIZE = 256;
+
+    private final LogChannel channel;
     private static final Logger logger = org.apache.logging.log4j.LogManager.getLogger(LoggingThread.class);
 
-    public LoggingThread(BlockingQueue<LogEvent> queue) {
-        this.queue = queue;
-        this.setName("ATL-Logging-Thread");
+    public LoggingThread(LogChannel channel, String name) {
+        this.channel = channel;
+        this.setName(name);
     }
 
     @Override
     public void run() {
+        this.channel.setConsumer(this);
+
+        List<LogEvent> batch = new ArrayList<>(BATCH_SIZE);
+
         while (true) {
-            LogEvent next;
             try {
-                next = this.queue.take();
+                this.channel.take(batch, BATCH_SIZE);
             } catch (InterruptedException ignored) {
                 Thread.currentThread().interrupt();
                 return;
+            } finally {
+                reportDropped();
             }
-            if (next != null) {
-                next.post(logger);
+
+            for (LogEvent next : batch) {
+                try {
+                    next.post(logger);
+                } catch (Throwable t) {
+                    // can't log this through the logger, since that's what failed
+                    System.err.println("Failed to post log event: " + t);
+                }
             }
+
+            batch.clear();
         }
     }
 
+    private void reportDropped() {
+        long dropped = this.channel.takeDropped();
+
+        if (dropped != 0L) {
+            PerformanceManager.increment("log.dropped." + this.channel.getName(), dropped);
+            new LogEvent(LogType.WARN, dropped + " " + this.channel.getName()
+                    + " log messages were dropped because too many were logged at once").post(logger);
+        }
+    }
 }
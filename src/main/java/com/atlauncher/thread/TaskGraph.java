@@ -0,0 +1,197 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.thread;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.atlauncher.managers.LogManager;
+
+/**
+ * Runs a set of named tasks, each of which only starts once the tasks it
+ * depends on have finished, so tasks that don't depend on each other run at the
+ * same time.
+ *
+ * Once everything has finished the critical path (the chain of tasks that
+ * decided how long the whole graph took) is logged.
+ */
+public final class TaskGraph {
+    private final String name;
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private final AtomicInteger threadCount = new AtomicInteger(0);
+    private ExecutorService executor = null;
+    private long startedAt;
+
+    public TaskGraph(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Adds a task which will run once all the given tasks have finished. The tasks
+     * it depends on must have been added already, which also means there can't be
+     * any cycles.
+     */
+    public synchronized TaskGraph add(String name, Runnable work, String... dependsOn) {
+        if (this.executor != null) {
+            throw new IllegalStateException("Cannot add task " + name + " to " + this.name + " once it's started");
+        }
+
+        if (this.tasks.containsKey(name)) {
+            throw new IllegalArgumentException("Task " + name + " has already been added to " + this.name);
+        }
+
+        List<Task> dependencies = new LinkedList<>();
+        for (String dependency : dependsOn) {
+            if (!this.tasks.containsKey(dependency)) {
+                throw new IllegalArgumentException(
+                        "Task " + name + " depends on " + dependency + " which hasn't been added to " + this.name);
+            }
+
+            dependencies.add(this.tasks.get(dependency));
+        }
+
+        this.tasks.put(name, new Task(name, work, dependencies));
+
+        return this;
+    }
+
+    /**
+     * Starts running all the tasks. A task that throws is logged and counted as
+     * finished, so the tasks depending on it still run.
+     */
+    public synchronized TaskGraph start() {
+        if (this.executor != null) {
+            return this;
+        }
+
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, this.name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.startedAt = System.nanoTime();
+
+        for (Task task : this.tasks.values()) {
+            CompletableFuture<?>[] dependencies = task.dependencies.stream().map(dependency -> dependency.future)
+                    .toArray(CompletableFuture[]::new);
+
+            CompletableFuture.allOf(dependencies).thenRunAsync(task::run, this.executor)
+                    .whenComplete((result, throwable) -> task.future.complete(null));
+        }
+
+        CompletableFuture.allOf(this.tasks.values().stream().map(task -> task.future)
+                .toArray(CompletableFuture[]::new)).whenComplete((result, throwable) -> {
+                    this.executor.shutdown();
+                    LogManager.debug(this.name + " finished in " + toMillis(System.nanoTime() - this.startedAt)
+                            + " ms, critical path was " + this.getCriticalPathDescription());
+                });
+
+        return this;
+    }
+
+    /**
+     * Waits for the given tasks (and so everything they depend on) to finish.
+     */
+    public void await(String... names) {
+        CompletableFuture.allOf(Arrays.stream(names).map(name -> {
+            Task task = this.tasks.get(name);
+
+            if (task == null) {
+                throw new IllegalArgumentException("Task " + name + " hasn't been added to " + this.name);
+            }
+
+            return task.future;
+        }).toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Waits for every task to finish.
+     */
+    public void awaitAll() {
+        this.await(this.tasks.keySet().toArray(new String[0]));
+    }
+
+    /**
+     * Gets the names of the tasks on the critical path, which is worked out by
+     * starting at the task that finished last and following back whichever of
+     * it's dependencies finished last.
+     */
+    public List<String> getCriticalPath() {
+        List<String> path = new LinkedList<>();
+
+        Task task = this.tasks.values().stream().filter(t -> t.finishedAt != 0L)
+                .max(Comparator.comparingLong(t -> t.finishedAt)).orElse(null);
+
+        while (task != null) {
+            path.add(task.name);
+            task = task.dependencies.stream().max(Comparator.comparingLong(t -> t.finishedAt)).orElse(null);
+        }
+
+        Collections.reverse(path);
+
+        return path;
+    }
+
+    private String getCriticalPathDescription() {
+        return this.getCriticalPath().stream().map(this.tasks::get)
+                .map(task -> task.name + " (" + toMillis(task.finishedAt - task.startedAt) + " ms)")
+                .collect(Collectors.joining(" -> "));
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000L;
+    }
+
+    private static final class Task {
+        private final String name;
+        private final Runnable work;
+        private final List<Task> dependencies;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile long startedAt = 0L;
+        private volatile long finishedAt = 0L;
+
+        private Task(String name, Runnable work, List<Task> dependencies) {
+            this.name = name;
+            this.work = work;
+            this.dependencies = dependencies;
+        }
+
+        private void run() {
+            this.startedAt = System.nanoTime();
+
+            try {
+                this.work.run();
+            } catch (Throwable t) {
+                LogManager.logStackTrace("Error running task " + this.name, t);
+            } finally {
+                this.finishedAt = System.nanoTime();
+                LogManager.debug("Task " + this.name + " took " + toMillis(this.finishedAt - this.startedAt) + " ms");
+            }
+        }
+    }
+}
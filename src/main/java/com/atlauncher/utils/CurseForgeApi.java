@@ -32,6 +32,7 @@ import com.atlauncher.data.curseforge.CurseForgeFingerprint;
 import com.atlauncher.data.curseforge.CurseForgeProject;
 import com.atlauncher.managers.LogManager;
 import com.atlauncher.network.Download;
+import com.atlauncher.network.DownloadScheduler;
 import com.google.gson.reflect.TypeToken;
 
 import okhttp3.CacheControl;
@@ -108,8 +109,12 @@ public class CurseForgeApi {
     }
 
     public static CurseForgeProject getProjectById(int modId) {
+        return getProjectById(modId, DownloadScheduler.Priority.INSTALL);
+    }
+
+    public static CurseForgeProject getProjectById(int modId, DownloadScheduler.Priority priority) {
         return Download.build().setUrl(String.format("%s/addon/%d", Constants.CURSEFORGE_API_URL, modId))
-                .cached(new CacheControl.Builder().maxStale(10, TimeUnit.MINUTES).build())
+                .cached(new CacheControl.Builder().maxStale(10, TimeUnit.MINUTES).build()).withPriority(priority)
                 .asClass(CurseForgeProject.class);
     }
 
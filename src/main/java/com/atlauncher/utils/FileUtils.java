@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.stream.Stream;
 
 import com.atlauncher.managers.LogManager;
@@ -141,6 +142,46 @@ public class FileUtils {
         return true;
     }
 
+    /**
+     * Makes the file at to have the contents of the file at from, using a hard link
+     * so no data needs to be copied, or a copy if a link can't be made (such as
+     * when they're on different drives). If to is already a link to from, or a copy
+     * of it that hasn't been touched since, then nothing is done.
+     */
+    public static boolean linkFile(Path from, Path to) {
+        if (!Files.isRegularFile(from)) {
+            LogManager.error("File " + from + " cannot be linked to " + to + " as it isn't a file!");
+            return false;
+        }
+
+        try {
+            if (Files.exists(to)) {
+                if (Files.isSameFile(from, to)) {
+                    return true;
+                }
+
+                BasicFileAttributes fromAttributes = Files.readAttributes(from, BasicFileAttributes.class);
+                BasicFileAttributes toAttributes = Files.readAttributes(to, BasicFileAttributes.class);
+
+                if (toAttributes.isRegularFile() && fromAttributes.size() == toAttributes.size()
+                        && fromAttributes.lastModifiedTime().equals(toAttributes.lastModifiedTime())) {
+                    return true;
+                }
+
+                FileUtils.delete(to);
+            } else if (!Files.exists(to.getParent())) {
+                FileUtils.createDirectory(to.getParent());
+            }
+
+            Files.createLink(to, from);
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            LogManager.debug("Couldn't link file " + from + " to " + to + ", copying instead: " + e.getMessage());
+        }
+
+        return copyFile(from, to, true);
+    }
+
     public static boolean moveFile(Path from, Path to) {
         return moveFile(from, to, false);
     }
@@ -25,21 +25,23 @@ import java.io.InputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Map;
 
 import com.atlauncher.collection.Caching;
 import com.atlauncher.managers.LogManager;
-import com.sangupta.murmur.Murmur2;
-
-import org.apache.commons.lang3.ArrayUtils;
 
 public final class Hashing {
     private static final char[] hex = "0123456789abcdef".toCharArray();
+    private static final long UINT_MASK = 0xFFFFFFFFL;
+    private static final ThreadLocal<byte[]> murmurBuffer = ThreadLocal.withInitial(() -> new byte[64 * 1024]);
     private static final SoftReference<Caching.Cache<Object, HashCode>> hashcodes = new SoftReference<>(
             Caching.newLRU());
 
@@ -56,14 +58,96 @@ public final class Hashing {
         }
     }
 
+    /**
+     * Computes the CurseForge fingerprint of a file. This is a Murmur2 hash (with
+     * a seed of 1) of the file with all whitespace bytes (tab, new line, carriage
+     * return and space) removed.
+     *
+     * Since Murmur2 needs the length of the input before hashing any of it, the
+     * file is streamed through twice with a reused buffer, once to count the
+     * non whitespace bytes and once to hash them, rather than being read into
+     * memory and copied.
+     */
     public static long murmur(Path to) throws IOException {
-        byte[] bytes = ArrayUtils
-                .removeAllOccurrences(ArrayUtils.removeAllOccurrences(
-                        ArrayUtils.removeAllOccurrences(
-                                ArrayUtils.removeAllOccurrences(Files.readAllBytes(to), (byte) 9), (byte) 10),
-                        (byte) 13), (byte) 32);
+        byte[] buffer = murmurBuffer.get();
+
+        try (FileChannel channel = FileChannel.open(to, StandardOpenOption.READ)) {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            long length = 0;
+
+            int read;
+            while ((read = channel.read(byteBuffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (!isMurmurWhitespace(buffer[i])) {
+                        length++;
+                    }
+                }
+
+                byteBuffer.clear();
+            }
+
+            channel.position(0);
+
+            final long m = 0x5bd1e995L;
+            final int r = 24;
+
+            long h = (1L ^ (int) length) & UINT_MASK;
+            long k = 0;
+            int pending = 0;
+            byte[] tail = new byte[3];
+
+            while ((read = channel.read(byteBuffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+
+                    if (isMurmurWhitespace(b)) {
+                        continue;
+                    }
+
+                    if (pending < 3) {
+                        tail[pending] = b;
+                    }
+
+                    k |= (long) (b & 0xFF) << (pending * 8);
+
+                    if (++pending == 4) {
+                        k = (k * m) & UINT_MASK;
+                        k ^= (k >>> r) & UINT_MASK;
+                        k = (k * m) & UINT_MASK;
+
+                        h = (h * m) & UINT_MASK;
+                        h = (h ^ k) & UINT_MASK;
+
+                        k = 0;
+                        pending = 0;
+                    }
+                }
+
+                byteBuffer.clear();
+            }
+
+            // this mirrors the tail handling (including the sign extension of the bytes)
+            // of com.sangupta.murmur.Murmur2 so that the results are identical
+            switch (pending) {
+                case 3:
+                    h ^= ((tail[2] << 16) & UINT_MASK);
+                case 2:
+                    h ^= ((tail[1] << 8) & UINT_MASK);
+                case 1:
+                    h ^= (tail[0] & UINT_MASK);
+                    h = (h * m) & UINT_MASK;
+            }
+
+            h ^= (h >>> 13) & UINT_MASK;
+            h = (h * m) & UINT_MASK;
+            h ^= (h >>> 15) & UINT_MASK;
+
+            return h;
+        }
+    }
 
-        return Murmur2.hash(bytes, bytes.length, 1L);
+    private static boolean isMurmurWhitespace(byte b) {
+        return b == 9 || b == 10 || b == 13 || b == 32;
     }
 
     private static HashCode md5Internal(String str) {
@@ -349,6 +433,14 @@ public final class Hashing {
             }
         }
 
+        public static HashCode fromBytes(byte[] bytes) {
+            if (bytes == null || bytes.length == 0) {
+                return EMPTY;
+            }
+
+            return new HashCode(bytes);
+        }
+
         private static HashCode fromStringInternal(String str) {
             if (str == null || str.isEmpty()) {
                 return EMPTY;
@@ -60,7 +60,7 @@ public class ImportPackUtils {
 
             Path tmpDir = FileSystem.TEMP.resolve("multimcimport" + file.getName().toString().toLowerCase());
 
-            ZipUtil.unpack(file, tmpDir.toFile());
+            ParallelZip.unpack(file.toPath(), tmpDir);
 
             if (tmpDir.toFile().list().length == 1
                     && ZipUtil.containsEntry(file, tmpDir.toFile().list()[0] + "/mmc-pack.json")) {
@@ -108,7 +108,7 @@ public class ImportPackUtils {
                 return false;
             }
 
-            ZipUtil.unpack(file, tmpDir.toFile());
+            ParallelZip.unpack(file.toPath(), tmpDir);
 
             new InstanceInstallerDialog(manifest, tmpDir);
         } catch (Exception e) {
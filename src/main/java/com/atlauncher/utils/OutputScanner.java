@@ -0,0 +1,265 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+/**
+ * Looks for a set of strings in lines of text in a single pass, using the
+ * Aho-Corasick algorithm, so the time taken doesn't grow with the number of
+ * strings being looked for.
+ *
+ * Each string is either a signature to detect, which reports it's code when
+ * found, or something to redact, which is replaced in the returned line. Lines
+ * with nothing to redact are returned as is, without anything being allocated.
+ *
+ * Build one with {@link #builder()} once (such as per launch) and use it for
+ * every line.
+ */
+public final class OutputScanner {
+    private static final char[] NO_CHARS = new char[0];
+    private static final int[] NO_INTS = new int[0];
+
+    // the trie, where node 0 is the root and each node's children are sorted by
+    // character
+    private final char[][] childChars;
+    private final int[][] childNodes;
+    private final int[] failures;
+
+    // the patterns ending at each node, including those ending at any of it's
+    // failure nodes
+    private final int[][] outputs;
+
+    private final int[] patternLengths;
+    private final int[] patternCodes;
+    private final String[] patternReplacements;
+
+    private OutputScanner(Builder builder) {
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        List<Pattern> patterns = builder.patterns;
+        int patternCount = patterns.size();
+        this.patternLengths = new int[patternCount];
+        this.patternCodes = new int[patternCount];
+        this.patternReplacements = new String[patternCount];
+
+        for (int i = 0; i < patternCount; i++) {
+            Pattern pattern = patterns.get(i);
+            this.patternLengths[i] = pattern.text.length();
+            this.patternCodes[i] = pattern.code;
+            this.patternReplacements[i] = pattern.replacement;
+
+            int node = 0;
+            for (char c : pattern.text.toCharArray()) {
+                Integer next = children.get(node).get(c);
+
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(c, next);
+                    children.add(new TreeMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                }
+
+                node = next;
+            }
+
+            nodeOutputs.get(node).add(i);
+        }
+
+        int nodeCount = children.size();
+        this.childChars = new char[nodeCount][];
+        this.childNodes = new int[nodeCount][];
+        this.failures = new int[nodeCount];
+        this.outputs = new int[nodeCount][];
+
+        for (int node = 0; node < nodeCount; node++) {
+            TreeMap<Character, Integer> nodeChildren = children.get(node);
+            this.childChars[node] = nodeChildren.isEmpty() ? NO_CHARS : new char[nodeChildren.size()];
+            this.childNodes[node] = nodeChildren.isEmpty() ? NO_INTS : new int[nodeChildren.size()];
+
+            int index = 0;
+            for (Map.Entry<Character, Integer> child : nodeChildren.entrySet()) {
+                this.childChars[node][index] = child.getKey();
+                this.childNodes[node][index] = child.getValue();
+                index++;
+            }
+        }
+
+        // work out the failure links breadth first, so a node's failure node (which is
+        // always shallower) is done before it
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : this.childNodes[0]) {
+            queue.add(child);
+        }
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+
+            for (int i = 0; i < this.childChars[node].length; i++) {
+                char c = this.childChars[node][i];
+                int child = this.childNodes[node][i];
+
+                int failure = this.failures[node];
+                while (failure != 0 && this.getChild(failure, c) == -1) {
+                    failure = this.failures[failure];
+                }
+
+                int failureChild = this.getChild(failure, c);
+                this.failures[child] = failureChild == -1 ? 0 : failureChild;
+
+                nodeOutputs.get(child).addAll(nodeOutputs.get(this.failures[child]));
+                queue.add(child);
+            }
+        }
+
+        for (int node = 0; node < nodeCount; node++) {
+            List<Integer> nodeOutput = nodeOutputs.get(node);
+            this.outputs[node] = nodeOutput.isEmpty() ? NO_INTS
+                    : nodeOutput.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private int getChild(int node, char c) {
+        int index = Arrays.binarySearch(this.childChars[node], c);
+
+        return index < 0 ? -1 : this.childNodes[node][index];
+    }
+
+    /**
+     * Scans the given line, passing the code of every signature found to the
+     * given consumer and returning the line with anything to be redacted
+     * replaced. If there was nothing to redact, the same line is returned.
+     */
+    public String scan(String line, IntConsumer detected) {
+        List<int[]> redactions = null;
+        int node = 0;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            int next = this.getChild(node, c);
+            while (next == -1 && node != 0) {
+                node = this.failures[node];
+                next = this.getChild(node, c);
+            }
+            node = next == -1 ? 0 : next;
+
+            for (int pattern : this.outputs[node]) {
+                if (this.patternReplacements[pattern] == null) {
+                    detected.accept(this.patternCodes[pattern]);
+                } else {
+                    if (redactions == null) {
+                        redactions = new ArrayList<>();
+                    }
+
+                    redactions.add(new int[] { i + 1 - this.patternLengths[pattern], i + 1, pattern });
+                }
+            }
+        }
+
+        if (redactions == null) {
+            return line;
+        }
+
+        return this.redact(line, redactions);
+    }
+
+    /**
+     * Replaces the given matches in the line, preferring the leftmost and then the
+     * longest where they overlap.
+     */
+    private String redact(String line, List<int[]> redactions) {
+        redactions.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(b[1], a[1]));
+
+        StringBuilder redacted = new StringBuilder(line.length());
+        int position = 0;
+
+        for (int[] redaction : redactions) {
+            if (redaction[0] < position) {
+                continue;
+            }
+
+            redacted.append(line, position, redaction[0]).append(this.patternReplacements[redaction[2]]);
+            position = redaction[1];
+        }
+
+        return redacted.append(line, position, line.length()).toString();
+    }
+
+    public static final class Builder {
+        private final List<Pattern> patterns = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Reports the given code whenever the given text is found.
+         */
+        public Builder detect(String text, int code) {
+            if (text != null && !text.isEmpty() && this.patterns.stream()
+                    .noneMatch(p -> p.replacement == null && p.code == code && p.text.equals(text))) {
+                this.patterns.add(new Pattern(text, code, null));
+            }
+
+            return this;
+        }
+
+        /**
+         * Replaces the given text with the replacement whenever it's found. Empty or
+         * null text is ignored, as there's nothing to redact.
+         */
+        public Builder redact(String text, String replacement) {
+            if (text != null && !text.isEmpty()
+                    && this.patterns.stream().noneMatch(p -> p.replacement != null && p.text.equals(text))) {
+                this.patterns.add(new Pattern(text, 0, replacement));
+            }
+
+            return this;
+        }
+
+        public OutputScanner build() {
+            return new OutputScanner(this);
+        }
+    }
+
+    private static final class Pattern {
+        private final String text;
+        private final int code;
+        private final String replacement;
+
+        private Pattern(String text, int code, String replacement) {
+            this.text = text;
+            this.code = code;
+            this.replacement = replacement;
+        }
+    }
+}
@@ -0,0 +1,739 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.atlauncher.App;
+import com.atlauncher.managers.LogManager;
+import com.atlauncher.managers.PerformanceManager;
+
+import org.zeroturnaround.zip.NameMapper;
+
+/**
+ * Creates and extracts zip files using every core, for exports and backups of
+ * instances which can be many gigabytes and modpacks with tens of thousands of
+ * files.
+ *
+ * When creating a zip, files are split into blocks which are deflated in
+ * parallel, each continuing on from the block before it (like pigz does), and
+ * then written out in order by a single thread. Files which are already
+ * compressed (such as jars and pngs) are stored rather than deflated again.
+ *
+ * The zip is written directly rather than with
+ * {@link java.util.zip.ZipOutputStream} since that can't write data that's
+ * already been deflated. Zip64 is used for anything over 4 GB.
+ *
+ * When extracting a zip, it's opened once and the directories are all created
+ * up front, then the files are extracted in parallel, biggest first.
+ */
+public final class ParallelZip {
+    private static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int MAX_BLOCKS_IN_FLIGHT = Runtime.getRuntime().availableProcessors() * 4;
+
+    /**
+     * Files bigger than this have their local header say that their sizes are in
+     * zip64 format, since once deflated they may end up bigger than 4 GB.
+     */
+    private static final long ZIP64_LOCAL_THRESHOLD = 0xFFFFFFFFL - 64L * 1024L * 1024L;
+    private static final long ZIP32_MAX = 0xFFFFFFFFL;
+    private static final int ZIP16_MAX = 0xFFFF;
+
+    private static final Set<String> STORED_EXTENSIONS = new HashSet<>(
+            Arrays.asList("jar", "zip", "png", "jpg", "jpeg", "gif", "ogg", "mp3", "gz", "xz", "7z", "litemod"));
+
+    private static final AtomicInteger threadCount = new AtomicInteger(0);
+    private static final ExecutorService executor = Executors
+            .newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+                Thread thread = new Thread(runnable, "ParallelZip-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private static final ThreadLocal<Deflater> deflaters = ThreadLocal.withInitial(() -> new Deflater(6, true));
+    private static final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[256 * 1024]);
+
+    /**
+     * Zips up everything in the given directory.
+     */
+    public static boolean pack(Path root, Path zip) {
+        return pack(root, zip, name -> name);
+    }
+
+    /**
+     * Zips up everything in the given directory which the given name mapper
+     * returns a name for, using the compression level in the settings.
+     */
+    public static boolean pack(Path root, Path zip, NameMapper nameMapper) {
+        return pack(root, zip, nameMapper, App.settings == null ? 6 : App.settings.zipCompressionLevel);
+    }
+
+    /**
+     * Zips up everything in the given directory which the given name mapper
+     * returns a name for, with the given compression level (0 to 9). Returns false
+     * and logs the error if something went wrong, in which case no zip is left
+     * behind.
+     */
+    public static boolean pack(Path root, Path zip, NameMapper nameMapper, int level) {
+        Path tempFile = zip.resolveSibling(zip.getFileName().toString() + ".tmp");
+
+        try (PerformanceManager.Span span = PerformanceManager.span("zip.pack")) {
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(root)) {
+                paths = walk.filter(path -> !path.equals(root)).sorted().collect(Collectors.toList());
+            }
+
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tempFile), 65536)) {
+                Writer writer = new Writer(outputStream, level);
+
+                for (Path path : paths) {
+                    String name = root.relativize(path).toString().replace('\\', '/');
+                    boolean directory = Files.isDirectory(path);
+
+                    if (directory) {
+                        name += "/";
+                    }
+
+                    String mappedName = nameMapper.map(name);
+                    if (mappedName != null) {
+                        writer.add(path, mappedName, directory);
+                    }
+                }
+
+                writer.finish();
+                span.tag("entries", writer.entries.size()).tag("bytes", writer.offset);
+            }
+
+            Files.move(tempFile, zip, StandardCopyOption.REPLACE_EXISTING);
+
+            return true;
+        } catch (Exception e) {
+            LogManager.logStackTrace("Failed to zip " + root + " to " + zip, e, false);
+            FileUtils.delete(tempFile);
+
+            return false;
+        }
+    }
+
+    /**
+     * Extracts everything in the given zip into the given directory.
+     */
+    public static void unpack(Path zip, Path to) throws IOException {
+        unpack(zip, to, name -> name);
+    }
+
+    /**
+     * Extracts everything in the given zip which the given name mapper returns a
+     * name for into the given directory, under the name it returned. If more than
+     * one entry maps to the same name, the last one in the zip wins.
+     */
+    public static void unpack(Path zip, Path to, NameMapper nameMapper) throws IOException {
+        Path root = to.toAbsolutePath().normalize();
+
+        try (PerformanceManager.Span span = PerformanceManager.span("zip.unpack");
+                ZipFile zipFile = new ZipFile(zip.toFile())) {
+            Set<Path> directories = new HashSet<>();
+            Map<Path, ZipEntry> files = new LinkedHashMap<>();
+            directories.add(root);
+
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = nameMapper.map(entry.getName());
+
+                if (name == null) {
+                    continue;
+                }
+
+                Path target = root.resolve(name).normalize();
+                if (!target.startsWith(root)) {
+                    throw new IOException(
+                            "Entry " + entry.getName() + " in " + zip + " would be extracted outside of " + root);
+                }
+
+                if (entry.isDirectory()) {
+                    directories.add(target);
+                } else {
+                    directories.add(target.getParent());
+                    files.remove(target);
+                    files.put(target, entry);
+                }
+            }
+
+            for (Path directory : directories) {
+                Files.createDirectories(directory);
+            }
+
+            // biggest first, so one big file isn't left extracting on it's own at the end
+            List<Future<?>> futures = files.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue().getSize(), a.getValue().getSize()))
+                    .map(file -> executor.submit(() -> {
+                        extract(zipFile, file.getValue(), file.getKey());
+                        return null;
+                    })).collect(Collectors.toList());
+
+            waitFor(futures);
+
+            span.tag("entries", files.size());
+        }
+    }
+
+    private static void extract(ZipFile zipFile, ZipEntry entry, Path target) throws IOException {
+        byte[] buffer = buffers.get();
+
+        try (InputStream inputStream = zipFile.getInputStream(entry);
+                OutputStream outputStream = Files.newOutputStream(target)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Waits for all the given tasks to finish, throwing the first error any of
+     * them had. Once one has failed the rest are cancelled, but any already
+     * running are still waited for so that nothing is left using the zip once it's
+     * closed.
+     */
+    private static void waitFor(List<Future<?>> futures) throws IOException {
+        Throwable error = null;
+
+        for (Future<?> future : futures) {
+            if (error != null) {
+                future.cancel(false);
+            }
+
+            try {
+                future.get();
+            } catch (CancellationException e) {
+                // only cancelled once something else has already failed
+            } catch (ExecutionException e) {
+                if (error == null) {
+                    error = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(false));
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while extracting");
+            }
+        }
+
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+
+        if (error != null) {
+            throw new IOException(error);
+        }
+    }
+
+    private static boolean shouldStore(String name) {
+        int dot = name.lastIndexOf('.');
+
+        return dot != -1 && STORED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ENGLISH));
+    }
+
+    /**
+     * Deflates a block of a file. Every block but the last is ended with a sync
+     * flush so the next block's output can follow straight on from it, and uses
+     * the end of the previous block as it's dictionary so that compression is
+     * about as good as deflating the whole file in one go.
+     */
+    private static byte[] deflate(byte[] data, int length, byte[] dictionary, boolean last, int level) {
+        Deflater deflater = deflaters.get();
+        deflater.reset();
+        deflater.setLevel(level);
+
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary, Math.max(0, dictionary.length - DICTIONARY_SIZE),
+                    Math.min(dictionary.length, DICTIONARY_SIZE));
+        }
+
+        deflater.setInput(data, 0, length);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, length / 2));
+        byte[] buffer = new byte[65536];
+
+        if (last) {
+            deflater.finish();
+
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } else {
+            while (!deflater.needsInput()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+
+            int written;
+            do {
+                written = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                output.write(buffer, 0, written);
+            } while (written == buffer.length);
+        }
+
+        return output.toByteArray();
+    }
+
+    private static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[65536];
+
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    private static long toDosTime(long time) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+
+        int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+
+        return ((long) (year - 1980) << 25) | ((long) (calendar.get(Calendar.MONTH) + 1) << 21)
+                | ((long) calendar.get(Calendar.DAY_OF_MONTH) << 16) | ((long) calendar.get(Calendar.HOUR_OF_DAY) << 11)
+                | ((long) calendar.get(Calendar.MINUTE) << 5) | ((long) calendar.get(Calendar.SECOND) >> 1);
+    }
+
+    /**
+     * Writes out the zip, with the work of compressing files queued up on the
+     * executor ahead of being written so that all the cores are kept busy.
+     */
+    private static final class Writer {
+        private static final int METHOD_STORED = 0;
+        private static final int METHOD_DEFLATED = 8;
+        private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+        private static final int FLAG_UTF8 = 1 << 11;
+
+        private final OutputStream output;
+        private final int level;
+        private final Deque<Step> steps = new ArrayDeque<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private int blocksInFlight = 0;
+        private long offset = 0L;
+
+        private Writer(OutputStream output, int level) {
+            this.output = output;
+            this.level = Math.max(0, Math.min(9, level));
+        }
+
+        private void add(Path path, String name, boolean directory) throws IOException, InterruptedException {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+            Entry entry = new Entry();
+            entry.name = name.getBytes(StandardCharsets.UTF_8);
+            entry.dosTime = toDosTime(attributes.lastModifiedTime().toMillis());
+
+            if (directory) {
+                entry.method = METHOD_STORED;
+                this.steps.add(new Step(entry, StepType.STORED_FILE, null));
+                this.drain(false);
+                return;
+            }
+
+            entry.size = attributes.size();
+
+            if (this.level == 0 || shouldStore(name)) {
+                entry.method = METHOD_STORED;
+                Future<Long> crc = executor.submit(() -> crc(path));
+                this.steps.add(new Step(entry, StepType.STORED_FILE, crc));
+                entry.path = path;
+                this.blocksInFlight++;
+                this.drain(false);
+                return;
+            }
+
+            entry.method = METHOD_DEFLATED;
+            entry.zip64 = entry.size >= ZIP64_LOCAL_THRESHOLD;
+            this.steps.add(new Step(entry, StepType.START, null));
+
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                byte[] previous = null;
+                byte[] block = new byte[BLOCK_SIZE];
+                int length = readFully(inputStream, block);
+
+                while (true) {
+                    // read the next block ahead, since that's the only way to know if this one
+                    // is the last
+                    byte[] next = null;
+                    int nextLength = 0;
+                    if (length == BLOCK_SIZE) {
+                        next = new byte[BLOCK_SIZE];
+                        nextLength = readFully(inputStream, next);
+                    }
+
+                    boolean last = nextLength == 0;
+                    byte[] data = block;
+                    int dataLength = length;
+                    byte[] dictionary = previous;
+
+                    Step step = new Step(entry, StepType.BLOCK,
+                            executor.submit(() -> deflate(data, dataLength, dictionary, last, this.level)));
+                    step.data = data;
+                    step.length = dataLength;
+                    this.steps.add(step);
+                    this.blocksInFlight++;
+                    this.drain(false);
+
+                    if (last) {
+                        break;
+                    }
+
+                    previous = block;
+                    block = next;
+                    length = nextLength;
+                }
+            }
+
+            this.steps.add(new Step(entry, StepType.END, null));
+            this.drain(false);
+        }
+
+        private void finish() throws IOException, InterruptedException {
+            this.drain(true);
+
+            long centralDirectoryOffset = this.offset;
+            for (Entry entry : this.entries) {
+                this.writeCentralDirectoryHeader(entry);
+            }
+            long centralDirectorySize = this.offset - centralDirectoryOffset;
+
+            this.writeEnd(centralDirectoryOffset, centralDirectorySize);
+        }
+
+        /**
+         * Writes out the finished steps in order, waiting for them if everything
+         * should be written or there's too many blocks being compressed.
+         */
+        private void drain(boolean all) throws IOException, InterruptedException {
+            while (!this.steps.isEmpty()) {
+                Step step = this.steps.peekFirst();
+
+                if (!all && this.blocksInFlight < MAX_BLOCKS_IN_FLIGHT
+                        && (step.future != null && !step.future.isDone())) {
+                    return;
+                }
+
+                this.steps.removeFirst();
+                this.write(step);
+            }
+        }
+
+        private void write(Step step) throws IOException, InterruptedException {
+            Entry entry = step.entry;
+
+            try {
+                switch (step.type) {
+                    case STORED_FILE: {
+                        if (step.future != null) {
+                            this.blocksInFlight--;
+                            entry.crc = (Long) step.future.get();
+                        }
+
+                        entry.compressedSize = entry.size;
+                        entry.zip64 = entry.size >= ZIP32_MAX;
+                        this.writeLocalHeader(entry, false);
+
+                        if (entry.path != null) {
+                            long copied = Files.copy(entry.path, this.output);
+                            if (copied != entry.size) {
+                                throw new IOException(entry.path + " changed while being zipped");
+                            }
+                            this.offset += copied;
+                        }
+
+                        this.entries.add(entry);
+                        break;
+                    }
+                    case START: {
+                        entry.crc32 = new CRC32();
+                        this.writeLocalHeader(entry, true);
+                        break;
+                    }
+                    case BLOCK: {
+                        this.blocksInFlight--;
+                        byte[] deflated = (byte[]) step.future.get();
+
+                        entry.crc32.update(step.data, 0, step.length);
+                        entry.uncompressedWritten += step.length;
+                        this.output.write(deflated);
+                        this.offset += deflated.length;
+                        entry.compressedSize += deflated.length;
+                        break;
+                    }
+                    case END: {
+                        entry.crc = entry.crc32.getValue();
+                        entry.size = entry.uncompressedWritten;
+                        this.writeDataDescriptor(entry);
+                        this.entries.add(entry);
+                        break;
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            }
+        }
+
+        private void writeLocalHeader(Entry entry, boolean dataDescriptor) throws IOException {
+            entry.localHeaderOffset = this.offset;
+
+            byte[] extra = new byte[0];
+            if (entry.zip64) {
+                ByteArrayOutputStream zip64 = new ByteArrayOutputStream();
+                writeShort(zip64, 0x0001);
+                writeShort(zip64, 16);
+                writeLong(zip64, dataDescriptor ? 0L : entry.size);
+                writeLong(zip64, dataDescriptor ? 0L : entry.compressedSize);
+                extra = zip64.toByteArray();
+            }
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream(30 + entry.name.length + extra.length);
+            writeInt(header, 0x04034b50L);
+            writeShort(header, entry.zip64 ? 45 : 20);
+            writeShort(header, FLAG_UTF8 | (dataDescriptor ? FLAG_DATA_DESCRIPTOR : 0));
+            writeShort(header, entry.method);
+            writeInt(header, entry.dosTime);
+            writeInt(header, dataDescriptor ? 0L : entry.crc);
+            writeInt(header, dataDescriptor ? 0L : (entry.zip64 ? ZIP32_MAX : entry.compressedSize));
+            writeInt(header, dataDescriptor ? 0L : (entry.zip64 ? ZIP32_MAX : entry.size));
+            writeShort(header, entry.name.length);
+            writeShort(header, extra.length);
+            header.write(entry.name);
+            header.write(extra);
+
+            this.writeBytes(header.toByteArray());
+        }
+
+        private void writeDataDescriptor(Entry entry) throws IOException {
+            ByteArrayOutputStream descriptor = new ByteArrayOutputStream(24);
+            writeInt(descriptor, 0x08074b50L);
+            writeInt(descriptor, entry.crc);
+
+            if (entry.zip64) {
+                writeLong(descriptor, entry.compressedSize);
+                writeLong(descriptor, entry.size);
+            } else {
+                if (entry.compressedSize >= ZIP32_MAX || entry.size >= ZIP32_MAX) {
+                    throw new IOException("Entry " + new String(entry.name, StandardCharsets.UTF_8)
+                            + " ended up bigger than expected");
+                }
+
+                writeInt(descriptor, entry.compressedSize);
+                writeInt(descriptor, entry.size);
+            }
+
+            this.writeBytes(descriptor.toByteArray());
+        }
+
+        private void writeCentralDirectoryHeader(Entry entry) throws IOException {
+            boolean sizeZip64 = entry.size >= ZIP32_MAX || entry.compressedSize >= ZIP32_MAX;
+            boolean offsetZip64 = entry.localHeaderOffset >= ZIP32_MAX;
+
+            ByteArrayOutputStream extra = new ByteArrayOutputStream();
+            if (sizeZip64 || offsetZip64) {
+                writeShort(extra, 0x0001);
+                writeShort(extra, (sizeZip64 ? 16 : 0) + (offsetZip64 ? 8 : 0));
+
+                if (sizeZip64) {
+                    writeLong(extra, entry.size);
+                    writeLong(extra, entry.compressedSize);
+                }
+
+                if (offsetZip64) {
+                    writeLong(extra, entry.localHeaderOffset);
+                }
+            }
+
+            boolean zip64 = sizeZip64 || offsetZip64 || entry.zip64;
+            boolean dataDescriptor = entry.crc32 != null;
+
+            ByteArrayOutputStream header = new ByteArrayOutputStream(46 + entry.name.length + extra.size());
+            writeInt(header, 0x02014b50L);
+            writeShort(header, zip64 ? 45 : 20);
+            writeShort(header, zip64 ? 45 : 20);
+            writeShort(header, FLAG_UTF8 | (dataDescriptor ? FLAG_DATA_DESCRIPTOR : 0));
+            writeShort(header, entry.method);
+            writeInt(header, entry.dosTime);
+            writeInt(header, entry.crc);
+            writeInt(header, sizeZip64 ? ZIP32_MAX : entry.compressedSize);
+            writeInt(header, sizeZip64 ? ZIP32_MAX : entry.size);
+            writeShort(header, entry.name.length);
+            writeShort(header, extra.size());
+            writeShort(header, 0);
+            writeShort(header, 0);
+            writeShort(header, 0);
+            writeInt(header, 0L);
+            writeInt(header, offsetZip64 ? ZIP32_MAX : entry.localHeaderOffset);
+            header.write(entry.name);
+            extra.writeTo(header);
+
+            this.writeBytes(header.toByteArray());
+        }
+
+        private void writeEnd(long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+            int count = this.entries.size();
+            boolean zip64 = count >= ZIP16_MAX || centralDirectoryOffset >= ZIP32_MAX
+                    || centralDirectorySize >= ZIP32_MAX;
+
+            ByteArrayOutputStream end = new ByteArrayOutputStream(98);
+
+            if (zip64) {
+                long zip64EndOffset = this.offset;
+
+                writeInt(end, 0x06064b50L);
+                writeLong(end, 44L);
+                writeShort(end, 45);
+                writeShort(end, 45);
+                writeInt(end, 0L);
+                writeInt(end, 0L);
+                writeLong(end, count);
+                writeLong(end, count);
+                writeLong(end, centralDirectorySize);
+                writeLong(end, centralDirectoryOffset);
+
+                writeInt(end, 0x07064b50L);
+                writeInt(end, 0L);
+                writeLong(end, zip64EndOffset);
+                writeInt(end, 1L);
+            }
+
+            writeInt(end, 0x06054b50L);
+            writeShort(end, 0);
+            writeShort(end, 0);
+            writeShort(end, Math.min(count, ZIP16_MAX));
+            writeShort(end, Math.min(count, ZIP16_MAX));
+            writeInt(end, Math.min(centralDirectorySize, ZIP32_MAX));
+            writeInt(end, Math.min(centralDirectoryOffset, ZIP32_MAX));
+            writeShort(end, 0);
+
+            this.writeBytes(end.toByteArray());
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            this.output.write(bytes);
+            this.offset += bytes.length;
+        }
+    }
+
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+
+            if (read == -1) {
+                break;
+            }
+
+            total += read;
+        }
+
+        return total;
+    }
+
+    private static void writeShort(OutputStream output, int value) throws IOException {
+        output.write(value & 0xFF);
+        output.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(OutputStream output, long value) throws IOException {
+        writeShort(output, (int) (value & 0xFFFF));
+        writeShort(output, (int) ((value >>> 16) & 0xFFFF));
+    }
+
+    private static void writeLong(OutputStream output, long value) throws IOException {
+        writeInt(output, value & 0xFFFFFFFFL);
+        writeInt(output, value >>> 32);
+    }
+
+    private enum StepType {
+        STORED_FILE, START, BLOCK, END
+    }
+
+    private static final class Step {
+        private final Entry entry;
+        private final StepType type;
+        private final Future<?> future;
+        private byte[] data;
+        private int length;
+
+        private Step(Entry entry, StepType type, Future<?> future) {
+            this.entry = entry;
+            this.type = type;
+            this.future = future;
+        }
+    }
+
+    private static final class Entry {
+        private byte[] name;
+        private Path path;
+        private int method;
+        private long dosTime;
+        private long crc;
+        private CRC32 crc32;
+        private long size;
+        private long compressedSize;
+        private long uncompressedWritten;
+        private long localHeaderOffset;
+        private boolean zip64;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Passes a signed pack200 stream (as used by old versions of Forge for their
+ * libraries) through to the unpacker, while keeping hold of the last bytes read
+ * so that the checksums on the end can be read once it's done.
+ *
+ * The stream ends with the checksums, followed by their length as a 4 byte
+ * little endian int and then "SIGN". Only the last {@link #MAX_CHECKSUMS_SIZE}
+ * bytes are kept, so memory use doesn't grow with the size of the library.
+ */
+public final class SignedPackInputStream extends FilterInputStream {
+    public static final int MAX_CHECKSUMS_SIZE = 1024 * 1024;
+    private static final byte[] SIGNATURE = "SIGN".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] tail;
+    private final byte[] single = new byte[1];
+    private int position = 0;
+    private long total = 0L;
+
+    public SignedPackInputStream(InputStream in) {
+        this(in, MAX_CHECKSUMS_SIZE);
+    }
+
+    SignedPackInputStream(InputStream in, int maxChecksumsSize) {
+        super(in);
+        this.tail = new byte[maxChecksumsSize + 8];
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+
+        if (read != -1) {
+            this.single[0] = (byte) read;
+            this.remember(this.single, 0, 1);
+        }
+
+        return read;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+
+        if (read > 0) {
+            this.remember(b, off, read);
+        }
+
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // skipped bytes may be part of the checksums, so they still need to be seen
+        byte[] buffer = new byte[8192];
+        long skipped = 0L;
+
+        while (skipped < n) {
+            int read = this.read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+
+            if (read == -1) {
+                break;
+            }
+
+            skipped += read;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * The unpacker closes the stream it's given once it's done, but the rest of
+     * the stream is still needed for the checksums, so closing the underlying
+     * stream is left to whoever opened it.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Reads whatever's left of the stream and returns the checksums from the end
+     * of it, or null if the stream isn't signed.
+     */
+    public byte[] getChecksums() throws IOException {
+        byte[] buffer = new byte[8192];
+        while (this.read(buffer, 0, buffer.length) != -1) {
+            // read to the end so the checksums are in the tail
+        }
+
+        if (this.total < 8 || !Arrays.equals(this.getTail(4, 4), SIGNATURE)) {
+            return null;
+        }
+
+        byte[] lengthBytes = this.getTail(8, 4);
+        long length = (lengthBytes[0] & 0xFFL) | ((lengthBytes[1] & 0xFFL) << 8) | ((lengthBytes[2] & 0xFFL) << 16)
+                | ((lengthBytes[3] & 0xFFL) << 24);
+
+        if (length + 8 > this.total) {
+            throw new IOException("Checksums are " + length + " bytes long but the stream is only " + this.total);
+        }
+
+        if (length + 8 > this.tail.length) {
+            throw new IOException("Checksums are " + length + " bytes long which is more than the limit of "
+                    + (this.tail.length - 8));
+        }
+
+        return this.getTail((int) length + 8, (int) length);
+    }
+
+    private void remember(byte[] b, int off, int len) {
+        int capacity = this.tail.length;
+        this.total += len;
+
+        if (len >= capacity) {
+            System.arraycopy(b, off + len - capacity, this.tail, 0, capacity);
+            this.position = 0;
+            return;
+        }
+
+        int first = Math.min(len, capacity - this.position);
+        System.arraycopy(b, off, this.tail, this.position, first);
+        System.arraycopy(b, off + first, this.tail, 0, len - first);
+        this.position = (this.position + len) % capacity;
+    }
+
+    /**
+     * Gets the given number of bytes, starting the given number of bytes back
+     * from the end of what's been read.
+     */
+    private byte[] getTail(int fromEnd, int length) {
+        int capacity = this.tail.length;
+        int start = ((this.position - fromEnd) % capacity + capacity) % capacity;
+        byte[] bytes = new byte[length];
+
+        int first = Math.min(length, capacity - start);
+        System.arraycopy(this.tail, start, bytes, 0, first);
+        System.arraycopy(this.tail, 0, bytes, first, length - first);
+
+        return bytes;
+    }
+}
@@ -23,7 +23,6 @@ import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -54,7 +53,6 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.security.InvalidKeyException;
 import java.security.Key;
-import java.util.Arrays;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.Enumeration;
@@ -65,7 +63,6 @@ import java.util.jar.JarInputStream;
 import java.util.jar.JarOutputStream;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
 
 import javax.crypto.BadPaddingException;
@@ -85,11 +82,10 @@ import com.atlauncher.data.minecraft.FabricMod;
 import com.atlauncher.data.minecraft.MCMod;
 import com.atlauncher.data.openmods.OpenEyeReportResponse;
 import com.atlauncher.managers.LogManager;
-import com.google.gson.reflect.TypeToken;
+import com.atlauncher.managers.ModMetadataManager;
 
 import org.tukaani.xz.LZMAInputStream;
 import org.tukaani.xz.XZInputStream;
-import org.zeroturnaround.zip.ZipUtil;
 
 import io.pack200.Pack200;
 import net.iharder.Base64;
@@ -419,42 +415,15 @@ public class Utils {
      */
     public static void unzip(File in, File out, ExtractRule extractRule) {
         try {
-            ZipFile zipFile;
-            if (!out.exists()) {
-                out.mkdirs();
-            }
-            zipFile = new ZipFile(in);
-            Enumeration<?> e = zipFile.entries();
-            while (e.hasMoreElements()) {
-                ZipEntry entry = (ZipEntry) e.nextElement();
-                String entryName = entry.getName();
-                if (entry.getName().endsWith("aux.class")) {
-                    entryName = "aux_class";
-                }
-                if (extractRule != null && extractRule.shouldExclude(entryName)) {
-                    continue;
-                }
-                if (entry.isDirectory()) {
-                    File folder = new File(out, entryName);
-                    folder.mkdirs();
-                }
-                File destinationFilePath = new File(out, entryName);
-                destinationFilePath.getParentFile().mkdirs();
-                if (!entry.isDirectory() && !entry.getName().equals(".minecraft")) {
-                    BufferedInputStream bis = new BufferedInputStream(zipFile.getInputStream(entry));
-                    int b;
-                    byte[] buffer = new byte[1024];
-                    FileOutputStream fos = new FileOutputStream(destinationFilePath);
-                    BufferedOutputStream bos = new BufferedOutputStream(fos, 1024);
-                    while ((b = bis.read(buffer, 0, 1024)) != -1) {
-                        bos.write(buffer, 0, b);
-                    }
-                    bos.flush();
-                    bos.close();
-                    bis.close();
+            ParallelZip.unpack(in.toPath(), out.toPath(), name -> {
+                String entryName = name.endsWith("aux.class") ? "aux_class" : name;
+
+                if ((extractRule != null && extractRule.shouldExclude(entryName)) || entryName.equals(".minecraft")) {
+                    return null;
                 }
-            }
-            zipFile.close();
+
+                return entryName;
+            });
         } catch (IOException e) {
             LogManager.logStackTrace(e);
         }
@@ -1282,16 +1251,19 @@ public class Utils {
         return bytes;
     }
 
+    /**
+     * Unpacks a .pack.xz file straight into a jar, without writing out the
+     * intermediate .pack file or reading any of it into memory.
+     */
     public static void unXZPackFile(File inputFile, File outputFile) throws IOException {
-        File packFile = new File(inputFile.getAbsolutePath().substring(0, inputFile.getAbsolutePath().length() - 3));
-        LogManager.debug("unXZPackFile " + inputFile.getAbsolutePath() + " : " + packFile.getAbsolutePath() + " : "
-                + outputFile.getAbsolutePath());
+        LogManager.debug("unXZPackFile " + inputFile.getAbsolutePath() + " : " + outputFile.getAbsolutePath());
 
-        unXZFile(inputFile, packFile);
-        unpackFile(packFile, outputFile);
+        try (InputStream inputStream = new XZInputStream(
+                new BufferedInputStream(new FileInputStream(inputFile), 65536))) {
+            unpack(inputStream, outputFile);
+        }
 
         Utils.delete(inputFile);
-        Utils.delete(packFile);
     }
 
     public static void unLzmaFile(File input, File output) {
@@ -1366,38 +1338,43 @@ public class Utils {
      * From: http://atl.pw/1
      */
     public static void unpackFile(File input, File output) throws IOException {
-        if (output.exists()) {
-            Utils.delete(output);
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(input), 65536)) {
+            unpack(inputStream, output);
         }
+    }
 
-        byte[] decompressed = readFile(input);
-
-        if (decompressed == null) {
-            LogManager.error("unpackFile: While reading in " + input.getName() + " the file returned null");
-            return;
+    /**
+     * Unpacks the given signed pack200 stream into the given jar, adding the
+     * checksums from the end of the stream to the jar as checksums.sha1.
+     */
+    private static void unpack(InputStream inputStream, File output) throws IOException {
+        if (output.exists()) {
+            Utils.delete(output);
         }
 
-        String end = new String(decompressed, decompressed.length - 4, 4);
-        if (!end.equals("SIGN")) {
-            LogManager.error("unpackFile: Unpacking failed, signature missing " + end);
-            return;
-        }
+        SignedPackInputStream packInputStream = new SignedPackInputStream(inputStream);
+        byte[] checksums;
 
-        int x = decompressed.length;
-        int len = ((decompressed[x - 8] & 0xFF)) | ((decompressed[x - 7] & 0xFF) << 8)
-                | ((decompressed[x - 6] & 0xFF) << 16) | ((decompressed[x - 5] & 0xFF) << 24);
-        byte[] checksums = Arrays.copyOfRange(decompressed, decompressed.length - len - 8, decompressed.length - 8);
-        FileOutputStream jarBytes = new FileOutputStream(output);
-        JarOutputStream jos = new JarOutputStream(jarBytes);
+        try (JarOutputStream jos = new JarOutputStream(
+                new BufferedOutputStream(new FileOutputStream(output), 65536))) {
+            Pack200.newUnpacker().unpack(packInputStream, jos);
 
-        Pack200.newUnpacker().unpack(new ByteArrayInputStream(decompressed), jos);
+            checksums = packInputStream.getChecksums();
 
-        jos.putNextEntry(new JarEntry("checksums.sha1"));
-        jos.write(checksums);
-        jos.closeEntry();
+            if (checksums != null) {
+                jos.putNextEntry(new JarEntry("checksums.sha1"));
+                jos.write(checksums);
+                jos.closeEntry();
+            }
+        } catch (IOException e) {
+            Utils.delete(output);
+            throw e;
+        }
 
-        jos.close();
-        jarBytes.close();
+        if (checksums == null) {
+            LogManager.error("unpackFile: Unpacking failed, signature missing");
+            Utils.delete(output);
+        }
     }
 
     private static String getMACAdressHash() {
@@ -1495,36 +1472,20 @@ public class Utils {
         return false;
     }
 
+    /**
+     * Gets the first mod in the given files mcmod.info, or null if it doesn't
+     * have one. See {@link ModMetadataManager}.
+     */
     public static MCMod getMCModForFile(File file) {
-        try {
-            java.lang.reflect.Type type = new TypeToken<List<MCMod>>() {
-            }.getType();
-
-            List<MCMod> mods = Gsons.MINECRAFT.fromJson(new String(ZipUtil.unpackEntry(file, "mcmod.info")), type);
-
-            if (mods.size() != 0 && mods.get(0) != null) {
-                return mods.get(0);
-            }
-        } catch (Exception ignored) {
-
-        }
-
-        return null;
+        return ModMetadataManager.getMCMod(file.toPath());
     }
 
+    /**
+     * Gets the given files fabric.mod.json, or null if it doesn't have one. See
+     * {@link ModMetadataManager}.
+     */
     public static FabricMod getFabricModForFile(File file) {
-        try {
-            FabricMod mod = Gsons.MINECRAFT.fromJson(new String(ZipUtil.unpackEntry(file, "fabric.mod.json")),
-                    FabricMod.class);
-
-            if (mod != null) {
-                return mod;
-            }
-        } catch (Exception ignored2) {
-
-        }
-
-        return null;
+        return ModMetadataManager.getFabricMod(file.toPath());
     }
 
     public static boolean executableInPath(String executableName) {
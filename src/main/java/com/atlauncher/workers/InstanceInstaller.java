@@ -98,6 +98,9 @@ import com.atlauncher.interfaces.NetworkProgressable;
 import com.atlauncher.managers.InstanceManager;
 import com.atlauncher.managers.LogManager;
 import com.atlauncher.managers.MinecraftManager;
+import com.atlauncher.managers.ModMetadataManager;
+import com.atlauncher.managers.ModStoreManager;
+import com.atlauncher.managers.PerformanceManager;
 import com.atlauncher.managers.ServerManager;
 import com.atlauncher.network.Analytics;
 import com.atlauncher.network.DownloadPool;
@@ -105,6 +108,7 @@ import com.atlauncher.network.ErrorReporting;
 import com.atlauncher.utils.CurseForgeApi;
 import com.atlauncher.utils.FileUtils;
 import com.atlauncher.utils.Hashing;
+import com.atlauncher.utils.ParallelZip;
 import com.atlauncher.utils.Utils;
 import com.atlauncher.utils.walker.CaseFileVisitor;
 import com.google.gson.reflect.TypeToken;
@@ -199,6 +203,13 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
     @Override
     protected Boolean doInBackground() throws Exception {
+        try (PerformanceManager.Span span = PerformanceManager.trace("install").tag("pack", this.pack.name)
+                .tag("version", this.version.version)) {
+            return this.runInstall();
+        }
+    }
+
+    private Boolean runInstall() {
         ErrorReporting.recordPackInstall(this.pack.name, this.version.version, this.loaderVersion);
         LogManager.info("Started install of " + this.pack.name + " version " + this.version.version);
 
@@ -420,7 +431,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         com.atlauncher.network.Download manifestDownload = com.atlauncher.network.Download.build()
                 .setUrl(version._curseForgeFile.downloadUrl).downloadTo(manifestFile)
                 .size(version._curseForgeFile.fileLength).fingerprint(version._curseForgeFile.packageFingerprint)
-                .withInstanceInstaller(this).withHttpClient(Network.createProgressClient(this));
+                .segmented().withInstanceInstaller(this).withHttpClient(Network.createProgressClient(this));
 
         this.setTotalBytes(version._curseForgeFile.fileLength);
         manifestDownload.downloadFile();
@@ -432,7 +443,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                 new String(ZipUtil.unpackEntry(manifestFile.toFile(), "manifest.json")), CurseForgeManifest.class);
         curseForgeExtractedPath = this.temp.resolve("curseforgeimport");
 
-        ZipUtil.unpack(manifestFile.toFile(), curseForgeExtractedPath.toFile());
+        ParallelZip.unpack(manifestFile, curseForgeExtractedPath);
         Files.delete(manifestFile);
 
         generatePackVersionFromCurseForgeManifest();
@@ -735,10 +746,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
             if (Files.exists(multiMCExtractedPath.resolve(minecraftFolder + "/mods"))) {
                 try (Stream<Path> list = Files.list(multiMCExtractedPath.resolve(minecraftFolder + "/mods"))) {
-                    this.modsInstalled.addAll(list.filter(p -> !Files.isDirectory(p))
-                            .filter(p -> p.toString().toLowerCase().endsWith(".jar")
-                                    || p.toString().toLowerCase().endsWith(".zip"))
-                            .map(p -> convertPathToDisableableMod(p, Type.mods)).collect(Collectors.toList()));
+                    this.modsInstalled.addAll(convertPathsToDisableableMods(list, Type.mods));
                 } catch (IOException e) {
                     LogManager.logStackTrace(e);
                 }
@@ -747,10 +755,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
             if (Files.exists(multiMCExtractedPath.resolve(minecraftFolder + "/mods/" + packVersion.minecraft))) {
                 try (Stream<Path> list = Files
                         .list(multiMCExtractedPath.resolve(minecraftFolder + "/mods/" + packVersion.minecraft))) {
-                    this.modsInstalled.addAll(list.filter(p -> !Files.isDirectory(p))
-                            .filter(p -> p.toString().toLowerCase().endsWith(".jar")
-                                    || p.toString().toLowerCase().endsWith(".zip"))
-                            .map(p -> convertPathToDisableableMod(p, Type.dependency)).collect(Collectors.toList()));
+                    this.modsInstalled.addAll(convertPathsToDisableableMods(list, Type.dependency));
                 } catch (IOException e) {
                     LogManager.logStackTrace(e);
                 }
@@ -758,10 +763,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
             if (Files.exists(multiMCExtractedPath.resolve(minecraftFolder + "/mods/ic2"))) {
                 try (Stream<Path> list = Files.list(multiMCExtractedPath.resolve(minecraftFolder + "/mods/ic2"))) {
-                    this.modsInstalled.addAll(list.filter(p -> !Files.isDirectory(p))
-                            .filter(p -> p.toString().toLowerCase().endsWith(".jar")
-                                    || p.toString().toLowerCase().endsWith(".zip"))
-                            .map(p -> convertPathToDisableableMod(p, Type.ic2lib)).collect(Collectors.toList()));
+                    this.modsInstalled.addAll(convertPathsToDisableableMods(list, Type.ic2lib));
                 } catch (IOException e) {
                     LogManager.logStackTrace(e);
                 }
@@ -773,10 +775,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                     .resolve(Optional.of(curseForgeManifest.overrides).orElse("overrides") + "/mods"))) {
                 try (Stream<Path> list = Files.list(curseForgeExtractedPath
                         .resolve(Optional.of(curseForgeManifest.overrides).orElse("overrides") + "/mods"))) {
-                    this.modsInstalled.addAll(list.filter(p -> !Files.isDirectory(p))
-                            .filter(p -> p.toString().toLowerCase().endsWith(".jar")
-                                    || p.toString().toLowerCase().endsWith(".zip"))
-                            .map(p -> convertPathToDisableableMod(p, Type.mods)).collect(Collectors.toList()));
+                    this.modsInstalled.addAll(convertPathsToDisableableMods(list, Type.mods));
                 } catch (IOException e) {
                     LogManager.logStackTrace(e);
                 }
@@ -788,15 +787,29 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                 try (Stream<Path> list = Files.list(
                         curseForgeExtractedPath.resolve(Optional.of(curseForgeManifest.overrides).orElse("overrides")
                                 + "/mods/" + packVersion.minecraft))) {
-                    this.modsInstalled.addAll(list.filter(p -> !Files.isDirectory(p))
-                            .filter(p -> p.toString().toLowerCase().endsWith(".jar")
-                                    || p.toString().toLowerCase().endsWith(".zip"))
-                            .map(p -> convertPathToDisableableMod(p, Type.dependency)).collect(Collectors.toList()));
+                    this.modsInstalled.addAll(convertPathsToDisableableMods(list, Type.dependency));
                 } catch (IOException e) {
                     LogManager.logStackTrace(e);
                 }
             }
         }
+
+        ModMetadataManager.save();
+    }
+
+    /**
+     * Converts the jar and zip files in the given stream to mods, reading them in
+     * parallel, since they can number in the hundreds.
+     */
+    private List<DisableableMod> convertPathsToDisableableMods(Stream<Path> paths, Type t) {
+        List<Path> files = paths.filter(p -> !Files.isDirectory(p))
+                .filter(p -> p.toString().toLowerCase().endsWith(".jar")
+                        || p.toString().toLowerCase().endsWith(".zip"))
+                .collect(Collectors.toList());
+
+        ModMetadataManager.index(files);
+
+        return files.stream().map(p -> convertPathToDisableableMod(p, t)).collect(Collectors.toList());
     }
 
     private DisableableMod convertPathToDisableableMod(Path p, Type t) {
@@ -833,77 +846,77 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         determineMainClass();
         determineArguments();
 
-        downloadResources();
+        runStep("downloadResources", this::downloadResources);
         if (isCancelled()) {
             return false;
         }
 
-        downloadMinecraft();
+        runStep("downloadMinecraft", this::downloadMinecraft);
         if (isCancelled()) {
             return false;
         }
 
-        downloadLoggingClient();
+        runStep("downloadLoggingClient", this::downloadLoggingClient);
         if (isCancelled()) {
             return false;
         }
 
-        downloadLibraries();
+        runStep("downloadLibraries", this::downloadLibraries);
         if (isCancelled()) {
             return false;
         }
 
-        organiseLibraries();
+        runStep("organiseLibraries", this::organiseLibraries);
         if (isCancelled()) {
             return false;
         }
 
-        downloadRuntime();
+        runStep("downloadRuntime", this::downloadRuntime);
         if (isCancelled()) {
             return false;
         }
 
-        installLoader();
+        runStep("installLoader", this::installLoader);
         if (isCancelled()) {
             return false;
         }
 
-        downloadMods();
+        runStep("downloadMods", this::downloadMods);
         if (isCancelled()) {
             return false;
         }
 
-        installMods();
+        runStep("installMods", this::installMods);
         if (isCancelled()) {
             return false;
         }
 
-        installLegacyJavaFixer();
+        runStep("installLegacyJavaFixer", this::installLegacyJavaFixer);
         if (isCancelled()) {
             return false;
         }
 
-        runCaseConversion();
+        runStep("runCaseConversion", this::runCaseConversion);
         if (isCancelled()) {
             return false;
         }
 
-        runActions();
+        runStep("runActions", this::runActions);
         if (isCancelled()) {
             return false;
         }
 
-        installConfigs();
+        runStep("installConfigs", this::installConfigs);
         if (isCancelled()) {
             return false;
         }
 
-        downloadInstanceImage();
+        runStep("downloadInstanceImage", this::downloadInstanceImage);
         if (isCancelled()) {
             return false;
         }
 
-        checkModsOnCurseForge();
+        runStep("checkModsOnCurseForge", this::checkModsOnCurseForge);
         if (isCancelled()) {
             return false;
         }
@@ -920,6 +933,16 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         return true;
     }
 
+    /**
+     * Runs a step of the install within it's own span, so the time each step
+     * takes shows up in the install trace.
+     */
+    private void runStep(String name, InstallStep step) throws Exception {
+        try (PerformanceManager.Span span = PerformanceManager.span(name)) {
+            step.run();
+        }
+    }
+
     private void saveInstanceJson() {
         Instance instance = new Instance(this.minecraftVersion);
         instance.ROOT = this.root;
@@ -1144,10 +1167,10 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         if (smallPool.size() != 0) {
             this.setTotalBytes(smallPool.totalSize());
             this.fireSubProgress(0);
-            smallPool.downloadAll();
+            downloadAll(smallPool);
         }
 
-        // copy resources to instance
+        // link resources into the instance (or the legacy folder), copying where links aren't supported
         if (index.mapToResources || assetIndex.id.equalsIgnoreCase("legacy")) {
             fireTask(GetText.tr("Copying Resources"));
             fireSubProgressUnknown();
@@ -1158,9 +1181,9 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
                 Path downloadedFile = FileSystem.RESOURCES_OBJECTS.resolve(filename);
 
                 if (index.mapToResources) {
-                    FileUtils.copyFile(downloadedFile, this.root.resolve("resources/" + key), true);
+                    FileUtils.linkFile(downloadedFile, this.root.resolve("resources/" + key));
                 } else if (assetIndex.id.equalsIgnoreCase("legacy")) {
-                    FileUtils.copyFile(downloadedFile, FileSystem.RESOURCES_VIRTUAL_LEGACY.resolve(key), true);
+                    FileUtils.linkFile(downloadedFile, FileSystem.RESOURCES_VIRTUAL_LEGACY.resolve(key));
                 }
             });
         }
@@ -1183,7 +1206,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
         com.atlauncher.network.Download.build().setUrl(mojangDownload.url).hash(mojangDownload.sha1)
                 .size(mojangDownload.size).downloadTo(getMinecraftJarLibrary().toPath())
-                .copyTo(this.isServer ? getMinecraftJar().toPath() : null).withInstanceInstaller(this)
+                .copyTo(this.isServer ? getMinecraftJar().toPath() : null).segmented().withInstanceInstaller(this)
                 .withHttpClient(Network.createProgressClient(this)).downloadFile();
 
         hideSubProgressBar();
@@ -1361,7 +1384,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         this.setTotalBytes(smallPool.totalSize());
         this.fireSubProgress(0);
 
-        smallPool.downloadAll();
+        downloadAll(smallPool);
 
         hideSubProgressBar();
     }
@@ -1478,7 +1501,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
             this.setTotalBytes(smallPool.totalSize());
             this.fireSubProgress(0);
 
-            smallPool.downloadAll();
+            downloadAll(smallPool);
 
             // write out the version file (theres also a .sha1 file created, but we're not
             // doing that)
@@ -1525,7 +1548,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         this.selectedMods.stream().filter(mod -> mod.download != DownloadType.browser).forEach(mod -> {
             com.atlauncher.network.Download download = new com.atlauncher.network.Download()
                     .setUrl(mod.getDownloadUrl()).downloadTo(FileSystem.DOWNLOADS.resolve(mod.getFile()))
-                    .size(mod.filesize).withInstanceInstaller(this).withHttpClient(httpClient);
+                    .size(mod.filesize).stored().withInstanceInstaller(this).withHttpClient(httpClient);
 
             if (mod.fingerprint != null) {
                 download = download.fingerprint(mod.fingerprint);
@@ -1551,7 +1574,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         this.setTotalBytes(smallPool.totalSize());
         this.fireSubProgress(0);
 
-        smallPool.downloadAll();
+        downloadAll(smallPool);
 
         fireSubProgressUnknown();
 
@@ -1578,6 +1601,8 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
             addSubPercent(subPercentPerMod);
         });
 
+        ModStoreManager.save();
+
         hideSubProgressBar();
     }
 
@@ -1706,7 +1731,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
             this.setTotalBytes(smallPool.totalSize());
             this.fireSubProgress(0);
 
-            smallPool.downloadAll();
+            downloadAll(smallPool);
         } else if (multiMCManifest != null) {
             fireSubProgressUnknown();
             String minecraftFolder = Files.exists(multiMCExtractedPath.resolve(".minecraft")) ? ".minecraft"
@@ -1723,7 +1748,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
 
             com.atlauncher.network.Download configsDownload = com.atlauncher.network.Download.build()
                     .setUrl(String.format("%s/%s", Constants.DOWNLOAD_SERVER, path)).downloadTo(configs.toPath())
-                    .size(this.packVersion.configs.filesize).hash(this.packVersion.configs.sha1)
+                    .size(this.packVersion.configs.filesize).hash(this.packVersion.configs.sha1).segmented()
                     .withInstanceInstaller(this).withHttpClient(Network.createProgressClient(this));
 
             this.setTotalBytes(configsDownload.getFilesize());
@@ -1741,7 +1766,7 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
             fireSubProgressUnknown();
             fireTask(GetText.tr("Extracting Configs"));
 
-            ZipUtil.unpack(configs, this.root.toFile());
+            ParallelZip.unpack(configs.toPath(), this.root);
             Utils.delete(configs);
         }
     }
@@ -2322,6 +2347,19 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
         return shareCodeData;
     }
 
+    /**
+     * Downloads everything in the given pool, blocking until they're done. If any
+     * of the downloads fail, the install is cancelled.
+     */
+    private void downloadAll(DownloadPool pool) {
+        DownloadPool.Result result = pool.downloadAll().join();
+
+        if (!result.isSuccessful() && !isCancelled()) {
+            LogManager.error("Failed to download all files (" + result + "). Cancelling install!");
+            cancel(true);
+        }
+    }
+
     public void fireTask(String name) {
         firePropertyChange("doing", null, name);
     }
@@ -2420,4 +2458,8 @@ public class InstanceInstaller extends SwingWorker<Boolean, Void> implements Net
     private void hideSubProgressBar() {
         fireSubProgress(-1);
     }
+
+    private interface InstallStep {
+        void run() throws Exception;
+    }
 }
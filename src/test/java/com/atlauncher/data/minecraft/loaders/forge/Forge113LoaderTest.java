@@ -0,0 +1,162 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.data.minecraft.loaders.forge;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.atlauncher.data.Pack;
+import com.atlauncher.data.PackVersion;
+import com.atlauncher.workers.InstanceInstaller;
+
+import org.junit.jupiter.api.Test;
+
+public class Forge113LoaderTest {
+    private final Path inputA = Paths.get("installer", "a.txt").toAbsolutePath();
+    private final Path inputB = Paths.get("installer", "b.txt").toAbsolutePath();
+    private final Path outputA = Paths.get("libraries", "a.jar").toAbsolutePath();
+    private final Path outputB = Paths.get("libraries", "b.jar").toAbsolutePath();
+
+    @Test
+    public void testFailingProcessorCancelsInstall() {
+        InstanceInstaller instanceInstaller = createInstanceInstaller();
+        AtomicBoolean laterProcessorRan = new AtomicBoolean(false);
+
+        createLoader(instanceInstaller, Arrays.asList(new TestProcessor(() -> {
+            throw new IllegalStateException("Processor failed");
+        }), new TestProcessor(() -> laterProcessorRan.set(true)))).runProcessors();
+
+        assertTrue(instanceInstaller.isCancelled());
+        assertFalse(laterProcessorRan.get());
+    }
+
+    @Test
+    public void testProcessorsWithSeparateFilesRunAtTheSameTime() {
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        AtomicBoolean ranTogether = new AtomicBoolean(false);
+
+        // the first only finishes once the second has started, so this only passes if
+        // neither waits on the other
+        createLoader(createInstanceInstaller(), Arrays.asList(
+                new TestProcessor(Collections.singleton(inputA), outputA, () -> ranTogether.set(await(secondStarted))),
+                new TestProcessor(Collections.singleton(inputB), outputB, secondStarted::countDown)))
+                .runProcessors();
+
+        assertTrue(ranTogether.get());
+    }
+
+    @Test
+    public void testProcessorUsingAnotherProcessorsOutputRunsAfterIt() {
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        AtomicBoolean firstFinished = new AtomicBoolean(false);
+        AtomicBoolean ranAfter = new AtomicBoolean(false);
+
+        createLoader(createInstanceInstaller(), Arrays.asList(new TestProcessor(Collections.singleton(inputA), outputA,
+                () -> {
+                    await(secondStarted);
+                    firstFinished.set(true);
+                }), new TestProcessor(Collections.singleton(outputA), outputB, () -> {
+                    secondStarted.countDown();
+                    ranAfter.set(firstFinished.get());
+                }))).runProcessors();
+
+        assertTrue(ranAfter.get());
+    }
+
+    private boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private InstanceInstaller createInstanceInstaller() {
+        Pack pack = new Pack();
+        pack.name = "Test Pack";
+        PackVersion packVersion = new PackVersion();
+        packVersion.version = "1.0.0";
+
+        return new InstanceInstaller("Test Pack", pack, packVersion, false, false, false, null, false, null, null,
+                null, null, null, null);
+    }
+
+    private Forge113Loader createLoader(InstanceInstaller instanceInstaller, List<Processor> processors) {
+        ForgeInstallProfile installProfile = new ForgeInstallProfile();
+        installProfile.processors = processors;
+
+        Forge113Loader loader = new Forge113Loader() {
+            @Override
+            public ForgeInstallProfile getInstallProfile() {
+                return installProfile;
+            }
+        };
+        loader.instanceInstaller = instanceInstaller;
+
+        return loader;
+    }
+
+    private static class TestProcessor extends Processor {
+        private final Set<Path> referenced;
+        private final Map<String, File> outputs;
+        private final Runnable work;
+
+        private TestProcessor(Runnable work) {
+            this.referenced = Collections.emptySet();
+            this.outputs = Collections.emptyMap();
+            this.work = work;
+        }
+
+        private TestProcessor(Set<Path> referenced, Path output, Runnable work) {
+            this.referenced = referenced;
+            this.outputs = Collections.singletonMap("output", output.toFile());
+            this.work = work;
+        }
+
+        @Override
+        public void process(ForgeInstallProfile installProfile, File extractedDir,
+                InstanceInstaller instanceInstaller) {
+            this.work.run();
+        }
+
+        @Override
+        public Map<String, File> getOutputFiles(ForgeInstallProfile installProfile,
+                InstanceInstaller instanceInstaller) {
+            return this.outputs;
+        }
+
+        @Override
+        public Set<Path> getReferencedFiles(ForgeInstallProfile installProfile, File extractedDir,
+                InstanceInstaller instanceInstaller) {
+            return this.referenced;
+        }
+    }
+}
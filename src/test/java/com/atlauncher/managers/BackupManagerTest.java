@@ -0,0 +1,148 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.atlauncher.FileSystem;
+import com.atlauncher.data.BackupMode;
+import com.atlauncher.data.Instance;
+import com.atlauncher.data.InstanceLauncher;
+import com.atlauncher.data.minecraft.MinecraftVersion;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BackupManagerTest {
+    @TempDir
+    Path tempDir;
+
+    private Instance instance;
+    private final Random random = new Random(1337);
+    private long modified = System.currentTimeMillis();
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        BackupManager.setStorageDirectory(tempDir.resolve("backups"));
+
+        instance = new Instance(new MinecraftVersion());
+        instance.ROOT = Files.createDirectories(tempDir.resolve("instance"));
+        instance.launcher = new InstanceLauncher();
+        instance.launcher.name = "Test Instance";
+    }
+
+    @AfterEach
+    public void tearDown() {
+        BackupManager.setStorageDirectory(FileSystem.INCREMENTAL_BACKUPS);
+    }
+
+    @Test
+    public void testRestoringPutsBackFilesAsTheyWere() throws IOException {
+        // bigger than a chunk so it's split up
+        byte[] level = write("saves/world/level.dat", 5 * 1024 * 1024);
+        byte[] options = write("options.txt", 1024);
+
+        BackupManager.Snapshot snapshot = BackupManager.createSnapshot(instance, BackupMode.FULL);
+
+        write("options.txt", 2048);
+        Files.delete(instance.getRoot().resolve("saves/world/level.dat"));
+        write("saves/world/new.dat", 1024);
+
+        BackupManager.restore(instance, snapshot);
+
+        assertArrayEquals(level, Files.readAllBytes(instance.getRoot().resolve("saves/world/level.dat")));
+        assertArrayEquals(options, Files.readAllBytes(instance.getRoot().resolve("options.txt")));
+        assertFalse(Files.exists(instance.getRoot().resolve("saves/world/new.dat")));
+    }
+
+    @Test
+    public void testUnchangedFilesReuseTheirChunks() throws IOException {
+        write("saves/world/level.dat", 1024);
+        write("options.txt", 1024);
+
+        BackupManager.createSnapshot(instance, BackupMode.FULL);
+        assertEquals(2, getChunks().size());
+
+        write("options.txt", 1024);
+        BackupManager.createSnapshot(instance, BackupMode.FULL);
+
+        // only the changed file should have added a chunk
+        assertEquals(3, getChunks().size());
+        assertEquals(2, BackupManager.getSnapshots(instance).size());
+    }
+
+    @Test
+    public void testPruningKeepsChunksStillInUse() throws IOException {
+        byte[] level = write("saves/world/level.dat", 1024);
+        write("options.txt", 1024);
+        BackupManager.createSnapshot(instance, BackupMode.FULL);
+
+        byte[] options = write("options.txt", 1024);
+        BackupManager.createSnapshot(instance, BackupMode.FULL);
+        assertEquals(3, getChunks().size());
+
+        BackupManager.prune(instance, 1);
+
+        // the old options.txt chunk is gone, but level.dat's is still used by the newest backup
+        List<BackupManager.Snapshot> snapshots = BackupManager.getSnapshots(instance);
+        assertEquals(1, snapshots.size());
+        assertEquals(2, getChunks().size());
+
+        Files.delete(instance.getRoot().resolve("saves/world/level.dat"));
+        Files.delete(instance.getRoot().resolve("options.txt"));
+        BackupManager.restore(instance, snapshots.get(0));
+
+        assertArrayEquals(level, Files.readAllBytes(instance.getRoot().resolve("saves/world/level.dat")));
+        assertArrayEquals(options, Files.readAllBytes(instance.getRoot().resolve("options.txt")));
+    }
+
+    private byte[] write(String name, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+
+        Path file = instance.getRoot().resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+
+        // make sure a rewritten file doesn't look unchanged because it was written in the
+        // same millisecond
+        modified += 1000L;
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+
+        return bytes;
+    }
+
+    private List<Path> getChunks() throws IOException {
+        try (Stream<Path> walk = Files.walk(tempDir.resolve("backups").resolve("chunks"))) {
+            return walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+}
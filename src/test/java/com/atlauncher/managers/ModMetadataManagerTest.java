@@ -0,0 +1,107 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import com.atlauncher.FileSystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ModMetadataManagerTest {
+    @TempDir
+    Path tempDir;
+
+    private Path indexFile;
+
+    @BeforeEach
+    public void setUp() {
+        indexFile = tempDir.resolve("modmetadata.json");
+        ModMetadataManager.setIndexFile(indexFile);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ModMetadataManager.setIndexFile(FileSystem.CACHE.resolve("modmetadata.json"));
+    }
+
+    @Test
+    public void testUnchangedModsAreOnlyReadOnce() throws IOException {
+        Path mod = createMod(tempDir.resolve("mod.jar"), "examplemod");
+        long reads = PerformanceManager.getCount("modmetadata.read");
+
+        assertEquals("examplemod", ModMetadataManager.getFabricMod(mod).id);
+        assertEquals("examplemod", ModMetadataManager.getFabricMod(mod).id);
+
+        // a copy somewhere else (such as from an import) is the same mod
+        Path copy = Files.copy(mod, Files.createDirectories(tempDir.resolve("mods")).resolve("renamed.jar"));
+        assertEquals("examplemod", ModMetadataManager.getFabricMod(copy).id);
+
+        assertEquals(1, PerformanceManager.getCount("modmetadata.read") - reads);
+    }
+
+    @Test
+    public void testChangedModsAreReadAgain() throws IOException {
+        Path mod = createMod(tempDir.resolve("mod.jar"), "examplemod");
+        long reads = PerformanceManager.getCount("modmetadata.read");
+
+        assertEquals("examplemod", ModMetadataManager.getFabricMod(mod).id);
+
+        createMod(mod, "anotherexamplemod");
+        assertEquals("anotherexamplemod", ModMetadataManager.getFabricMod(mod).id);
+
+        assertEquals(2, PerformanceManager.getCount("modmetadata.read") - reads);
+    }
+
+    @Test
+    public void testIndexIsKeptAcrossReloads() throws IOException {
+        Path mod = createMod(tempDir.resolve("mod.jar"), "examplemod");
+        long reads = PerformanceManager.getCount("modmetadata.read");
+
+        long murmur = ModMetadataManager.getMurmur(mod);
+        ModMetadataManager.save();
+
+        ModMetadataManager.setIndexFile(indexFile);
+
+        assertEquals("examplemod", ModMetadataManager.getFabricMod(mod).id);
+        assertEquals(murmur, ModMetadataManager.getMurmur(mod));
+        assertEquals(1, PerformanceManager.getCount("modmetadata.read") - reads);
+    }
+
+    private static Path createMod(Path file, String id) throws IOException {
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(file))) {
+            zipOutputStream.putNextEntry(new ZipEntry("fabric.mod.json"));
+            String json = "{\"id\": \"" + id + "\", \"version\": \"1.0.0\"}";
+            zipOutputStream.write(json.getBytes(StandardCharsets.UTF_8));
+
+            zipOutputStream.closeEntry();
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import com.atlauncher.Gsons;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.jupiter.api.Test;
+
+public class PerformanceManagerTest {
+    @Test
+    public void testEndingSpanDoesNotEndSpanWithSameNameOnAnotherThread() throws InterruptedException {
+        String name = "testEndingSpanDoesNotEndSpanWithSameNameOnAnotherThread";
+        CountDownLatch otherStarted = new CountDownLatch(1);
+        CountDownLatch otherMayEnd = new CountDownLatch(1);
+
+        Thread other = new Thread(() -> {
+            PerformanceManager.start(name);
+            otherStarted.countDown();
+
+            try {
+                otherMayEnd.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+
+            PerformanceManager.end(name);
+        }, "other");
+        other.start();
+        otherStarted.await();
+
+        // starting and ending here must leave the other thread's span running
+        PerformanceManager.start(name);
+        PerformanceManager.end(name);
+
+        assertEquals(1, getFinishedTraces(name).size());
+        assertEquals(Thread.currentThread().getName(), getFinishedTraces(name).get(0).get("thread"));
+
+        otherMayEnd.countDown();
+        other.join();
+
+        assertEquals(2, getFinishedTraces(name).size());
+        assertEquals("other", getFinishedTraces(name).get(1).get("thread"));
+    }
+
+    private List<Map<String, Object>> getFinishedTraces(String name) {
+        Map<String, Object> snapshot = Gsons.DEFAULT.fromJson(PerformanceManager.toJson(),
+                new TypeToken<Map<String, Object>>() {
+                }.getType());
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> traces = (List<Map<String, Object>>) snapshot.get("traces");
+
+        return traces.stream().filter(trace -> name.equals(trace.get("name"))).collect(Collectors.toList());
+    }
+}
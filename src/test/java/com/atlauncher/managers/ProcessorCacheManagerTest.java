@@ -0,0 +1,119 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.atlauncher.FileSystem;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ProcessorCacheManagerTest {
+    @TempDir
+    Path tempDir;
+
+    private File jar;
+    private File input;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        ProcessorCacheManager.setCacheDirectory(tempDir.resolve("cache"));
+
+        jar = write("processor.jar", "processor").toFile();
+        input = write("installer/input.txt", "input").toFile();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ProcessorCacheManager.setCacheDirectory(FileSystem.PROCESSOR_CACHE);
+    }
+
+    @Test
+    public void testKeyIsTheSameWhereverTheOutputsGo() throws IOException {
+        File first = tempDir.resolve("first/output.jar").toFile();
+        File second = tempDir.resolve("second/output.jar").toFile();
+
+        assertEquals(getKey(first), getKey(second));
+    }
+
+    @Test
+    public void testKeyChangesWithTheContentsOfInputs() throws IOException {
+        File output = tempDir.resolve("output.jar").toFile();
+        String key = getKey(output);
+
+        write("installer/input.txt", "changed");
+
+        assertNotEquals(key, getKey(output));
+    }
+
+    @Test
+    public void testRestorePutsBackStoredOutputs() throws IOException {
+        Path output = write("first/output.jar", "output");
+        String key = getKey(output.toFile());
+
+        ProcessorCacheManager.store(key, Collections.singletonMap("output", output.toFile()));
+
+        File restored = tempDir.resolve("second/output.jar").toFile();
+        assertTrue(ProcessorCacheManager.restore(key, Collections.singletonMap("output", restored)));
+        assertEquals("output", new String(Files.readAllBytes(restored.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEvictRemovesRestoredOutputsAndTheCache() throws IOException {
+        Path output = write("first/output.jar", "output");
+        String key = getKey(output.toFile());
+        Map<String, File> outputs = Collections.singletonMap("output", output.toFile());
+
+        ProcessorCacheManager.store(key, outputs);
+        ProcessorCacheManager.evict(key, outputs);
+
+        assertFalse(Files.exists(output));
+        assertFalse(Files.exists(tempDir.resolve("cache").resolve(key)));
+        assertFalse(ProcessorCacheManager.restore(key, outputs));
+    }
+
+    private String getKey(File output) throws IOException {
+        List<String> args = Arrays.asList("--input", input.getAbsolutePath(), "--output", output.getAbsolutePath());
+
+        return ProcessorCacheManager.getKey(jar, Collections.emptyList(), args,
+                Collections.singletonMap("output", output));
+    }
+
+    private Path write(String name, String contents) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.createDirectories(file.getParent());
+
+        return Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import com.atlauncher.App;
+import com.atlauncher.data.Settings;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DownloadSchedulerTest {
+    private int originalConcurrentConnections;
+
+    @BeforeEach
+    public void setUp() {
+        if (App.settings == null) {
+            App.settings = new Settings();
+        }
+
+        originalConcurrentConnections = App.settings.concurrentConnections;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        App.settings.concurrentConnections = originalConcurrentConnections;
+    }
+
+    @Test
+    public void testLimitsConnectionsPerHost() {
+        App.settings.concurrentConnections = DownloadScheduler.MAX_CONNECTIONS_PER_HOST * 2;
+
+        List<DownloadScheduler.Permit> permits = new LinkedList<>();
+        try {
+            for (int i = 0; i < DownloadScheduler.MAX_CONNECTIONS_PER_HOST; i++) {
+                permits.add(DownloadScheduler.tryAcquire("https://a.example.com/file" + i));
+            }
+
+            assertEquals(DownloadScheduler.MAX_CONNECTIONS_PER_HOST,
+                    DownloadScheduler.getInFlightCountByHost().get("a.example.com").intValue());
+            assertNull(DownloadScheduler.tryAcquire("https://a.example.com/another"));
+
+            DownloadScheduler.Permit otherHost = DownloadScheduler.tryAcquire("https://b.example.com/file");
+            assertNotNull(otherHost);
+            permits.add(otherHost);
+        } finally {
+            permits.forEach(DownloadScheduler.Permit::close);
+        }
+
+        assertEquals(0, DownloadScheduler.getInFlightCount());
+    }
+
+    @Test
+    public void testRunsHigherPrioritiesFirst() throws Exception {
+        App.settings.concurrentConnections = 1;
+
+        List<String> order = Collections.synchronizedList(new LinkedList<>());
+        CompletableFuture<?>[] futures = new CompletableFuture[3];
+
+        try (DownloadScheduler.Permit permit = DownloadScheduler.acquire("https://a.example.com/blocking",
+                DownloadScheduler.Priority.INSTALL)) {
+            futures[0] = DownloadScheduler.submit("https://a.example.com/prefetch",
+                    DownloadScheduler.Priority.PREFETCH, () -> order.add("prefetch"));
+            futures[1] = DownloadScheduler.submit("https://a.example.com/install", DownloadScheduler.Priority.INSTALL,
+                    () -> order.add("install"));
+            futures[2] = DownloadScheduler.submit("https://a.example.com/launch", DownloadScheduler.Priority.LAUNCH,
+                    () -> order.add("launch"));
+
+            assertEquals(3, DownloadScheduler.getQueuedCount());
+        }
+
+        CompletableFuture.allOf(futures).join();
+
+        assertEquals(Arrays.asList("launch", "install", "prefetch"), order);
+        assertEquals(0, DownloadScheduler.getQueuedCount());
+    }
+
+    @Test
+    public void testWaitingWithoutPermitGivesConnectionBack() throws Exception {
+        App.settings.concurrentConnections = 1;
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        CompletableFuture<Void> other = new CompletableFuture<>();
+
+        CompletableFuture<Void> waiter = DownloadScheduler.submit("https://a.example.com/waiter",
+                DownloadScheduler.Priority.INSTALL, () -> {
+                    waiting.countDown();
+
+                    try {
+                        DownloadScheduler.awaitWithoutPermit(other, DownloadScheduler.Priority.INSTALL);
+                    } catch (InterruptedIOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+
+        waiting.await();
+
+        // the only connection is held by the waiter, so this would never get one if it
+        // held onto it while waiting
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            try (DownloadScheduler.Permit permit = DownloadScheduler.acquire("https://a.example.com/other",
+                    DownloadScheduler.Priority.INSTALL)) {
+                other.complete(null);
+            }
+
+            waiter.join();
+        });
+
+        assertEquals(0, DownloadScheduler.getInFlightCount());
+    }
+}
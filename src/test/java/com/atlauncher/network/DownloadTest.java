@@ -0,0 +1,227 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.network;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.atlauncher.App;
+import com.atlauncher.data.Settings;
+import com.atlauncher.managers.PerformanceManager;
+import com.atlauncher.utils.Hashing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.BinaryBody;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+import org.mockserver.socket.PortFactory;
+import org.mockserver.verify.VerificationTimes;
+
+public class DownloadTest {
+    private static final String ETAG = "\"5d41402abc4b2a76b9719d911017c592\"";
+
+    @TempDir
+    public Path testStorage;
+
+    private ClientAndServer mockServer;
+    private byte[] bytes;
+
+    @BeforeAll
+    public static void setUpOnce() {
+        if (App.settings == null) {
+            App.settings = new Settings();
+        }
+    }
+
+    @BeforeEach
+    public void setUp() {
+        mockServer = ClientAndServer.startClientAndServer(PortFactory.findFreePort());
+
+        bytes = new byte[256 * 1024];
+        new Random(1337).nextBytes(bytes);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        mockServer.stop(true);
+    }
+
+    private String getUrl() {
+        return "http://localhost:" + mockServer.getPort() + "/file.bin";
+    }
+
+    private Path createPartialDownload(Path to, int length) throws IOException {
+        Files.write(to.resolveSibling("file.bin.part"), Arrays.copyOfRange(bytes, 0, length));
+        Files.write(to.resolveSibling("file.bin.part.validator"), ETAG.getBytes(StandardCharsets.UTF_8));
+
+        return to;
+    }
+
+    @Test
+    public void testThatPartialDownloadsAreResumedWithARangeRequest() throws IOException {
+        Path to = createPartialDownload(testStorage.resolve("file.bin"), 100 * 1024);
+
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/file.bin")
+                .withHeader("Range", "bytes=" + (100 * 1024) + "-").withHeader("If-Range", ETAG))
+                .respond(HttpResponse.response().withStatusCode(206).withHeader("ETag", ETAG)
+                        .withHeader("Content-Range",
+                                "bytes " + (100 * 1024) + "-" + (bytes.length - 1) + "/" + bytes.length)
+                        .withBody(BinaryBody.binary(Arrays.copyOfRange(bytes, 100 * 1024, bytes.length))));
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/file.bin"))
+                .respond(HttpResponse.response().withStatusCode(200).withHeader("ETag", ETAG)
+                        .withBody(BinaryBody.binary(bytes)));
+
+        Download.build().setUrl(getUrl()).downloadTo(to).hash(Hashing.sha1(bytes).toString()).downloadFile();
+
+        // only the range request should be made, not a full request first
+        mockServer.verify(HttpRequest.request().withPath("/file.bin"), VerificationTimes.exactly(1));
+        assertArrayEquals(bytes, Files.readAllBytes(to));
+        assertFalse(Files.exists(to.resolveSibling("file.bin.part")));
+        assertFalse(Files.exists(to.resolveSibling("file.bin.part.validator")));
+    }
+
+    @Test
+    public void testThatWholeFileIsDownloadedWhenServerIgnoresRange() throws IOException {
+        Path to = createPartialDownload(testStorage.resolve("file.bin"), 100 * 1024);
+
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/file.bin"))
+                .respond(HttpResponse.response().withStatusCode(200).withHeader("ETag", ETAG)
+                        .withBody(BinaryBody.binary(bytes)));
+
+        Download.build().setUrl(getUrl()).downloadTo(to).hash(Hashing.sha1(bytes).toString()).downloadFile();
+
+        assertArrayEquals(bytes, Files.readAllBytes(to));
+        assertFalse(Files.exists(to.resolveSibling("file.bin.part")));
+    }
+
+    @Test
+    public void testThatWholeFileIsDownloadedWhenServerReturnsTheWrongRange() throws IOException {
+        Path to = createPartialDownload(testStorage.resolve("file.bin"), 100 * 1024);
+
+        // the range doesn't start where the partial file ends, and since failures are
+        // ignored the hash isn't checked, so appending it would keep a corrupt file
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/file.bin").withHeader("Range",
+                "bytes=" + (100 * 1024) + "-"))
+                .respond(HttpResponse.response().withStatusCode(206).withHeader("ETag", ETAG)
+                        .withHeader("Content-Range", "bytes 0-" + (bytes.length - 1) + "/" + bytes.length)
+                        .withBody(BinaryBody.binary(bytes)));
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/file.bin"))
+                .respond(HttpResponse.response().withStatusCode(200).withHeader("ETag", ETAG)
+                        .withBody(BinaryBody.binary(bytes)));
+
+        Download.build().setUrl(getUrl()).downloadTo(to).hash(Hashing.sha1(bytes).toString()).ignoreFailures()
+                .downloadFile();
+
+        assertArrayEquals(bytes, Files.readAllBytes(to));
+        assertFalse(Files.exists(to.resolveSibling("file.bin.part")));
+    }
+
+    @Test
+    public void testThatStalePartialDownloadIsDiscarded() throws IOException {
+        Path to = testStorage.resolve("file.bin");
+
+        // the partial file doesn't match what's on the server, so resuming would give a
+        // file with the wrong hash
+        byte[] stale = new byte[100 * 1024];
+        Files.write(to.resolveSibling("file.bin.part"), stale);
+        Files.write(to.resolveSibling("file.bin.part.validator"), ETAG.getBytes(StandardCharsets.UTF_8));
+
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/file.bin").withHeader("Range",
+                "bytes=" + (100 * 1024) + "-"))
+                .respond(HttpResponse.response().withStatusCode(206).withHeader("ETag", ETAG)
+                        .withBody(BinaryBody.binary(Arrays.copyOfRange(bytes, 100 * 1024, bytes.length))));
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/file.bin"))
+                .respond(HttpResponse.response().withStatusCode(200).withHeader("ETag", ETAG)
+                        .withBody(BinaryBody.binary(bytes)));
+
+        Download.build().setUrl(getUrl()).downloadTo(to).hash(Hashing.sha1(bytes).toString()).downloadFile();
+
+        assertArrayEquals(bytes, Files.readAllBytes(to));
+    }
+
+    @Test
+    public void testThatConcurrentDownloadsOfTheSameFileOnlyDownloadOnce() throws Exception {
+        Path to = testStorage.resolve("file.bin");
+        CountDownLatch requested = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // hold the response until every other download is waiting on the first one
+        mockServer.when(HttpRequest.request().withMethod("GET").withPath("/file.bin")).respond(request -> {
+            requested.countDown();
+
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return HttpResponse.response().withStatusCode(200).withHeader("ETag", ETAG)
+                    .withBody(BinaryBody.binary(bytes));
+        });
+
+        long sharedBefore = PerformanceManager.getCount("downloads.shared");
+
+        CompletableFuture<?>[] futures = new CompletableFuture[4];
+        futures[0] = downloadAsync(to);
+        assertTrue(requested.await(30, TimeUnit.SECONDS));
+
+        for (int i = 1; i < futures.length; i++) {
+            futures[i] = downloadAsync(to);
+        }
+
+        long waitingUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (PerformanceManager.getCount("downloads.shared") - sharedBefore < futures.length - 1) {
+            assertTrue(System.nanoTime() < waitingUntil, "Downloads never started waiting on the first one");
+            Thread.yield();
+        }
+
+        release.countDown();
+        CompletableFuture.allOf(futures).join();
+
+        mockServer.verify(HttpRequest.request().withPath("/file.bin"), VerificationTimes.exactly(1));
+        assertArrayEquals(bytes, Files.readAllBytes(to));
+    }
+
+    private CompletableFuture<Void> downloadAsync(Path to) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Download.build().setUrl(getUrl()).downloadTo(to).hash(Hashing.sha1(bytes).toString())
+                        .downloadFile();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.thread;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.atlauncher.evnt.LogEvent;
+import com.atlauncher.evnt.LogEvent.LogType;
+
+import org.junit.jupiter.api.Test;
+
+public class LogChannelTest {
+    @Test
+    public void testDropNewest() throws Exception {
+        LogChannel channel = new LogChannel("test", 2);
+        channel.setOverflowPolicy(LogChannel.OverflowPolicy.DROP_NEWEST);
+
+        assertTrue(channel.offer(event("1")));
+        assertTrue(channel.offer(event("2")));
+        assertFalse(channel.offer(event("3")));
+
+        assertEquals(1L, channel.takeDropped());
+        assertEquals(0L, channel.takeDropped());
+        assertEquals("1\n2\n", takeAll(channel));
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        LogChannel channel = new LogChannel("test", 2);
+        channel.setOverflowPolicy(LogChannel.OverflowPolicy.DROP_OLDEST);
+
+        assertTrue(channel.offer(event("1")));
+        assertTrue(channel.offer(event("2")));
+        assertTrue(channel.offer(event("3")));
+
+        assertEquals(1L, channel.takeDropped());
+        assertEquals("2\n3\n", takeAll(channel));
+    }
+
+    @Test
+    public void testBlockWithoutConsumerDrops() throws Exception {
+        LogChannel channel = new LogChannel("test", 1);
+
+        assertTrue(channel.offer(event("1")));
+        assertFalse(channel.offer(event("2")));
+
+        assertEquals(1L, channel.takeDropped());
+        assertEquals("1\n", takeAll(channel));
+    }
+
+    @Test
+    public void testBlockWaitsForConsumer() throws Exception {
+        LogChannel channel = new LogChannel("test", 1);
+        channel.setConsumer(new Thread());
+
+        assertTrue(channel.offer(event("1")));
+
+        CompletableFuture<Boolean> offered = CompletableFuture.supplyAsync(() -> channel.offer(event("2")));
+        Thread.sleep(100);
+        assertFalse(offered.isDone());
+
+        assertEquals("1\n", takeAll(channel));
+        assertTrue(offered.get());
+
+        assertEquals(0L, channel.takeDropped());
+        assertEquals("2\n", takeAll(channel));
+    }
+
+    private static LogEvent event(String body) {
+        return new LogEvent(LogType.INFO, body);
+    }
+
+    private static String takeAll(LogChannel channel) throws InterruptedException {
+        List<LogEvent> batch = new LinkedList<>();
+        channel.take(batch, Integer.MAX_VALUE);
+
+        StringBuilder bodies = new StringBuilder();
+        for (LogEvent event : batch) {
+            bodies.append(event.body);
+        }
+
+        return bodies.toString();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import com.sangupta.murmur.Murmur2;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class HashingTest {
+    @TempDir
+    public Path testStorage;
+
+    private static long referenceMurmur(byte[] bytes) {
+        byte[] filtered = ArrayUtils.removeAllOccurrences(ArrayUtils.removeAllOccurrences(
+                ArrayUtils.removeAllOccurrences(ArrayUtils.removeAllOccurrences(bytes, (byte) 9), (byte) 10),
+                (byte) 13), (byte) 32);
+
+        return Murmur2.hash(filtered, filtered.length, 1L);
+    }
+
+    @Test
+    public void testMurmur() throws IOException {
+        Random random = new Random(1337);
+        Path file = testStorage.resolve("murmur.bin");
+
+        // small sizes cover every tail length, the larger ones span multiple buffer
+        // reads
+        int[] sizes = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 63, 64 * 1024 - 1, 64 * 1024, 64 * 1024 + 3, 1000003 };
+
+        for (int size : sizes) {
+            byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+
+            // sprinkle in whitespace so the filtering is tested
+            for (int i = 0; i < size; i += 1 + random.nextInt(8)) {
+                bytes[i] = new byte[] { 9, 10, 13, 32 }[random.nextInt(4)];
+            }
+
+            Files.write(file, bytes);
+
+            assertEquals(referenceMurmur(bytes), Hashing.murmur(file), "Fingerprint differs for size " + size);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class OutputScannerTest {
+    private final OutputScanner scanner = OutputScanner.builder().detect("java.lang.OutOfMemoryError", 1)
+            .detect("ConcurrentModificationException", 2).redact("Steve", "**MINECRAFTUSERNAME**")
+            .redact("Steve", "**SOMETHINGELSE**").redact("abc123", "**ACCESSTOKEN**").redact("", "**EMPTY**")
+            .redact(null, "**NULL**").build();
+
+    @Test
+    public void testReturnsSameLineWhenNothingToRedact() {
+        List<Integer> detected = new LinkedList<>();
+        String line = "[Client thread/INFO]: Setting user: Player";
+
+        assertSame(line, scanner.scan(line, detected::add));
+        assertTrue(detected.isEmpty());
+    }
+
+    @Test
+    public void testDetectsAndRedactsInOnePass() {
+        List<Integer> detected = new LinkedList<>();
+
+        assertEquals("**MINECRAFTUSERNAME**: java.lang.OutOfMemoryError **ACCESSTOKEN****MINECRAFTUSERNAME**",
+                scanner.scan("Steve: java.lang.OutOfMemoryError abc123Steve", detected::add));
+        assertEquals(Arrays.asList(1), detected);
+    }
+
+    @Test
+    public void testPrefersLeftmostThenLongestOverlappingRedaction() {
+        OutputScanner overlapping = OutputScanner.builder().redact("he", "**HE**").redact("she", "**SHE**")
+                .redact("hers", "**HERS**").build();
+
+        assertEquals("u**SHE**rs", overlapping.scan("ushers", code -> {
+        }));
+        assertEquals("t**HERS**", overlapping.scan("thers", code -> {
+        }));
+    }
+
+    @Test
+    public void testFindsOverlappingSignatures() {
+        OutputScanner signatures = OutputScanner.builder().detect("abab", 1).detect("bab", 2).detect("ab", 3).build();
+        List<Integer> detected = new LinkedList<>();
+
+        signatures.scan("xababab", detected::add);
+
+        assertEquals(Arrays.asList(3, 1, 2, 3, 1, 2, 3), detected);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelZipTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testPacksFilesSpanningMultipleBlocks() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("instance"));
+        Files.createDirectories(root.resolve("mods"));
+        Files.createDirectories(root.resolve("saves/world"));
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300000; i++) {
+            text.append("line ").append(i % 1000).append('\n');
+        }
+        byte[] big = text.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] jar = new byte[1024 * 1024];
+        new Random(1).nextBytes(jar);
+
+        Files.write(root.resolve("options.txt"), big);
+        Files.write(root.resolve("mods/mod.jar"), jar);
+        Files.write(root.resolve("saves/world/empty.dat"), new byte[0]);
+        Files.write(root.resolve("latest.log"), "log".getBytes(StandardCharsets.UTF_8));
+
+        Path zip = tempDir.resolve("backup.zip");
+        assertTrue(ParallelZip.pack(root, zip, name -> name.endsWith(".log") ? null : name, 6));
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertArrayEquals(big, read(zipFile, "options.txt"));
+            assertArrayEquals(jar, read(zipFile, "mods/mod.jar"));
+            assertArrayEquals(new byte[0], read(zipFile, "saves/world/empty.dat"));
+
+            assertEquals(ZipEntry.DEFLATED, zipFile.getEntry("options.txt").getMethod());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("mods/mod.jar").getMethod());
+            assertTrue(zipFile.getEntry("saves/world/").isDirectory());
+            assertNull(zipFile.getEntry("latest.log"));
+        }
+    }
+
+    @Test
+    public void testLeavesNothingBehindOnFailure() {
+        Path zip = tempDir.resolve("backup.zip");
+
+        assertFalse(ParallelZip.pack(tempDir.resolve("missing"), zip, name -> name, 6));
+        assertFalse(Files.exists(zip));
+        assertFalse(Files.exists(tempDir.resolve("backup.zip.tmp")));
+    }
+
+    @Test
+    public void testUnpacksWhatWasPacked() throws IOException {
+        Path root = Files.createDirectories(tempDir.resolve("instance"));
+        Files.createDirectories(root.resolve("config/empty"));
+
+        for (int i = 0; i < 500; i++) {
+            Path file = root.resolve("config/mod" + (i % 10) + "/file" + i + ".cfg");
+            Files.createDirectories(file.getParent());
+            Files.write(file, ("value=" + i).getBytes(StandardCharsets.UTF_8));
+        }
+
+        Path zip = tempDir.resolve("export.zip");
+        assertTrue(ParallelZip.pack(root, zip, name -> name, 6));
+
+        Path extracted = tempDir.resolve("extracted");
+        ParallelZip.unpack(zip, extracted, name -> name.startsWith("config/mod9/") ? null : name);
+
+        assertTrue(Files.isDirectory(extracted.resolve("config/empty")));
+        assertArrayEquals("value=0".getBytes(StandardCharsets.UTF_8),
+                Files.readAllBytes(extracted.resolve("config/mod0/file0.cfg")));
+        assertArrayEquals("value=498".getBytes(StandardCharsets.UTF_8),
+                Files.readAllBytes(extracted.resolve("config/mod8/file498.cfg")));
+        assertFalse(Files.exists(extracted.resolve("config/mod9")));
+    }
+
+    @Test
+    public void testDoesNotUnpackOutsideOfDirectory() throws IOException {
+        Path zip = tempDir.resolve("evil.zip");
+
+        try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(zip))) {
+            outputStream.putNextEntry(new ZipEntry("../evil.txt"));
+            outputStream.write(1);
+            outputStream.closeEntry();
+        }
+
+        assertThrows(IOException.class, () -> ParallelZip.unpack(zip, tempDir.resolve("extracted")));
+        assertFalse(Files.exists(tempDir.resolve("evil.txt")));
+    }
+
+    private static byte[] read(ZipFile zipFile, String name) throws IOException {
+        ZipEntry entry = zipFile.getEntry(name);
+        assertNotNull(entry, name);
+
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+
+            return output.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * ATLauncher - https://github.com/ATLauncher/ATLauncher
+ * Copyright (C) 2013-2021 ATLauncher
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.atlauncher.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SignedPackInputStreamTest {
+    private static byte[] sign(byte[] pack, byte[] checksums) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(pack, 0, pack.length);
+        output.write(checksums, 0, checksums.length);
+        output.write(checksums.length & 0xFF);
+        output.write((checksums.length >>> 8) & 0xFF);
+        output.write((checksums.length >>> 16) & 0xFF);
+        output.write((checksums.length >>> 24) & 0xFF);
+        output.write('S');
+        output.write('I');
+        output.write('G');
+        output.write('N');
+
+        return output.toByteArray();
+    }
+
+    @Test
+    public void testPassesEverythingThroughAndReadsChecksums() throws IOException {
+        byte[] pack = new byte[100000];
+        new Random(1).nextBytes(pack);
+        byte[] checksums = "da39a3ee5e6b4b0d3255bfef95601890afd80709 net/minecraft/Thing.class\n"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] signed = sign(pack, checksums);
+
+        SignedPackInputStream inputStream = new SignedPackInputStream(new ByteArrayInputStream(signed), 100);
+
+        // read part of it in odd sized chunks, like the unpacker would, and leave the rest
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        byte[] buffer = new byte[777];
+        for (int i = 0; i < 50; i++) {
+            int length = inputStream.read(buffer, 0, 1 + i * 13 % buffer.length);
+            read.write(buffer, 0, length);
+            read.write(inputStream.read());
+        }
+        inputStream.close();
+
+        assertArrayEquals(checksums, inputStream.getChecksums());
+
+        byte[] start = read.toByteArray();
+        for (int i = 0; i < start.length; i++) {
+            assertEquals(signed[i], start[i]);
+        }
+    }
+
+    @Test
+    public void testReadsChecksumsWhenReadInOneGo() throws IOException {
+        byte[] checksums = new byte[64];
+        new Random(2).nextBytes(checksums);
+        byte[] signed = sign(new byte[5000], checksums);
+
+        SignedPackInputStream inputStream = new SignedPackInputStream(new ByteArrayInputStream(signed), 100);
+        assertEquals(signed.length, inputStream.read(new byte[signed.length * 2], 0, signed.length * 2));
+
+        assertArrayEquals(checksums, inputStream.getChecksums());
+    }
+
+    @Test
+    public void testReturnsNullWhenNotSigned() throws IOException {
+        SignedPackInputStream inputStream = new SignedPackInputStream(new ByteArrayInputStream(new byte[5000]));
+
+        assertNull(inputStream.getChecksums());
+    }
+
+    @Test
+    public void testThrowsWhenChecksumsTooBig() {
+        SignedPackInputStream inputStream = new SignedPackInputStream(
+                new ByteArrayInputStream(sign(new byte[5000], new byte[200])), 100);
+
+        assertThrows(IOException.class, inputStream::getChecksums);
+    }
+}